@@ -0,0 +1,36 @@
+package com.alibaba.cloud.ai.workflow.benchmark;
+
+import com.alibaba.cloud.ai.workflow.WorkflowVisualApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+
+// 以内存 H2 (MySQL 兼容模式) 代替 MySQL 启动应用上下文, 不启动 Web 服务器
+public final class BenchmarkApplication {
+    
+    private BenchmarkApplication() {
+    }
+    
+    public static ConfigurableApplicationContext start() {
+        String database = "bench-" + UUID.randomUUID();
+        return new SpringApplicationBuilder(WorkflowVisualApplication.class)
+            .web(WebApplicationType.NONE)
+            .bannerMode(Banner.Mode.OFF)
+            .logStartupInfo(false)
+            // 命令行参数优先级高于 application.yml
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                // 节点日志会掩盖被测代码本身的开销
+                "--logging.level.root=WARN",
+                "--logging.level.com.alibaba.cloud.ai=WARN");
+    }
+}
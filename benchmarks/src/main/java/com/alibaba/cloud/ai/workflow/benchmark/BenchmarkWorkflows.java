@@ -0,0 +1,86 @@
+package com.alibaba.cloud.ai.workflow.benchmark;
+
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 基准使用的工作流定义: input -> (process | 自定义节点) x N -> output 的线性链路
+public final class BenchmarkWorkflows {
+    
+    private BenchmarkWorkflows() {
+    }
+    
+    public static WorkflowDefinition linear(int nodeCount) {
+        if (nodeCount < 2) {
+            throw new IllegalArgumentException("nodeCount must be at least 2");
+        }
+        List<WorkflowDefinition.NodeDefinition> nodes = new ArrayList<>();
+        List<WorkflowDefinition.EdgeDefinition> edges = new ArrayList<>();
+        for (int i = 1; i <= nodeCount; i++) {
+            String nodeType;
+            if (i == 1) {
+                nodeType = "input";
+            } else if (i == nodeCount) {
+                nodeType = "output";
+            } else {
+                nodeType = i % 2 == 0 ? "process" : "transform";
+            }
+            nodes.add(node("node-" + i, nodeType, i));
+            if (i > 1) {
+                edges.add(edge("node-" + (i - 1), "node-" + i));
+            }
+        }
+        
+        WorkflowDefinition definition = new WorkflowDefinition();
+        definition.setName("benchmark-linear-" + nodeCount);
+        definition.setDescription("Linear workflow with " + nodeCount + " nodes");
+        definition.setNodes(nodes);
+        definition.setEdges(edges);
+        definition.setMetadata(new HashMap<>());
+        return definition;
+    }
+    
+    public static WorkflowDefinition.NodeDefinition node(String id, String nodeType, int index) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("label", nodeType + " " + index);
+        data.put("nodeType", nodeType);
+        if ("transform".equals(nodeType)) {
+            // 自定义节点会把 data 写入状态
+            data.put("field" + (index % 10), "value-" + index);
+        }
+        
+        WorkflowDefinition.NodeDefinition.Position position = new WorkflowDefinition.NodeDefinition.Position();
+        position.setX(index * 200);
+        position.setY(100);
+        
+        WorkflowDefinition.NodeDefinition node = new WorkflowDefinition.NodeDefinition();
+        node.setId(id);
+        node.setType("custom");
+        node.setLabel(nodeType + " " + index);
+        node.setPosition(position);
+        node.setData(data);
+        return node;
+    }
+    
+    // 模拟前端提交的输入
+    public static Map<String, Object> inputs(int keyCount) {
+        Map<String, Object> inputs = new HashMap<>();
+        inputs.put("input", "hello");
+        for (int i = 1; i < keyCount; i++) {
+            inputs.put("key" + i, "value-" + i);
+        }
+        return inputs;
+    }
+    
+    private static WorkflowDefinition.EdgeDefinition edge(String source, String target) {
+        WorkflowDefinition.EdgeDefinition edge = new WorkflowDefinition.EdgeDefinition();
+        edge.setId("edge-" + source + "-" + target);
+        edge.setSource(source);
+        edge.setTarget(target);
+        edge.setType("smoothstep");
+        return edge;
+    }
+}
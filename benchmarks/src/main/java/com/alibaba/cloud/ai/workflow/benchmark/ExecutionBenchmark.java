@@ -0,0 +1,71 @@
+package com.alibaba.cloud.ai.workflow.benchmark;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.service.ExecutionService;
+import com.alibaba.cloud.ai.workflow.service.WorkflowService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// 端到端: executeWorkflow 提交执行, 直到执行记录变为终态 (包含编译缓存、执行器、异步写入)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutionBenchmark {
+    
+    // 线性链路在编译时合并为一个图节点, 节点数主要影响节点本身和事件的开销
+    @Param({"10", "100", "1000"})
+    int nodeCount;
+    
+    private ConfigurableApplicationContext context;
+    private ExecutionService executionService;
+    private String workflowId;
+    private Map<String, Object> inputs;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        executionService = context.getBean(ExecutionService.class);
+        workflowId = context.getBean(WorkflowService.class)
+            .createWorkflow(BenchmarkWorkflows.linear(nodeCount))
+            .getId();
+        inputs = BenchmarkWorkflows.inputs(10);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public ExecutionEntity execute() {
+        String executionId = executionService.executeWorkflow(workflowId, inputs).getId();
+        ExecutionEntity execution = executionService.getExecution(executionId);
+        while ("running".equals(execution.getStatus())) {
+            LockSupport.parkNanos(10_000);
+            execution = executionService.getExecution(executionId);
+        }
+        if (!"completed".equals(execution.getStatus())) {
+            throw new IllegalStateException("Execution " + executionId + " failed: " + execution.getErrorMessage());
+        }
+        return execution;
+    }
+}
@@ -0,0 +1,85 @@
+package com.alibaba.cloud.ai.workflow.benchmark;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.service.CompiledWorkflow;
+import com.alibaba.cloud.ai.workflow.service.WorkflowGraphCompiler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// WorkflowDefinition (graphData 列) 与执行输出 (outputs 列) 的序列化/反序列化开销
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    int nodeCount;
+    
+    // 与应用中注入的 ObjectMapper 配置一致 (忽略未知字段等)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private WorkflowDefinition definition;
+    private String definitionJson;
+    private Map<String, Object> outputs;
+    private String outputsJson;
+    
+    @Setup
+    public void setUp() throws Exception {
+        definition = BenchmarkWorkflows.linear(nodeCount);
+        definitionJson = objectMapper.writeValueAsString(definition);
+        
+        // 与执行完成时写入的结构一致: 输入 + 最后写入的节点字段 + 每个节点的 nodeResults
+        CompiledWorkflow compiled = new WorkflowGraphCompiler().compile(definition,
+            node -> (state, config) -> CompletableFuture.completedFuture(Map.of()));
+        OverAllState state = compiled.initialState(BenchmarkWorkflows.inputs(10));
+        for (WorkflowDefinition.NodeDefinition node : definition.getNodes()) {
+            Map<String, Object> result = Map.of(
+                "nodeId", node.getId(),
+                "nodeType", node.getNodeType(),
+                "nodeLabel", node.getLabel(),
+                "message", "Custom node executed: " + node.getNodeType());
+            state.updateState(Map.of(WorkflowGraphCompiler.NODE_RESULTS_KEY, Map.of(node.getId(), result)));
+            state.updateState(result);
+        }
+        outputs = state.data();
+        outputsJson = objectMapper.writeValueAsString(outputs);
+    }
+    
+    @Benchmark
+    public String writeDefinition() throws Exception {
+        return objectMapper.writeValueAsString(definition);
+    }
+    
+    @Benchmark
+    public WorkflowDefinition readDefinition() throws Exception {
+        return objectMapper.readValue(definitionJson, WorkflowDefinition.class);
+    }
+    
+    @Benchmark
+    public String writeOutputs() throws Exception {
+        return objectMapper.writeValueAsString(outputs);
+    }
+    
+    @Benchmark
+    public Map<?, ?> readOutputs() throws Exception {
+        return objectMapper.readValue(outputsJson, Map.class);
+    }
+}
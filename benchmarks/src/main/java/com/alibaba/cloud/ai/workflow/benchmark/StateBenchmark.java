@@ -0,0 +1,48 @@
+package com.alibaba.cloud.ai.workflow.benchmark;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.workflow.service.CompiledWorkflow;
+import com.alibaba.cloud.ai.workflow.service.WorkflowGraphCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// 每次执行开始时由输入构造 OverAllState 的开销
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateBenchmark {
+    
+    @Param({"1", "10", "100"})
+    int inputKeys;
+    
+    private CompiledWorkflow compiled;
+    private Map<String, Object> inputs;
+    
+    @Setup
+    public void setUp() throws Exception {
+        compiled = new WorkflowGraphCompiler().compile(BenchmarkWorkflows.linear(10),
+            node -> (state, config) -> CompletableFuture.completedFuture(Map.of()));
+        inputs = BenchmarkWorkflows.inputs(inputKeys);
+    }
+    
+    @Benchmark
+    public OverAllState initialState() {
+        return compiled.initialState(inputs);
+    }
+}
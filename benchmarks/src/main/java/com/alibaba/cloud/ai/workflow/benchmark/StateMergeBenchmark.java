@@ -0,0 +1,68 @@
+package com.alibaba.cloud.ai.workflow.benchmark;
+
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.service.WorkflowGraphCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// 一次执行中逐个节点合并状态的开销: 图执行器每完成一个节点调用一次 OverAllState.updateState,
+// 合并节点写入的字段和 nodeResults
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateMergeBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    int nodeCount;
+    
+    private Map<String, KeyStrategy> keyStrategies;
+    private final List<Map<String, Object>> updates = new ArrayList<>();
+    
+    @Setup
+    public void setUp() throws Exception {
+        WorkflowDefinition definition = BenchmarkWorkflows.linear(nodeCount);
+        keyStrategies = new WorkflowGraphCompiler().compile(definition,
+            node -> (state, config) -> CompletableFuture.completedFuture(Map.of())).keyStrategies();
+        // 与 ExecutionService 中每个节点返回的增量一致: 节点字段 + 只含本节点的 nodeResults
+        for (WorkflowDefinition.NodeDefinition node : definition.getNodes()) {
+            Map<String, Object> result = Map.of(
+                "nodeId", node.getId(),
+                "nodeType", node.getNodeType(),
+                "nodeLabel", node.getLabel(),
+                "message", "Custom node executed: " + node.getNodeType());
+            Map<String, Object> update = new HashMap<>(result);
+            update.put(WorkflowGraphCompiler.NODE_RESULTS_KEY, Map.of(node.getId(), result));
+            updates.add(update);
+        }
+    }
+    
+    @Benchmark
+    public Map<String, Object> mergeNodeResults() {
+        Map<String, Object> state = new HashMap<>();
+        for (Map<String, Object> update : updates) {
+            state = OverAllState.updateState(state, update, keyStrategies);
+        }
+        return state;
+    }
+}
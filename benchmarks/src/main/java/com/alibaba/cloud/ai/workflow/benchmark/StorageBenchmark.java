@@ -0,0 +1,98 @@
+package com.alibaba.cloud.ai.workflow.benchmark;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.workflow.config.StorageProperties;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.model.WorkflowLayout;
+import com.alibaba.cloud.ai.workflow.service.CompiledWorkflow;
+import com.alibaba.cloud.ai.workflow.service.WorkflowGraphCompiler;
+import com.alibaba.cloud.ai.workflow.storage.StorageCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// StorageCodec 各格式的编解码开销, 编码后的大小见 setUp 输出
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    
+    @Param({"100", "1000"})
+    int nodeCount;
+    
+    @Param({"JSON", "SMILE", "CBOR"})
+    StorageProperties.Format format;
+    
+    private StorageCodec codec;
+    private WorkflowDefinition graph;
+    private byte[] graphData;
+    private Map<String, Object> outputs;
+    private byte[] outputsData;
+    
+    @Setup
+    public void setUp() throws Exception {
+        StorageProperties properties = new StorageProperties();
+        properties.setFormat(format);
+        codec = new StorageCodec(Jackson2ObjectMapperBuilder.json().build(), properties);
+        
+        WorkflowDefinition definition = BenchmarkWorkflows.linear(nodeCount);
+        graph = WorkflowLayout.withoutLayout(definition);
+        graphData = codec.encode(graph);
+        
+        // 与 JsonBenchmark 相同的执行输出结构
+        CompiledWorkflow compiled = new WorkflowGraphCompiler().compile(definition,
+            node -> (state, config) -> CompletableFuture.completedFuture(Map.of()));
+        OverAllState state = compiled.initialState(BenchmarkWorkflows.inputs(10));
+        for (WorkflowDefinition.NodeDefinition node : definition.getNodes()) {
+            Map<String, Object> result = Map.of(
+                "nodeId", node.getId(),
+                "nodeType", node.getNodeType(),
+                "nodeLabel", node.getLabel(),
+                "message", "Custom node executed: " + node.getNodeType());
+            state.updateState(Map.of(WorkflowGraphCompiler.NODE_RESULTS_KEY, Map.of(node.getId(), result)));
+            state.updateState(result);
+        }
+        outputs = state.data();
+        outputsData = codec.encode(outputs);
+        
+        System.out.printf("%n%s nodes=%d: graph %d bytes (json %d), outputs %d bytes (json %d)%n",
+            format, nodeCount, graphData.length, codec.toJson(graph).length(),
+            outputsData.length, codec.toJson(outputs).length());
+    }
+    
+    @Benchmark
+    public byte[] encodeGraph() {
+        return codec.encode(graph);
+    }
+    
+    @Benchmark
+    public WorkflowDefinition decodeGraph() {
+        return codec.decode(graphData, WorkflowDefinition.class);
+    }
+    
+    @Benchmark
+    public byte[] encodeOutputs() {
+        return codec.encode(outputs);
+    }
+    
+    @Benchmark
+    public Object decodeOutputs() {
+        return codec.decode(outputsData, Map.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.benchmark.BenchmarkApplication;
+import com.alibaba.cloud.ai.workflow.benchmark.BenchmarkWorkflows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// getOrCompileGraph: 缓存未命中 (完整编译) 与命中 (版本校验 + 缓存查找) 的开销
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphCompileBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    int nodeCount;
+    
+    private ConfigurableApplicationContext context;
+    private ExecutionService executionService;
+    private String workflowId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        executionService = context.getBean(ExecutionService.class);
+        workflowId = context.getBean(WorkflowService.class)
+            .createWorkflow(BenchmarkWorkflows.linear(nodeCount))
+            .getId();
+        executionService.getOrCompileGraph(workflowId);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public CompiledWorkflow compile() {
+        executionService.clearGraphCache(workflowId);
+        return executionService.getOrCompileGraph(workflowId);
+    }
+    
+    @Benchmark
+    public CompiledWorkflow cached() {
+        return executionService.getOrCompileGraph(workflowId);
+    }
+}
@@ -0,0 +1,64 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.benchmark.BenchmarkApplication;
+import com.alibaba.cloud.ai.workflow.benchmark.BenchmarkWorkflows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 单个节点的调度开销: createNodeAction 包装 + 编译时绑定的 NodeExecutor 动作 + nodeResults 汇总
+// 不带 threadId, 因此不包含执行事件推送
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeDispatchBenchmark {
+    
+    @Param({"input", "process", "output", "transform"})
+    String nodeType;
+    
+    private ConfigurableApplicationContext context;
+    private AsyncNodeActionWithConfig action;
+    private OverAllState state;
+    private RunnableConfig config;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        action = context.getBean(ExecutionService.class)
+            .createNodeAction(BenchmarkWorkflows.node("node-1", nodeType, 1));
+        CompiledWorkflow compiled = context.getBean(ExecutionService.class).getOrCompileGraph(
+            context.getBean(WorkflowService.class).createWorkflow(BenchmarkWorkflows.linear(10)).getId());
+        state = compiled.initialState(BenchmarkWorkflows.inputs(10));
+        config = RunnableConfig.builder().build();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Map<String, Object> dispatch() throws Exception {
+        return action.apply(state, config).get();
+    }
+}
@@ -0,0 +1,16 @@
+#!/bin/bash
+# 生成 AppCDS 归档, 缩短启动时间。
+# 构建不重新打包的 jar 和 target/lib (-Pcds), 训练启动一次 (上下文刷新完成后退出), 记录加载过的类。
+# 训练启动需要能连接数据库, 参数与正式启动相同, 例如: ./cds.sh --spring.profiles.active=prod
+
+set -e
+
+echo "=== 构建 (cds profile) ==="
+mvn clean package -Pcds -DskipTests
+
+echo "=== 训练启动 ==="
+java -XX:ArchiveClassesAtExit=target/app.jsa -Dspring.context.exit=onRefresh \
+    -jar target/workflow-visual-example-1.0.0.jar "$@"
+
+echo "归档已生成: target/app.jsa"
+echo "启动: java -XX:SharedArchiveFile=target/app.jsa -jar target/workflow-visual-example-1.0.0.jar $*"
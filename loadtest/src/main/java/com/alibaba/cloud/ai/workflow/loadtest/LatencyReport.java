@@ -0,0 +1,208 @@
+package com.alibaba.cloud.ai.workflow.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+// 按接口统计延迟分布 (HdrHistogram, 微秒精度) 和响应状态。
+// 延迟从计划发送时刻开始计算, 服务端变慢导致的排队也计入延迟, 不会因为少发请求而被掩盖 (coordinated omission)。
+final class LatencyReport {
+    
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    
+    private final Map<Operation, EndpointStats> endpoints = new EnumMap<>(Operation.class);
+    // 轮询看到的执行结束状态和服务端记录的执行耗时
+    private final EndpointStats executions = new EndpointStats();
+    
+    LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            endpoints.put(operation, new EndpointStats());
+        }
+    }
+    
+    void record(Operation operation, long latencyNanos, int status) {
+        EndpointStats stats = endpoints.get(operation);
+        stats.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_TRACKABLE_MICROS));
+        stats.statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+    }
+    
+    // 连接失败、超时等没有 HTTP 状态的错误
+    void failed(Operation operation, long latencyNanos) {
+        record(operation, latencyNanos, 0);
+    }
+    
+    // 在途请求达到上限, 本次请求没有发出
+    void dropped(Operation operation) {
+        endpoints.get(operation).dropped.increment();
+    }
+    
+    // 没有可用的目标 (例如还没有可轮询的执行)
+    void skipped(Operation operation) {
+        endpoints.get(operation).skipped.increment();
+    }
+    
+    void execution(String status, long durationMillis) {
+        executions.latency.recordValue(Math.min(TimeUnit.MILLISECONDS.toMicros(Math.max(durationMillis, 0)),
+            MAX_TRACKABLE_MICROS));
+        executions.outcomes.computeIfAbsent(status, k -> new LongAdder()).increment();
+    }
+    
+    void print(PrintStream out, Duration measured) {
+        double seconds = measured.toNanos() / 1e9;
+        out.printf("%n%-36s %8s %8s %6s %7s %8s %9s %9s %9s %9s %9s %9s%n", "endpoint", "count", "2xx", "429",
+            "errors", "dropped", "req/s", "mean ms", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        Histogram total = new Histogram(MAX_TRACKABLE_MICROS, 3);
+        long totalSuccess = 0;
+        long totalRejected = 0;
+        long totalErrors = 0;
+        long totalDropped = 0;
+        for (Map.Entry<Operation, EndpointStats> entry : endpoints.entrySet()) {
+            EndpointStats stats = entry.getValue();
+            Histogram latency = stats.latency.copy();
+            if (latency.getTotalCount() == 0 && stats.dropped.sum() == 0) {
+                continue;
+            }
+            total.add(latency);
+            totalSuccess += stats.success();
+            totalRejected += stats.rejected();
+            totalErrors += stats.errors();
+            totalDropped += stats.dropped.sum();
+            printRow(out, entry.getKey().endpoint, latency, stats.success(), stats.rejected(), stats.errors(),
+                stats.dropped.sum(), seconds);
+        }
+        printRow(out, "total", total, totalSuccess, totalRejected, totalErrors, totalDropped, seconds);
+        
+        Histogram durations = executions.latency.copy();
+        if (durations.getTotalCount() > 0) {
+            out.printf("%nexecution duration (server side, %d finished executions observed by polling): "
+                    + "p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms%n", durations.getTotalCount(),
+                millis(durations.getValueAtPercentile(50)), millis(durations.getValueAtPercentile(95)),
+                millis(durations.getValueAtPercentile(99)), millis(durations.getMaxValue()));
+            out.println("execution outcomes: " + counts(executions.outcomes));
+        }
+    }
+    
+    void write(File file, LoadTestOptions options, Duration measured) throws IOException {
+        double seconds = measured.toNanos() / 1e9;
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("target", options.target != null ? options.target : "embedded");
+        settings.put("rps", options.rps);
+        settings.put("durationSeconds", options.duration.toSeconds());
+        settings.put("warmupSeconds", options.warmup.toSeconds());
+        settings.put("mix", options.mix);
+        settings.put("shapes", options.shapes);
+        settings.put("workflowsPerShape", options.workflows);
+        settings.put("maxInFlight", options.maxInFlight);
+        report.put("settings", settings);
+        report.put("measuredSeconds", seconds);
+        
+        Map<String, Object> endpointReports = new LinkedHashMap<>();
+        for (Map.Entry<Operation, EndpointStats> entry : endpoints.entrySet()) {
+            EndpointStats stats = entry.getValue();
+            Histogram latency = stats.latency.copy();
+            if (latency.getTotalCount() == 0 && stats.dropped.sum() == 0 && stats.skipped.sum() == 0) {
+                continue;
+            }
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("count", latency.getTotalCount());
+            endpoint.put("throughput", latency.getTotalCount() / seconds);
+            endpoint.put("success", stats.success());
+            endpoint.put("rejected", stats.rejected());
+            endpoint.put("errors", stats.errors());
+            endpoint.put("dropped", stats.dropped.sum());
+            endpoint.put("skipped", stats.skipped.sum());
+            endpoint.put("statuses", counts(stats.statuses));
+            endpoint.put("latencyMs", percentiles(latency));
+            endpointReports.put(entry.getKey().endpoint, endpoint);
+        }
+        report.put("endpoints", endpointReports);
+        
+        Histogram durations = executions.latency.copy();
+        if (durations.getTotalCount() > 0) {
+            Map<String, Object> execution = new LinkedHashMap<>();
+            execution.put("observed", durations.getTotalCount());
+            execution.put("outcomes", counts(executions.outcomes));
+            execution.put("durationMs", percentiles(durations));
+            report.put("executions", execution);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+    
+    private static void printRow(PrintStream out, String name, Histogram latency, long success, long rejected,
+                                 long errors, long dropped, double seconds) {
+        out.printf("%-36s %8d %8d %6d %7d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+            latency.getTotalCount(), success, rejected, errors, dropped, latency.getTotalCount() / seconds,
+            latency.getTotalCount() > 0 ? latency.getMean() / 1000.0 : 0.0,
+            millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(95)),
+            millis(latency.getValueAtPercentile(99)), millis(latency.getMaxValue()));
+    }
+    
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mean", histogram.getMean() / 1000.0);
+        result.put("p50", millis(histogram.getValueAtPercentile(50)));
+        result.put("p95", millis(histogram.getValueAtPercentile(95)));
+        result.put("p99", millis(histogram.getValueAtPercentile(99)));
+        result.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+        result.put("max", millis(histogram.getMaxValue()));
+        return result;
+    }
+    
+    private static <K> Map<String, Long> counts(Map<K, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((key, count) -> result.put(String.valueOf(key), count.sum()));
+        return result;
+    }
+    
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+    
+    private static final class EndpointStats {
+        
+        final Histogram latency = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+        // HTTP 状态码, 0 表示没有收到响应
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        
+        long success() {
+            return sum(status -> status >= 200 && status < 300);
+        }
+        
+        // 执行名额不足被拒绝, 是服务端的背压而不是错误
+        long rejected() {
+            return sum(status -> status == 429);
+        }
+        
+        long errors() {
+            return sum(status -> status < 200 || (status >= 300 && status != 429));
+        }
+        
+        private long sum(IntPredicate filter) {
+            long sum = 0;
+            for (Map.Entry<Integer, LongAdder> entry : statuses.entrySet()) {
+                if (filter.test(entry.getKey())) {
+                    sum += entry.getValue().sum();
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.alibaba.cloud.ai.workflow.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// 开环负载生成: 按目标速率在固定的计划时刻发出请求, 不等待上一个请求返回。
+// 请求类型按 mix 的权重随机选择; execute 返回的执行 id 进入最近执行的环形缓冲区, poll 从中随机选择未结束的执行查询,
+// 看到结束状态后移出缓冲区, 模拟客户端轮询执行结果直到完成。
+final class LoadGenerator {
+    
+    private static final Set<String> FINISHED = Set.of("completed", "failed", "cancelled", "timed_out");
+    // 最近执行的 id 数量上限
+    private static final int RECENT_EXECUTIONS = 4096;
+    // 轮询时随机选择未结束执行的尝试次数
+    private static final int POLL_ATTEMPTS = 8;
+    
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final LatencyReport report;
+    private final SyntheticWorkflows workflows;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client;
+    private final Semaphore inFlight;
+    private final WeightedChoice<Operation> operations;
+    private final WeightedChoice<SyntheticWorkflows.Shape> shapes;
+    private final List<SeededWorkflow> workflowPool = new CopyOnWriteArrayList<>();
+    private final AtomicReferenceArray<String> recentExecutions = new AtomicReferenceArray<>(RECENT_EXECUTIONS);
+    private final AtomicLong executionCount = new AtomicLong();
+    private final AtomicLong nameSequence = new AtomicLong();
+    private volatile boolean recording;
+    
+    LoadGenerator(LoadTestOptions options, String baseUrl, LatencyReport report) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.report = report;
+        this.workflows = new SyntheticWorkflows(options);
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            // 响应处理很轻, 固定大小的线程池足够; 默认的缓存线程池在高速率下会创建大量线程
+            .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()),
+                daemonThreads()))
+            .build();
+        this.inFlight = new Semaphore(options.maxInFlight);
+        this.operations = new WeightedChoice<>(options.mix);
+        this.shapes = new WeightedChoice<>(options.shapes);
+    }
+    
+    // 创建每种形状的初始工作流, 同步执行, 不计入报告
+    void seed() throws IOException, InterruptedException {
+        for (SyntheticWorkflows.Shape shape : options.shapes.keySet()) {
+            for (int i = 0; i < options.workflows; i++) {
+                HttpResponse<String> response = client.send(createRequest(shape), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Failed to create " + shape + " workflow: HTTP "
+                        + response.statusCode() + " " + response.body());
+                }
+                workflowPool.add(new SeededWorkflow(objectMapper.readTree(response.body()).path("id").asText(), shape));
+            }
+        }
+    }
+    
+    // 预热后开始计时, 返回计入报告的时长
+    Duration run() throws InterruptedException {
+        if (!options.warmup.isZero() && !options.warmup.isNegative()) {
+            recording = false;
+            drive(options.warmup);
+        }
+        recording = true;
+        long start = System.nanoTime();
+        drive(options.duration);
+        Duration measured = Duration.ofNanos(System.nanoTime() - start);
+        // 等待最后一批请求返回, 超时的请求由 HttpClient 以错误结束
+        if (!inFlight.tryAcquire(options.maxInFlight, options.requestTimeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            System.err.println("Some requests are still in flight after the request timeout");
+        }
+        return measured;
+    }
+    
+    private void drive(Duration duration) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rps;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                return;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            dispatch(operations.next(), intended);
+        }
+    }
+    
+    private void dispatch(Operation operation, long intendedNanos) {
+        HttpRequest request = request(operation);
+        if (request == null) {
+            if (recording) {
+                report.skipped(operation);
+            }
+            return;
+        }
+        if (!inFlight.tryAcquire()) {
+            if (recording) {
+                report.dropped(operation);
+            }
+            return;
+        }
+        boolean measured = recording;
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                inFlight.release();
+                long latency = System.nanoTime() - intendedNanos;
+                if (error != null) {
+                    if (measured) {
+                        report.failed(operation, latency);
+                    }
+                    return;
+                }
+                if (measured) {
+                    report.record(operation, latency, response.statusCode());
+                }
+                if (response.statusCode() == 200) {
+                    handle(operation, request, response.body(), measured);
+                }
+            });
+    }
+    
+    private HttpRequest request(Operation operation) {
+        return switch (operation) {
+            case CREATE -> createRequest(shapes.next());
+            case UPDATE -> {
+                SeededWorkflow workflow = randomWorkflow();
+                yield json(URI.create(baseUrl + "/api/workflows/" + workflow.id()))
+                    .PUT(body(workflows.create(workflow.shape(), name(workflow.shape()))))
+                    .build();
+            }
+            case EXECUTE -> {
+                SeededWorkflow workflow = randomWorkflow();
+                yield json(URI.create(baseUrl + "/api/workflows/" + workflow.id() + "/execute"))
+                    .POST(body(Map.of("input", "load-" + ThreadLocalRandom.current().nextInt(1000))))
+                    .build();
+            }
+            case POLL -> {
+                String executionId = runningExecution();
+                yield executionId == null ? null
+                    : json(URI.create(baseUrl + "/api/workflows/executions/" + executionId)).GET().build();
+            }
+            case LIST -> json(URI.create(baseUrl + "/api/workflows")).GET().build();
+        };
+    }
+    
+    private HttpRequest createRequest(SyntheticWorkflows.Shape shape) {
+        return json(URI.create(baseUrl + "/api/workflows"))
+            .POST(body(workflows.create(shape, name(shape))))
+            .build();
+    }
+    
+    private void handle(Operation operation, HttpRequest request, String body, boolean measured) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            switch (operation) {
+                case EXECUTE -> {
+                    long slot = executionCount.getAndIncrement() % RECENT_EXECUTIONS;
+                    recentExecutions.set((int) slot, json.path("id").asText());
+                }
+                case POLL -> {
+                    String status = json.path("status").asText();
+                    if (FINISHED.contains(status)) {
+                        // 同一个执行只统计一次结束状态
+                        if (forget(json.path("id").asText()) && measured) {
+                            report.execution(status, json.path("duration").asLong());
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Unexpected response from " + request.uri() + ": " + e.getMessage());
+        }
+    }
+    
+    // 随机选择一个尚未看到结束状态的执行
+    private String runningExecution() {
+        long count = Math.min(executionCount.get(), RECENT_EXECUTIONS);
+        if (count == 0) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < POLL_ATTEMPTS; i++) {
+            String executionId = recentExecutions.get(random.nextInt((int) count));
+            if (executionId != null) {
+                return executionId;
+            }
+        }
+        return null;
+    }
+    
+    private boolean forget(String executionId) {
+        for (int i = 0; i < RECENT_EXECUTIONS; i++) {
+            if (executionId.equals(recentExecutions.get(i))) {
+                return recentExecutions.compareAndSet(i, executionId, null);
+            }
+        }
+        return false;
+    }
+    
+    private SeededWorkflow randomWorkflow() {
+        return workflowPool.get(ThreadLocalRandom.current().nextInt(workflowPool.size()));
+    }
+    
+    private String name(SyntheticWorkflows.Shape shape) {
+        return "loadtest-" + shape.name().toLowerCase() + "-" + nameSequence.incrementAndGet();
+    }
+    
+    private HttpRequest.Builder json(URI uri) {
+        return HttpRequest.newBuilder(uri)
+            .timeout(options.requestTimeout)
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json");
+    }
+    
+    private HttpRequest.BodyPublisher body(Object value) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(value));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize request body", e);
+        }
+    }
+    
+    private static ThreadFactory daemonThreads() {
+        AtomicLong sequence = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-client-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private record SeededWorkflow(String id, SyntheticWorkflows.Shape shape) {
+    }
+    
+    // 按权重随机选择
+    private static final class WeightedChoice<T> {
+        
+        private final List<T> values = new ArrayList<>();
+        private final int[] cumulative;
+        
+        WeightedChoice(Map<T, Integer> weights) {
+            this.cumulative = new int[weights.size()];
+            int total = 0;
+            for (Map.Entry<T, Integer> entry : weights.entrySet()) {
+                total += entry.getValue();
+                cumulative[values.size()] = total;
+                values.add(entry.getKey());
+            }
+        }
+        
+        T next() {
+            int point = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (point < cumulative[i]) {
+                    return values.get(i);
+                }
+            }
+            return values.get(values.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.alibaba.cloud.ai.workflow.loadtest;
+
+import com.alibaba.cloud.ai.workflow.WorkflowVisualApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// 压测入口。未指定 --target 时在进程内以内存 H2 (MySQL 兼容模式) 代替 MySQL 启动应用, 监听随机端口,
+// 请求经过完整的 HTTP 栈; 指定 --target=http://host:port 时压测已运行的服务。
+public class LoadTestMain {
+    
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.target;
+        if (baseUrl == null) {
+            context = start(options.applicationArgs);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+        }
+        try {
+            System.out.printf("Load test against %s: %d req/s for %ds (warmup %ds), mix=%s, shapes=%s%n", baseUrl,
+                options.rps, options.duration.toSeconds(), options.warmup.toSeconds(), options.mix, options.shapes);
+            LatencyReport report = new LatencyReport();
+            LoadGenerator generator = new LoadGenerator(options, baseUrl, report);
+            generator.seed();
+            Duration measured = generator.run();
+            report.print(System.out, measured);
+            if (!options.report.isBlank()) {
+                File file = new File(options.report);
+                report.write(file, options, measured);
+                System.out.println("Report written to " + file.getAbsolutePath());
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+    
+    private static ConfigurableApplicationContext start(List<String> applicationArgs) {
+        String database = "loadtest-" + UUID.randomUUID();
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create",
+            "--spring.jpa.show-sql=false",
+            // 每个请求和节点的 INFO 日志会让日志输出成为瓶颈
+            "--logging.level.root=WARN",
+            "--logging.level.com.alibaba.cloud.ai=WARN"));
+        // 后面的参数覆盖前面的默认值
+        args.addAll(applicationArgs);
+        return new SpringApplicationBuilder(WorkflowVisualApplication.class)
+            .web(WebApplicationType.SERVLET)
+            .bannerMode(Banner.Mode.OFF)
+            .logStartupInfo(false)
+            .run(args.toArray(String[]::new));
+    }
+}
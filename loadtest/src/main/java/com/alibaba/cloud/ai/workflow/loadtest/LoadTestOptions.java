@@ -0,0 +1,103 @@
+package com.alibaba.cloud.ai.workflow.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// 命令行参数, 格式为 --name=value。--spring.* / --workflow.* / --logging.* / --server.* 参数原样传给内嵌的应用
+final class LoadTestOptions {
+    
+    private static final List<String> APPLICATION_PREFIXES = List.of("--spring.", "--workflow.", "--logging.", "--server.");
+    
+    // 目标吞吐量 (请求/秒), 按固定间隔发送, 不受响应速度影响 (开环)
+    int rps = 50;
+    Duration duration = Duration.ofSeconds(60);
+    // 预热期间的请求不计入报告
+    Duration warmup = Duration.ofSeconds(10);
+    Map<Operation, Integer> mix = parseWeights("execute:60,poll:30,create:5,update:5", Operation.class);
+    Map<SyntheticWorkflows.Shape, Integer> shapes = parseWeights("linear:1,fanout:1,delay:1",
+        SyntheticWorkflows.Shape.class);
+    // 每种形状预先创建的工作流数量
+    int workflows = 5;
+    int linearNodes = 10;
+    int fanoutWidth = 8;
+    int delayNodes = 4;
+    Duration delay = Duration.ofMillis(50);
+    // 同时未返回的请求上限, 超过时丢弃本次请求并计数, 避免压测端自身成为瓶颈
+    int maxInFlight = 1000;
+    Duration requestTimeout = Duration.ofSeconds(30);
+    // 为空时在进程内启动应用
+    String target;
+    String report = "loadtest-report.json";
+    final List<String> applicationArgs = new ArrayList<>();
+    
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (APPLICATION_PREFIXES.stream().anyMatch(arg::startsWith)) {
+                options.applicationArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "rps" -> options.rps = positive(name, Integer.parseInt(value));
+                case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                case "mix" -> options.mix = parseWeights(value, Operation.class);
+                case "shapes" -> options.shapes = parseWeights(value, SyntheticWorkflows.Shape.class);
+                case "workflows" -> options.workflows = positive(name, Integer.parseInt(value));
+                case "linear-nodes" -> options.linearNodes = positive(name, Integer.parseInt(value));
+                case "fanout-width" -> options.fanoutWidth = positive(name, Integer.parseInt(value));
+                case "delay-nodes" -> options.delayNodes = positive(name, Integer.parseInt(value));
+                case "delay" -> options.delay = DurationStyle.detectAndParse(value);
+                case "max-in-flight" -> options.maxInFlight = positive(name, Integer.parseInt(value));
+                case "request-timeout" -> options.requestTimeout = DurationStyle.detectAndParse(value);
+                case "target" -> options.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "report" -> options.report = value;
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        if (options.duration.isZero() || options.duration.isNegative()) {
+            throw new IllegalArgumentException("--duration must be positive");
+        }
+        return options;
+    }
+    
+    // "execute:60,poll:30" -> {EXECUTE=60, POLL=30}, 权重为 0 的项不参与
+    static <E extends Enum<E>> Map<E, Integer> parseWeights(String value, Class<E> type) {
+        Map<E, Integer> weights = new EnumMap<>(type);
+        for (String part : value.split(",")) {
+            String[] entry = part.trim().split(":");
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Expected name:weight but got: " + part);
+            }
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight must not be negative: " + part);
+            }
+            if (weight > 0) {
+                weights.put(Enum.valueOf(type, entry[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("At least one weight must be positive: " + value);
+        }
+        return weights;
+    }
+    
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,17 @@
+package com.alibaba.cloud.ai.workflow.loadtest;
+
+// 压测的请求类型, endpoint 作为报告中的分组名
+enum Operation {
+    
+    CREATE("POST /api/workflows"),
+    UPDATE("PUT /api/workflows/{id}"),
+    EXECUTE("POST /api/workflows/{id}/execute"),
+    POLL("GET /api/workflows/executions/{id}"),
+    LIST("GET /api/workflows");
+    
+    final String endpoint;
+    
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+}
@@ -0,0 +1,117 @@
+package com.alibaba.cloud.ai.workflow.loadtest;
+
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 压测使用的工作流形状:
+// linear: input -> process x N -> output
+// fanout: input -> N 个并行的 process 分支 -> output (汇合)
+// delay: input -> (delay -> process) x N -> output, 执行时间主要花在等待上
+final class SyntheticWorkflows {
+    
+    enum Shape {
+        LINEAR, FANOUT, DELAY
+    }
+    
+    private final LoadTestOptions options;
+    
+    SyntheticWorkflows(LoadTestOptions options) {
+        this.options = options;
+    }
+    
+    WorkflowDefinition create(Shape shape, String name) {
+        return switch (shape) {
+            case LINEAR -> linear(name, options.linearNodes);
+            case FANOUT -> fanout(name, options.fanoutWidth);
+            case DELAY -> delay(name, options.delayNodes, options.delay);
+        };
+    }
+    
+    private static WorkflowDefinition linear(String name, int processNodes) {
+        Builder builder = new Builder();
+        String previous = builder.node("input", Map.of());
+        for (int i = 1; i <= processNodes; i++) {
+            previous = builder.chain(previous, "process", Map.of());
+        }
+        builder.chain(previous, "output", Map.of());
+        return builder.build(name, "Linear workflow with " + processNodes + " process nodes");
+    }
+    
+    private static WorkflowDefinition fanout(String name, int width) {
+        Builder builder = new Builder();
+        String input = builder.node("input", Map.of());
+        String output = builder.node("output", Map.of());
+        for (int i = 1; i <= width; i++) {
+            String branch = builder.chain(input, "process", Map.of());
+            builder.edge(branch, output);
+        }
+        return builder.build(name, "Fan-out workflow with " + width + " parallel branches");
+    }
+    
+    private static WorkflowDefinition delay(String name, int delayNodes, Duration delay) {
+        Builder builder = new Builder();
+        String previous = builder.node("input", Map.of());
+        for (int i = 1; i <= delayNodes; i++) {
+            previous = builder.chain(previous, "delay", Map.of("durationMs", delay.toMillis()));
+            previous = builder.chain(previous, "process", Map.of());
+        }
+        builder.chain(previous, "output", Map.of());
+        return builder.build(name, "Delay-heavy workflow with " + delayNodes + " x " + delay.toMillis() + "ms waits");
+    }
+    
+    private static final class Builder {
+        
+        private final List<WorkflowDefinition.NodeDefinition> nodes = new ArrayList<>();
+        private final List<WorkflowDefinition.EdgeDefinition> edges = new ArrayList<>();
+        
+        String node(String nodeType, Map<String, Object> extra) {
+            int index = nodes.size() + 1;
+            String id = "node-" + index;
+            Map<String, Object> data = new HashMap<>(extra);
+            data.put("label", nodeType + " " + index);
+            data.put("nodeType", nodeType);
+            
+            WorkflowDefinition.NodeDefinition.Position position = new WorkflowDefinition.NodeDefinition.Position();
+            position.setX(index * 200);
+            position.setY(100);
+            
+            WorkflowDefinition.NodeDefinition node = new WorkflowDefinition.NodeDefinition();
+            node.setId(id);
+            node.setType("custom");
+            node.setLabel(nodeType + " " + index);
+            node.setPosition(position);
+            node.setData(data);
+            nodes.add(node);
+            return id;
+        }
+        
+        String chain(String previous, String nodeType, Map<String, Object> extra) {
+            String id = node(nodeType, extra);
+            edge(previous, id);
+            return id;
+        }
+        
+        void edge(String source, String target) {
+            WorkflowDefinition.EdgeDefinition edge = new WorkflowDefinition.EdgeDefinition();
+            edge.setId("edge-" + source + "-" + target);
+            edge.setSource(source);
+            edge.setTarget(target);
+            edges.add(edge);
+        }
+        
+        WorkflowDefinition build(String name, String description) {
+            WorkflowDefinition definition = new WorkflowDefinition();
+            definition.setName(name);
+            definition.setDescription(description);
+            definition.setNodes(nodes);
+            definition.setEdges(edges);
+            definition.setMetadata(new HashMap<>());
+            return definition;
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.alibaba.cloud.ai.workflow;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class WorkflowVisualApplication {
     public static void main(String[] args) {
         SpringApplication.run(WorkflowVisualApplication.class, args);
@@ -0,0 +1,18 @@
+package com.alibaba.cloud.ai.workflow.checkpoint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface CheckpointStore {
+    
+    // 覆盖该执行之前的检查点
+    void save(StoredCheckpoint checkpoint);
+    
+    Optional<StoredCheckpoint> load(String executionId);
+    
+    void delete(String executionId);
+    
+    // 在指定时间之前保存的检查点对应的执行 id, 用于启动时清理
+    List<String> findSavedBefore(LocalDateTime time);
+}
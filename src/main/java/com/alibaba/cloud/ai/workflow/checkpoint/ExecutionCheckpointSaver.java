@@ -0,0 +1,195 @@
+package com.alibaba.cloud.ai.workflow.checkpoint;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import com.alibaba.cloud.ai.workflow.config.CheckpointProperties;
+import com.alibaba.cloud.ai.workflow.repository.CheckpointRepository;
+import com.alibaba.cloud.ai.workflow.storage.StorageCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 图执行器在每个节点完成后调用 put, 这里按 workflow.checkpoint.interval 抽样写入 CheckpointStore。
+// 每个执行只保留最新的检查点, 执行结束后删除。
+@Component
+@Slf4j
+public class ExecutionCheckpointSaver implements BaseCheckpointSaver {
+    
+    private final CheckpointProperties properties;
+    private final CheckpointStore store;
+    private final StorageCodec codec;
+    // 本实例中正在执行的工作流, 只为这些执行保存检查点
+    private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+    // 等待恢复的检查点, 恢复开始时由图执行器通过 get 取走
+    private final Map<String, Checkpoint> resumable = new ConcurrentHashMap<>();
+    
+    public ExecutionCheckpointSaver(CheckpointProperties properties, CheckpointRepository checkpointRepository,
+                                    StorageCodec codec) {
+        this.properties = properties;
+        this.store = createStore(properties, checkpointRepository);
+        this.codec = codec;
+        log.info("Checkpointing: enabled={}, store={}, interval={}",
+            properties.isEnabled(), properties.getStore(), properties.getInterval());
+    }
+    
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+    
+    // 开始 (或恢复) 一次执行, 之后的节点完成时才会保存检查点
+    public void track(String executionId, String workflowId, String workflowVersion) {
+        if (properties.isEnabled()) {
+            tracked.put(executionId, new Tracked(workflowId, workflowVersion));
+        }
+    }
+    
+    public Optional<StoredCheckpoint> load(String executionId) {
+        return properties.isEnabled() ? store.load(executionId) : Optional.empty();
+    }
+    
+    // 登记恢复的起点, 返回检查点中的状态
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> prepareResume(StoredCheckpoint stored) {
+        Map<String, Object> state = codec.decode(stored.state(), Map.class);
+        resumable.put(stored.executionId(), Checkpoint.builder()
+            .nodeId(stored.nodeId())
+            .nextNodeId(stored.nextNodeId())
+            .state(state)
+            .build());
+        Tracked execution = new Tracked(stored.workflowId(), stored.workflowVersion());
+        execution.saved = true;
+        execution.last = resumable.get(stored.executionId());
+        execution.lastSaved = true;
+        tracked.put(stored.executionId(), execution);
+        return state;
+    }
+    
+    // 执行结束 (成功或失败) 后删除检查点
+    public void finish(String executionId) {
+        resumable.remove(executionId);
+        Tracked execution = tracked.remove(executionId);
+        if (execution != null && execution.saved) {
+            discard(executionId);
+        }
+    }
+    
+    // 执行暂停等待恢复: 保留已写入的检查点, 只移除本实例上的记录
+    public void release(String executionId) {
+        resumable.remove(executionId);
+        tracked.remove(executionId);
+    }
+    
+    // 暂停前确保存在从 nodeId 开始的检查点: 最近经过的检查点 (可能因 interval 没有写入) 的下一个节点是 nodeId 时写入并返回 true。
+    // nodeId 是第一个节点时不需要检查点, 恢复时从 inputs 开始同样从它开始; 并行分支和合并链路中的节点不会是下一个节点
+    public boolean saveBefore(String executionId, String nodeId) {
+        Tracked execution = tracked.get(executionId);
+        Checkpoint last = execution != null ? execution.last : null;
+        if (last == null || !nodeId.equals(last.getNextNodeId())) {
+            return false;
+        }
+        if (StateGraph.START.equals(last.getNodeId()) || execution.lastSaved) {
+            return true;
+        }
+        return save(executionId, execution, last);
+    }
+    
+    public void discard(String executionId) {
+        try {
+            store.delete(executionId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete checkpoint for execution {}: {}", executionId, e.getMessage());
+        }
+    }
+    
+    public List<String> findSavedBefore(LocalDateTime time) {
+        return store.findSavedBefore(time);
+    }
+    
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) {
+        String executionId = config.threadId().orElse(null);
+        Tracked execution = executionId == null ? null : tracked.get(executionId);
+        // 开始前的状态就是执行的 inputs; 最后一个节点完成后执行记录随即更新, 检查点会马上被删除
+        if (execution == null) {
+            return config;
+        }
+        execution.last = checkpoint;
+        execution.lastSaved = false;
+        if (StateGraph.START.equals(checkpoint.getNodeId()) || StateGraph.END.equals(checkpoint.getNextNodeId())) {
+            return config;
+        }
+        if (execution.completedNodes.incrementAndGet() % Math.max(1, properties.getInterval()) != 0) {
+            return config;
+        }
+        save(executionId, execution, checkpoint);
+        return config;
+    }
+    
+    private boolean save(String executionId, Tracked execution, Checkpoint checkpoint) {
+        try {
+            store.save(new StoredCheckpoint(executionId, execution.workflowId, execution.workflowVersion,
+                checkpoint.getNodeId(), checkpoint.getNextNodeId(), codec.encode(checkpoint.getState()),
+                LocalDateTime.now()));
+            execution.saved = true;
+            execution.lastSaved = true;
+            return true;
+        } catch (RuntimeException e) {
+            // 检查点只影响重启后的恢复, 写入失败不中断执行
+            log.warn("Failed to save checkpoint for execution {} after node {}: {}",
+                executionId, checkpoint.getNodeId(), e.getMessage());
+            return false;
+        }
+    }
+    
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        return config.threadId().map(resumable::remove);
+    }
+    
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        return config.threadId().map(resumable::get).map(List::of).orElse(List.of());
+    }
+    
+    @Override
+    public boolean clear(RunnableConfig config) {
+        config.threadId().ifPresent(this::finish);
+        return true;
+    }
+    
+    private static CheckpointStore createStore(CheckpointProperties properties,
+                                               CheckpointRepository checkpointRepository) {
+        return switch (properties.getStore()) {
+            case JDBC -> new JdbcCheckpointStore(checkpointRepository);
+            case MEMORY -> new MemoryCheckpointStore();
+            case FILE -> new FileCheckpointStore(Path.of(properties.getDirectory()));
+        };
+    }
+    
+    private static class Tracked {
+        
+        private final String workflowId;
+        private final String workflowVersion;
+        private final AtomicInteger completedNodes = new AtomicInteger();
+        // 是否写入过检查点, 没有写入过的执行结束时不需要删除
+        private volatile boolean saved;
+        // 最近一次经过的检查点及其是否已写入, 暂停时用于补写
+        private volatile Checkpoint last;
+        private volatile boolean lastSaved;
+        
+        private Tracked(String workflowId, String workflowVersion) {
+            this.workflowId = workflowId;
+            this.workflowVersion = workflowVersion;
+        }
+    }
+}
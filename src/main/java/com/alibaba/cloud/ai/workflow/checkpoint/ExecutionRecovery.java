@@ -0,0 +1,160 @@
+package com.alibaba.cloud.ai.workflow.checkpoint;
+
+import com.alibaba.cloud.ai.workflow.config.CheckpointProperties;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.model.ExecutionOwnership;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionRepository;
+import com.alibaba.cloud.ai.workflow.service.ExecutionInstance;
+import com.alibaba.cloud.ai.workflow.service.ExecutionQueue;
+import com.alibaba.cloud.ai.workflow.service.ExecutionRecordWriter;
+import com.alibaba.cloud.ai.workflow.service.ExecutionRejectedException;
+import com.alibaba.cloud.ai.workflow.service.ExecutionService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// 在后台定期写入本实例的心跳, 并恢复 owner 实例已停止的执行 (状态仍为 running 或 queued):
+// owner 心跳超过 owner-timeout, 或者是升级前没有 owner、本实例以相同 instance-id 重启前的执行。
+// 多个实例同时恢复同一个执行时, 只有先更新 owner 的实例会恢复它
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ExecutionRecovery {
+    
+    private static final List<String> UNFINISHED = List.of("running", "queued", ExecutionService.STATUS_WAITING);
+    
+    private final ExecutionRepository executionRepository;
+    private final ExecutionService executionService;
+    private final ExecutionQueue executionQueue;
+    private final ExecutionRecordWriter executionRecordWriter;
+    private final ExecutionInstance executionInstance;
+    private final ExecutionCheckpointSaver checkpointSaver;
+    private final CheckpointProperties properties;
+    private ScheduledExecutorService scheduler;
+    private boolean checkpointsDiscarded;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "execution-recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runQuietly, 0, properties.getHeartbeatInterval().toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    private void runQuietly() {
+        try {
+            if (executionInstance.heartbeat()) {
+                stopTakenOver();
+            }
+            if (properties.isRecoverOnStartup()) {
+                recover();
+            }
+        } catch (Exception e) {
+            log.error("Execution recovery failed", e);
+        }
+    }
+    
+    // 本实例的心跳中断过 owner-timeout 以上, 其他实例可能已恢复了本实例上仍在运行的执行
+    private void stopTakenOver() {
+        Set<String> running = executionService.runningExecutionIds();
+        if (running.isEmpty()) {
+            return;
+        }
+        for (String executionId : executionRepository.findIdsOwnedByOthers(running, executionInstance.getId())) {
+            executionService.abandonExecution(executionId, "Execution was recovered by another instance");
+        }
+    }
+    
+    public int recover() {
+        List<ExecutionOwnership> unfinished = executionRepository.findOwnershipByStatusIn(UNFINISHED);
+        Set<String> unfinishedIds = unfinished.stream().map(ExecutionOwnership::getId).collect(Collectors.toSet());
+        
+        // 执行已经结束或执行记录没来得及落库, 检查点不再需要
+        if (!checkpointsDiscarded) {
+            for (String executionId : checkpointSaver.findSavedBefore(executionInstance.getStartedAt())) {
+                if (!unfinishedIds.contains(executionId)) {
+                    checkpointSaver.discard(executionId);
+                }
+            }
+            checkpointsDiscarded = true;
+        }
+        
+        // 执行队列中的执行由 worker 的租约负责, 租约过期后会被重新领取
+        Set<String> queued = executionQueue.findQueued(unfinishedIds);
+        Set<String> owners = unfinished.stream()
+            .map(ExecutionOwnership::getOwner)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Set<String> alive = executionInstance.alive(owners);
+        List<ExecutionOwnership> orphaned = unfinished.stream()
+            .filter(execution -> !queued.contains(execution.getId()) && isOrphaned(execution, alive))
+            .toList();
+        
+        int recovered = 0;
+        for (ExecutionOwnership candidate : orphaned) {
+            if (executionRepository.claimOwner(candidate.getId(), executionInstance.getId(), candidate.getOwner(),
+                    UNFINISHED) == 0) {
+                continue;
+            }
+            // 只为接管的执行加载完整记录
+            ExecutionEntity execution = executionRepository.findById(candidate.getId()).orElse(null);
+            if (execution == null) {
+                continue;
+            }
+            try {
+                executionService.resumeExecution(execution);
+                recovered++;
+            } catch (ExecutionRejectedException e) {
+                // 执行名额已满: owner 已是本实例, 下一轮作为本实例重启前的执行再恢复, 不把可恢复的执行标记为失败
+                log.debug("Recovery postponed, executions are at capacity: {}", e.getMessage());
+                break;
+            }
+        }
+        executionInstance.purgeStale();
+        if (recovered > 0) {
+            log.info("Recovered {} interrupted executions", recovered);
+        }
+        return recovered;
+    }
+    
+    private boolean isOrphaned(ExecutionOwnership execution, Set<String> alive) {
+        String owner = execution.getOwner();
+        if (owner != null && !owner.equals(executionInstance.getId())) {
+            // 刚启动的实例在 ApplicationReadyEvent 时才登记, 开始不到 owner-timeout 的执行不按未登记处理
+            return !alive.contains(owner)
+                && execution.getStartedAt().isBefore(LocalDateTime.now().minus(properties.getOwnerTimeout()));
+        }
+        // 没有 owner, 或 owner 是本实例: 只恢复本次启动之前开始、没有在本实例上运行的执行,
+        // 最终状态还没落库的执行已经结束
+        return execution.getStartedAt().isBefore(executionInstance.getStartedAt())
+            && !executionService.isRunning(execution.getId())
+            && executionRecordWriter.find(execution.getId())
+                .map(latest -> UNFINISHED.contains(latest.getStatus()))
+                .orElse(true);
+    }
+}
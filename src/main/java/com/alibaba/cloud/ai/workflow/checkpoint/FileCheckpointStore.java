@@ -0,0 +1,102 @@
+package com.alibaba.cloud.ai.workflow.checkpoint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// 每个执行一个 <executionId>.ckpt 文件, 先写临时文件再原子替换, 进程中断时不会留下半个检查点
+public class FileCheckpointStore implements CheckpointStore {
+    
+    private static final String SUFFIX = ".ckpt";
+    
+    private final Path directory;
+    
+    public FileCheckpointStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create checkpoint directory " + directory, e);
+        }
+    }
+    
+    @Override
+    public void save(StoredCheckpoint checkpoint) {
+        Path target = file(checkpoint.executionId());
+        try {
+            Path temp = Files.createTempFile(directory, checkpoint.executionId(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeUTF(checkpoint.workflowId());
+                out.writeUTF(checkpoint.workflowVersion());
+                out.writeUTF(checkpoint.nodeId());
+                out.writeUTF(checkpoint.nextNodeId());
+                out.writeUTF(checkpoint.savedAt().toString());
+                out.writeInt(checkpoint.state().length);
+                out.write(checkpoint.state());
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write checkpoint " + target, e);
+        }
+    }
+    
+    @Override
+    public Optional<StoredCheckpoint> load(String executionId) {
+        Path source = file(executionId);
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(source))) {
+            String workflowId = in.readUTF();
+            String workflowVersion = in.readUTF();
+            String nodeId = in.readUTF();
+            String nextNodeId = in.readUTF();
+            LocalDateTime savedAt = LocalDateTime.parse(in.readUTF());
+            byte[] state = in.readNBytes(in.readInt());
+            return Optional.of(new StoredCheckpoint(executionId, workflowId, workflowVersion, nodeId, nextNodeId,
+                state, savedAt));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read checkpoint " + source, e);
+        }
+    }
+    
+    @Override
+    public void delete(String executionId) {
+        try {
+            Files.deleteIfExists(file(executionId));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete checkpoint for execution " + executionId, e);
+        }
+    }
+    
+    @Override
+    public List<String> findSavedBefore(LocalDateTime time) {
+        List<String> executionIds = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    String executionId = name.substring(0, name.length() - SUFFIX.length());
+                    load(executionId)
+                        .filter(checkpoint -> checkpoint.savedAt().isBefore(time))
+                        .ifPresent(checkpoint -> executionIds.add(executionId));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list checkpoints in " + directory, e);
+        }
+        return executionIds;
+    }
+    
+    private Path file(String executionId) {
+        return directory.resolve(executionId + SUFFIX);
+    }
+}
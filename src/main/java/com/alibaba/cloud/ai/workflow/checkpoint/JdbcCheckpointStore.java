@@ -0,0 +1,48 @@
+package com.alibaba.cloud.ai.workflow.checkpoint;
+
+import com.alibaba.cloud.ai.workflow.entity.CheckpointEntity;
+import com.alibaba.cloud.ai.workflow.repository.CheckpointRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class JdbcCheckpointStore implements CheckpointStore {
+    
+    private final CheckpointRepository checkpointRepository;
+    
+    public JdbcCheckpointStore(CheckpointRepository checkpointRepository) {
+        this.checkpointRepository = checkpointRepository;
+    }
+    
+    @Override
+    public void save(StoredCheckpoint checkpoint) {
+        CheckpointEntity entity = new CheckpointEntity();
+        entity.setExecutionId(checkpoint.executionId());
+        entity.setWorkflowId(checkpoint.workflowId());
+        entity.setWorkflowVersion(checkpoint.workflowVersion());
+        entity.setNodeId(checkpoint.nodeId());
+        entity.setNextNodeId(checkpoint.nextNodeId());
+        entity.setState(checkpoint.state());
+        entity.setSavedAt(checkpoint.savedAt());
+        checkpointRepository.save(entity);
+    }
+    
+    @Override
+    public Optional<StoredCheckpoint> load(String executionId) {
+        return checkpointRepository.findById(executionId)
+            .map(entity -> new StoredCheckpoint(entity.getExecutionId(), entity.getWorkflowId(),
+                entity.getWorkflowVersion(), entity.getNodeId(), entity.getNextNodeId(), entity.getState(),
+                entity.getSavedAt()));
+    }
+    
+    @Override
+    public void delete(String executionId) {
+        checkpointRepository.deleteByExecutionId(executionId);
+    }
+    
+    @Override
+    public List<String> findSavedBefore(LocalDateTime time) {
+        return checkpointRepository.findExecutionIdsSavedBefore(time);
+    }
+}
@@ -0,0 +1,35 @@
+package com.alibaba.cloud.ai.workflow.checkpoint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MemoryCheckpointStore implements CheckpointStore {
+    
+    private final Map<String, StoredCheckpoint> checkpoints = new ConcurrentHashMap<>();
+    
+    @Override
+    public void save(StoredCheckpoint checkpoint) {
+        checkpoints.put(checkpoint.executionId(), checkpoint);
+    }
+    
+    @Override
+    public Optional<StoredCheckpoint> load(String executionId) {
+        return Optional.ofNullable(checkpoints.get(executionId));
+    }
+    
+    @Override
+    public void delete(String executionId) {
+        checkpoints.remove(executionId);
+    }
+    
+    @Override
+    public List<String> findSavedBefore(LocalDateTime time) {
+        return checkpoints.values().stream()
+            .filter(checkpoint -> checkpoint.savedAt().isBefore(time))
+            .map(StoredCheckpoint::executionId)
+            .toList();
+    }
+}
@@ -0,0 +1,9 @@
+package com.alibaba.cloud.ai.workflow.checkpoint;
+
+import java.time.LocalDateTime;
+
+// 每个执行只保留最新的一个检查点: 已完成节点 nodeId 之后的状态, 恢复时从 nextNodeId 继续执行。
+// state 是 StorageCodec 编码后的 OverAllState.data()
+public record StoredCheckpoint(String executionId, String workflowId, String workflowVersion,
+                               String nodeId, String nextNodeId, byte[] state, LocalDateTime savedAt) {
+}
@@ -0,0 +1,27 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.batch")
+public class BatchProperties {
+    
+    // 单个批次同时执行的输入数, 请求可以通过 parallelism 参数调整, 不超过 max-parallelism
+    private int parallelism = 8;
+    
+    private int maxParallelism = 64;
+    
+    // 单个批次的最大输入数
+    private int maxSize = 10000;
+    
+    // 结果流的超时时间, 超时后批次继续执行, 结果可以通过批次和执行记录查询
+    private Duration streamTimeout = Duration.ofHours(1);
+    
+    // 执行名额不足时, 一项最多尝试启动的次数, 间隔从 100ms 开始翻倍, 最长 max-retry-delay; 用完后该项记为 failed
+    private int maxStartAttempts = 20;
+    
+    private Duration maxRetryDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,41 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.checkpoint")
+public class CheckpointProperties {
+    
+    // 关闭后不保存检查点, 重启后中断的执行从头重新执行
+    private boolean enabled = true;
+    
+    private Store store = Store.JDBC;
+    
+    // 每完成 N 个节点保存一次检查点, 值越大写入越少, 恢复时重复执行的节点越多。
+    // 检查点在节点线程上同步写入, 默认每 10 个节点一次, 限制每个执行增加的写入次数
+    private int interval = 10;
+    
+    // store=file 时检查点文件所在的目录
+    private String directory = System.getProperty("java.io.tmpdir") + "/workflow-checkpoints";
+    
+    // 启动时以及之后每个 heartbeat-interval 恢复 owner 实例已停止的执行 (状态仍为 running 或 queued)
+    private boolean recoverOnStartup = true;
+    
+    // 实例写入心跳并检查需要恢复的执行的间隔
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+    
+    // 心跳超过该时间没有更新的实例视为已停止, 应明显大于 heartbeat-interval
+    private Duration ownerTimeout = Duration.ofSeconds(60);
+    
+    public enum Store {
+        // execution_checkpoints 表
+        JDBC,
+        // 仅用于开发和测试, 重启后丢失
+        MEMORY,
+        // 每个执行一个文件, 用于单机开发环境
+        FILE
+    }
+}
@@ -0,0 +1,17 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.definition-cache")
+public class DefinitionCacheProperties {
+    
+    // 最多缓存的工作流定义数量
+    private long maximumSize = 10000;
+    
+    // 写入后多久过期。读取定义前都会先查询 updatedAt, 其他实例的更新立即可见, 该值只决定不再使用的定义多久释放
+    private Duration expireAfterWrite = Duration.ofSeconds(30);
+}
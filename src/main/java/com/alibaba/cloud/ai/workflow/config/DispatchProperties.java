@@ -0,0 +1,43 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.dispatch")
+public class DispatchProperties {
+    
+    // local: 在接收请求的实例上执行; queue: 只写入执行队列, 由各实例的 worker 领取执行
+    private Mode mode = Mode.LOCAL;
+    
+    // 本实例的 worker 数量, 0 表示只接收请求不执行; 每个 worker 独立领取和续租, 可以在一个进程内模拟多个实例
+    private int workers = 1;
+    
+    // 单个 worker 同时执行的上限, 所有 worker 合计不应超过 execution 的 pool-size + queue-capacity
+    private int concurrency = 16;
+    
+    // 每次领取的最大条数
+    private int batchSize = 10;
+    
+    // 队列为空时的轮询间隔, 本实例入队时会立即唤醒 worker
+    private Duration pollInterval = Duration.ofMillis(500);
+    
+    // 租约时长, worker 停止续租 (实例宕机) 超过该时间后, 执行被其他 worker 重新领取并从检查点继续
+    private Duration leaseDuration = Duration.ofSeconds(30);
+    
+    // 续租间隔, 应明显小于 leaseDuration
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+    
+    // 同一个执行被领取的次数上限, 超过后标记为失败, 避免导致实例崩溃的执行被反复领取
+    private int maxAttempts = 3;
+    
+    // 实例标识, 出现在 worker id 中; 为空时使用主机名和随机后缀
+    private String instanceId;
+    
+    public enum Mode {
+        LOCAL,
+        QUEUE
+    }
+}
@@ -0,0 +1,71 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.execution")
+public class ExecutionProperties {
+    
+    // platform: 固定大小线程池; virtual: 每次执行一个虚拟线程 (需要 JDK 21+)
+    private Mode mode = Mode.PLATFORM;
+    
+    // 平台线程池大小
+    private int poolSize = 32;
+    
+    // platform 模式下等待线程的队列容量, 同时被接受的执行总数上限为 poolSize + queueCapacity
+    private int queueCapacity = 500;
+    
+    // virtual 模式下同时被接受的执行总数上限, 每个执行一个虚拟线程, 不经过队列;
+    // 限制的是执行占用的内存和下游 (数据库、外部接口) 的压力, 与 poolSize/queueCapacity 无关
+    private int maxInFlight = 10000;
+    
+    // 并行分支使用的线程池大小, 与执行线程池分开以避免执行线程等待分支时互相阻塞
+    private int branchPoolSize = 64;
+    
+    // 延迟/定时节点共享的定时器线程数, 定时器只负责到期唤醒, 不执行节点逻辑
+    private int timerThreads = 2;
+    
+    // 延迟/定时节点的等待不短于该时间时暂停执行: 记录 waiting 状态后释放执行名额和线程, 到期后从检查点恢复。
+    // 0 表示始终在执行中等待; 需要开启检查点, 批量执行和并行分支中的节点不暂停
+    private Duration parkThreshold = Duration.ofSeconds(30);
+    
+    // 单个工作流的并发执行上限, 0 表示不限制
+    private int maxConcurrentPerWorkflow = 0;
+    
+    // 队列已满时的处理策略
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+    
+    // WAIT 策略下的最大等待时间
+    private Duration admissionTimeout = Duration.ofSeconds(5);
+    
+    // 工作流 metadata 中没有配置 timeout 时的执行超时, 0 表示不限制
+    private Duration defaultTimeout = Duration.ZERO;
+    
+    // 记录每个节点的开始时间和耗时, 执行结束时写入 execution_traces (GET /executions/{id}/trace)
+    private boolean trace = true;
+    
+    // 每个执行保留的最近事件数: 晚于开始订阅的客户端只能收到这些历史事件,
+    // 积压超过该数量的订阅者 (网络过慢) 会被断开, 重连后从保留的事件开始
+    private int eventHistorySize = 1000;
+    
+    // 发送执行事件 (SSE) 的线程数, 节点线程只把事件放入队列, 不等待客户端
+    private int eventSenderThreads = 4;
+    
+    // 订阅不在本实例上运行的执行 (排队中、在其他实例上运行) 时读取执行记录的间隔
+    private Duration eventPollInterval = Duration.ofSeconds(1);
+    
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+    
+    public enum RejectionPolicy {
+        // 立即拒绝 (HTTP 429)
+        ABORT,
+        // 在 admissionTimeout 内等待空位, 超时后拒绝
+        WAIT
+    }
+}
@@ -0,0 +1,26 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.graph-cache")
+public class GraphCacheProperties {
+    
+    // 最多缓存的已编译图数量, 超出后按 W-TinyLFU 淘汰
+    private long maximumSize = 1000;
+    
+    // 多久未被访问后过期
+    private Duration expireAfterAccess = Duration.ofHours(1);
+    
+    // 启动时预编译执行次数最多的 N 个工作流, 0 表示不预热
+    private int warmUpCount = 0;
+    
+    // 停止时把最常用的已编译图的 (工作流 id, 版本) 写入该文件, 下次启动时先预编译这些工作流; 为空时不保存
+    private String snapshotFile;
+    
+    // 快照中最多记录的条数
+    private int snapshotSize = 100;
+}
@@ -0,0 +1,20 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.node-cache")
+public class NodeCacheProperties {
+    
+    // 关闭后 data.cacheable 被忽略, 所有节点每次都执行
+    private boolean enabled = true;
+    
+    // 最多缓存的节点结果数量
+    private long maximumSize = 10000;
+    
+    // 结果写入多久后过期
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
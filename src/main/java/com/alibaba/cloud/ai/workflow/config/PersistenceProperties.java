@@ -0,0 +1,20 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.persistence")
+public class PersistenceProperties {
+    
+    // 每个事务写入的最大记录数, 缓冲区达到该数量时立即触发刷写
+    private int batchSize = 100;
+    
+    // 定时刷写间隔
+    private Duration flushInterval = Duration.ofMillis(200);
+    
+    // 单条记录刷写失败后的最大重试次数
+    private int maxAttempts = 3;
+}
@@ -0,0 +1,27 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.retention")
+public class RetentionProperties {
+    
+    // 关闭后不归档, 已归档的执行仍可查询
+    private boolean enabled = true;
+    
+    // 已结束的执行在 executions 表中保留的时间 (按开始时间), 之后移入 execution_archive;
+    // 工作流 metadata.retention 可以单独配置, 0 表示不归档
+    private Duration ttl = Duration.ofDays(30);
+    
+    // 归档的执行保留的时间 (按开始时间), 之后删除; 0 表示永久保留
+    private Duration archiveTtl = Duration.ZERO;
+    
+    // 两次归档之间的间隔, 启动后立即执行一次
+    private Duration interval = Duration.ofHours(1);
+    
+    // 每个事务移动的条数, 只锁定这些行
+    private int batchSize = 500;
+}
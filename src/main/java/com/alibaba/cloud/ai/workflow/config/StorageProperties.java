@@ -0,0 +1,30 @@
+package com.alibaba.cloud.ai.workflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "workflow.storage")
+public class StorageProperties {
+    
+    // 新写入数据的编码格式; 数据头中记录了格式, 修改后已有数据仍可读取
+    private Format format = Format.SMILE;
+    
+    // 编码后超过该大小时再做 Deflate 压缩
+    private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+    
+    // 执行的 inputs/outputs JSON 超过该大小时, 编码压缩后存入 blob 列
+    private DataSize maxInlineSize = DataSize.ofKilobytes(16);
+    
+    // 启动时在后台把旧格式 (graphData 中的完整 JSON) 的工作流转换为新格式
+    private boolean migrateOnStartup = true;
+    
+    private int migrationBatchSize = 100;
+    
+    public enum Format {
+        JSON,
+        SMILE,
+        CBOR
+    }
+}
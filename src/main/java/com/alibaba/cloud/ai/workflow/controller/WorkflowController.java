@@ -1,15 +1,31 @@
 package com.alibaba.cloud.ai.workflow.controller;
 
 import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
-import com.alibaba.cloud.ai.workflow.entity.WorkflowEntity;
+import com.alibaba.cloud.ai.workflow.model.BatchSummary;
+import com.alibaba.cloud.ai.workflow.model.ExecutionSummary;
+import com.alibaba.cloud.ai.workflow.model.ExecutionTrace;
+import com.alibaba.cloud.ai.workflow.model.KeysetPage;
 import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.model.WorkflowSummary;
+import com.alibaba.cloud.ai.workflow.service.BatchExecutionService;
+import com.alibaba.cloud.ai.workflow.service.ExecutionDispatcher;
+import com.alibaba.cloud.ai.workflow.service.ExecutionNotRunningException;
+import com.alibaba.cloud.ai.workflow.service.ExecutionRejectedException;
 import com.alibaba.cloud.ai.workflow.service.ExecutionService;
+import com.alibaba.cloud.ai.workflow.service.InvalidRequestException;
 import com.alibaba.cloud.ai.workflow.service.WorkflowService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -22,6 +38,8 @@ public class WorkflowController {
     
     private final WorkflowService workflowService;
     private final ExecutionService executionService;
+    private final BatchExecutionService batchExecutionService;
+    private final ExecutionDispatcher executionDispatcher;
     
     @PostMapping
     public ResponseEntity<WorkflowDefinition> createWorkflow(@RequestBody WorkflowDefinition definition) {
@@ -49,10 +67,11 @@ public class WorkflowController {
     }
     
     @GetMapping
-    public ResponseEntity<List<WorkflowEntity>> listWorkflows() {
-        log.info("Listing all workflows");
-        List<WorkflowEntity> workflows = workflowService.listWorkflows();
-        return ResponseEntity.ok(workflows);
+    public ResponseEntity<KeysetPage<WorkflowSummary>> listWorkflows(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        log.info("Listing workflows: limit={}, cursor={}", limit, cursor);
+        return ResponseEntity.ok(workflowService.listWorkflows(limit, cursor));
     }
     
     @DeleteMapping("/{id}")
@@ -72,10 +91,97 @@ public class WorkflowController {
         return ResponseEntity.ok(execution);
     }
     
+    // 请求体为输入对象的 JSON 数组或 NDJSON, 每完成一项返回一行 NDJSON 结果 (完成顺序)
+    @PostMapping(value = "/{id}/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<ResponseBodyEmitter> executeBatch(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer parallelism,
+            HttpServletRequest request) throws IOException {
+        boolean ndjson = BatchExecutionService.NDJSON.includes(MediaType.parseMediaType(request.getContentType()));
+        List<Map<String, Object>> inputs = batchExecutionService.readInputs(request.getInputStream(), ndjson);
+        log.info("Executing workflow {} in batch: {} inputs", id, inputs.size());
+        BatchExecutionService.StartedBatch started = batchExecutionService.executeBatch(id, inputs, parallelism);
+        return ResponseEntity.ok()
+            .header("X-Batch-Id", started.batch().getId())
+            .contentType(BatchExecutionService.NDJSON)
+            .body(started.emitter());
+    }
+    
+    @GetMapping("/batches/{batchId}")
+    public ResponseEntity<BatchSummary> getBatch(@PathVariable String batchId) {
+        log.info("Getting batch: {}", batchId);
+        return ResponseEntity.ok(batchExecutionService.getBatch(batchId));
+    }
+    
+    @GetMapping("/{id}/executions")
+    public ResponseEntity<KeysetPage<ExecutionSummary>> listExecutions(
+            @PathVariable String id,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        log.info("Listing executions of workflow: {}", id);
+        return ResponseEntity.ok(executionService.listExecutions(id, status, limit, cursor));
+    }
+    
     @GetMapping("/executions/{executionId}")
     public ResponseEntity<ExecutionEntity> getExecution(@PathVariable String executionId) {
         log.info("Getting execution: {}", executionId);
         ExecutionEntity execution = executionService.getExecution(executionId);
         return ResponseEntity.ok(execution);
     }
+    
+    // 各节点的开始时间和耗时, 以及按节点类型的汇总
+    @GetMapping("/executions/{executionId}/trace")
+    public ResponseEntity<ExecutionTrace> getExecutionTrace(@PathVariable String executionId) {
+        log.info("Getting execution trace: {}", executionId);
+        return executionService.getTrace(executionId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/executions/{executionId}/cancel")
+    public ResponseEntity<ExecutionEntity> cancelExecution(@PathVariable String executionId) {
+        log.info("Cancelling execution: {}", executionId);
+        return ResponseEntity.ok(executionService.cancelExecution(executionId));
+    }
+    
+    @GetMapping(value = "/executions/{executionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamExecution(@PathVariable String executionId) {
+        log.info("Streaming execution events: {}", executionId);
+        return executionService.subscribeExecution(executionId);
+    }
+    
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getGraphCacheStats() {
+        return ResponseEntity.ok(executionService.getGraphCacheStats());
+    }
+    
+    @GetMapping("/cache/node-results/stats")
+    public ResponseEntity<Map<String, Object>> getNodeCacheStats() {
+        return ResponseEntity.ok(executionService.getNodeCacheStats());
+    }
+    
+    // 执行队列长度和本实例各 worker 正在执行的数量
+    @GetMapping("/dispatch/stats")
+    public ResponseEntity<Map<String, Object>> getDispatchStats() {
+        return ResponseEntity.ok(executionDispatcher.stats());
+    }
+    
+    // 只处理请求内容错误; 其他 IllegalArgumentException (如存储的数据损坏) 仍是 500
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(InvalidRequestException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
+    
+    @ExceptionHandler(ExecutionNotRunningException.class)
+    public ResponseEntity<Map<String, String>> handleNotRunning(ExecutionNotRunningException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+    }
+    
+    @ExceptionHandler(ExecutionRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleExecutionRejected(ExecutionRejectedException e) {
+        log.warn("Execution rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .body(Map.of("message", e.getMessage()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.alibaba.cloud.ai.workflow.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 超过保留时间后从 executions 表移入的执行。查询用到的字段保留为列,
+// inputs/outputs/errorMessage 和节点耗时记录编码压缩后存入 data
+@Entity
+@Table(name = "execution_archive", indexes = {
+    @Index(name = "idx_archive_workflow_started", columnList = "workflowId, startedAt, id"),
+    @Index(name = "idx_archive_batch", columnList = "batchId, status"),
+    @Index(name = "idx_archive_started", columnList = "startedAt")
+})
+@Data
+public class ArchivedExecutionEntity {
+    
+    @Id
+    private String id;
+    
+    @Column(nullable = false)
+    private String workflowId;
+    
+    private String batchId;
+    
+    @Column(nullable = false)
+    private String status;
+    
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime completedAt;
+    
+    private Long duration;
+    
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+    
+    @Lob
+    @Column(columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] data;
+}
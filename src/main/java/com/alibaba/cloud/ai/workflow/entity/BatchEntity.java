@@ -0,0 +1,37 @@
+package com.alibaba.cloud.ai.workflow.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 批量执行的汇总记录, 各项的状态在 executions 表中 (batchId)
+@Entity
+@Table(name = "execution_batches", indexes = {
+    @Index(name = "idx_batches_workflow_created", columnList = "workflowId, createdAt")
+})
+@Data
+public class BatchEntity {
+    
+    @Id
+    private String id;
+    
+    @Column(nullable = false)
+    private String workflowId;
+    
+    @Column(nullable = false)
+    private String status;
+    
+    @Column(nullable = false)
+    private Integer total;
+    
+    @Column(nullable = false)
+    private Integer parallelism;
+    
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime completedAt;
+    
+    private Long duration;
+}
@@ -0,0 +1,36 @@
+package com.alibaba.cloud.ai.workflow.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 执行的最新检查点, 执行结束后删除
+@Entity
+@Table(name = "execution_checkpoints")
+@Data
+public class CheckpointEntity {
+    
+    @Id
+    private String executionId;
+    
+    @Column(nullable = false)
+    private String workflowId;
+    
+    // 保存检查点时的工作流版本, 工作流被修改后不再从该检查点恢复
+    @Column(nullable = false)
+    private String workflowVersion;
+    
+    @Column(nullable = false)
+    private String nodeId;
+    
+    @Column(nullable = false)
+    private String nextNodeId;
+    
+    @Lob
+    @Column(columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] state;
+    
+    @Column(nullable = false)
+    private LocalDateTime savedAt;
+}
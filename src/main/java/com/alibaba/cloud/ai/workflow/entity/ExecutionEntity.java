@@ -1,40 +1,72 @@
 package com.alibaba.cloud.ai.workflow.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "executions")
+@Table(name = "executions", indexes = {
+    // 执行历史: where workflow_id = ? order by started_at desc, id desc
+    @Index(name = "idx_executions_workflow_started", columnList = "workflowId, startedAt, id"),
+    @Index(name = "idx_executions_status_started", columnList = "status, startedAt"),
+    @Index(name = "idx_executions_batch", columnList = "batchId, status")
+})
 @Data
 public class ExecutionEntity {
     
+    // 由 ExecutionRecordWriter 分配, 以便在异步落库前返回给调用方
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
     
     @Column(nullable = false)
     private String workflowId;
     
+    // 批量执行时所属的批次
+    private String batchId;
+    
     @Column(columnDefinition = "TEXT")
     private String inputs;
     
     @Column(columnDefinition = "TEXT")
     private String outputs;
     
+    // 超过 workflow.storage.max-inline-size 的 inputs/outputs 编码后存在这里, 对应的文本列为 null
+    @JsonIgnore
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] inputsData;
+    
+    @JsonIgnore
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] outputsData;
+    
     @Column(nullable = false)
     private String status;
     
     @Column(columnDefinition = "TEXT")
     private String errorMessage;
     
-    @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime startedAt;
     
     private LocalDateTime completedAt;
     
     private Long duration;
+    
+    // status=waiting 时恢复执行的时间
+    private LocalDateTime resumeAt;
+    
+    // 启动或恢复该执行的实例 (ExecutionInstance), 其心跳超时后执行由其他实例恢复
+    @JsonIgnore
+    private String owner;
+    
+    // 乐观锁: ExecutionRecordWriter 在同一事务内读取后更新, 期间被其他地方 (ExecutionQueue.cancelPending) 修改时更新失败。
+    // 已有的表通过 default 0 补齐
+    @JsonIgnore
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
 }
\ No newline at end of file
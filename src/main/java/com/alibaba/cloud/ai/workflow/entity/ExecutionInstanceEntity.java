@@ -0,0 +1,22 @@
+package com.alibaba.cloud.ai.workflow.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 运行中的实例及其心跳, 执行记录的 owner 指向这里; 心跳超时的行由 ExecutionRecovery 删除
+@Entity
+@Table(name = "execution_instances")
+@Data
+public class ExecutionInstanceEntity {
+    
+    @Id
+    private String id;
+    
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime heartbeatAt;
+}
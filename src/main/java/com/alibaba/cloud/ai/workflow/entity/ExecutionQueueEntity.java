@@ -0,0 +1,34 @@
+package com.alibaba.cloud.ai.workflow.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 等待执行或正在执行的执行 (workflow.dispatch.mode=queue), 执行结束后删除
+@Entity
+@Table(name = "execution_queue", indexes = {
+    @Index(name = "idx_execution_queue_lease", columnList = "leaseExpiresAt, enqueuedAt")
+})
+@Data
+public class ExecutionQueueEntity {
+    
+    @Id
+    private String executionId;
+    
+    @Column(nullable = false)
+    private String workflowId;
+    
+    @Column(nullable = false)
+    private LocalDateTime enqueuedAt;
+    
+    // 持有租约的 worker, 未被领取时为 null
+    private String owner;
+    
+    // 为 null 或已过期时可以被领取
+    private LocalDateTime leaseExpiresAt;
+    
+    // 已被领取的次数
+    @Column(nullable = false)
+    private int attempts;
+}
@@ -0,0 +1,34 @@
+package com.alibaba.cloud.ai.workflow.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 执行结束时写入的节点耗时记录, 与执行记录分开存放, 查询执行状态时不读取
+@Entity
+@Table(name = "execution_traces")
+@Data
+public class ExecutionTraceEntity {
+    
+    @Id
+    private String executionId;
+    
+    @Column(nullable = false)
+    private String workflowId;
+    
+    // 从开始 (或恢复) 到结束的时间
+    @Column(nullable = false)
+    private long durationMicros;
+    
+    @Column(nullable = false)
+    private int nodeCount;
+    
+    // ExecutionTrace.NodeSpan 数组, 由 StorageCodec 编码
+    @Lob
+    @Column(columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] spans;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -8,7 +8,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "workflows")
+@Table(name = "workflows", indexes = {
+    // 工作流列表: order by created_at desc, id desc
+    @Index(name = "idx_workflows_created", columnList = "createdAt, id"),
+    @Index(name = "idx_workflows_status", columnList = "status")
+})
 @Data
 public class WorkflowEntity {
     
@@ -22,9 +26,20 @@ public class WorkflowEntity {
     @Column(length = 1000)
     private String description;
     
+    // 旧格式: 包含布局的完整 JSON。新数据写入空字符串 (已有表上该列为 NOT NULL)
     @Column(columnDefinition = "TEXT", nullable = false)
     private String graphData;
     
+    // 执行所需的图 (节点、连线、配置), 由 StorageCodec 编码
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] graph;
+    
+    // 仅编辑器使用的布局, 见 WorkflowLayout
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] layout;
+    
     @Column(nullable = false)
     private String status = "draft";
     
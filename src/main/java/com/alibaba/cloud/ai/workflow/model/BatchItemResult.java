@@ -0,0 +1,13 @@
+package com.alibaba.cloud.ai.workflow.model;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+
+// 批量执行结果流 (NDJSON) 中的一行, index 是输入在请求中的位置
+public record BatchItemResult(int index, String executionId, String status, String outputs, String errorMessage,
+                              Long duration) {
+    
+    public static BatchItemResult of(int index, ExecutionEntity execution) {
+        return new BatchItemResult(index, execution.getId(), execution.getStatus(), execution.getOutputs(),
+            execution.getErrorMessage(), execution.getDuration());
+    }
+}
@@ -0,0 +1,9 @@
+package com.alibaba.cloud.ai.workflow.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// 批次状态: counts 按执行状态 (queued/running/completed/failed) 统计, 只包含已落库的执行记录
+public record BatchSummary(String id, String workflowId, String status, int total, Map<String, Long> counts,
+                           LocalDateTime createdAt, LocalDateTime completedAt, Long duration) {
+}
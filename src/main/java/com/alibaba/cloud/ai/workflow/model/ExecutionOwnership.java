@@ -0,0 +1,11 @@
+package com.alibaba.cloud.ai.workflow.model;
+
+import java.time.LocalDateTime;
+
+// 恢复检查使用的投影, 不加载 inputs/outputs 等大字段
+public interface ExecutionOwnership {
+    String getId();
+    String getStatus();
+    String getOwner();
+    LocalDateTime getStartedAt();
+}
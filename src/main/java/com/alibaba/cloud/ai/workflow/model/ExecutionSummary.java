@@ -0,0 +1,13 @@
+package com.alibaba.cloud.ai.workflow.model;
+
+import java.time.LocalDateTime;
+
+// 执行历史使用的投影, 不加载 inputs/outputs/errorMessage
+public interface ExecutionSummary {
+    String getId();
+    String getWorkflowId();
+    String getStatus();
+    LocalDateTime getStartedAt();
+    LocalDateTime getCompletedAt();
+    Long getDuration();
+}
@@ -0,0 +1,46 @@
+package com.alibaba.cloud.ai.workflow.model;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 一次执行中每个节点的耗时, 供前端在图上标注节点延迟。
+// 时间单位为微秒, startMicros 是相对执行开始的偏移; 从检查点恢复的执行只包含恢复之后执行的节点。
+// byType 按节点类型汇总, idleMicros 是没有任何节点在执行的时间 (调度、状态合并和检查点的开销)
+public record ExecutionTrace(String executionId, String workflowId, String status, long durationMicros,
+                             long idleMicros, List<NodeSpan> nodes, Map<String, TypeTotal> byType) {
+    
+    public static ExecutionTrace of(String executionId, String workflowId, String status, long durationMicros,
+                                    List<NodeSpan> spans) {
+        List<NodeSpan> nodes = spans.stream().sorted(Comparator.comparingLong(NodeSpan::startMicros)).toList();
+        Map<String, TypeTotal> byType = new LinkedHashMap<>();
+        long busyMicros = 0;
+        long busyUntil = 0;
+        for (NodeSpan node : nodes) {
+            String type = node.nodeType() != null ? node.nodeType() : "unknown";
+            byType.merge(type, new TypeTotal(1, node.durationMicros(), node.durationMicros()), TypeTotal::plus);
+            // 并行分支的节点时间有重叠, 按时间轴的并集计算
+            long end = node.startMicros() + node.durationMicros();
+            if (end > busyUntil) {
+                busyMicros += end - Math.max(node.startMicros(), busyUntil);
+                busyUntil = end;
+            }
+        }
+        return new ExecutionTrace(executionId, workflowId, status, durationMicros,
+            Math.max(0, durationMicros - busyMicros), nodes, byType);
+    }
+    
+    // stateKeysIn: 节点开始时状态中的键数; stateKeysOut: 节点写入状态的键数。outcome 为 completed/failed/cancelled/timed_out
+    public record NodeSpan(String nodeId, String nodeType, String nodeLabel, long startMicros, long durationMicros,
+                           String thread, int stateKeysIn, int stateKeysOut, String outcome) {
+    }
+    
+    public record TypeTotal(int count, long totalMicros, long maxMicros) {
+        
+        TypeTotal plus(TypeTotal other) {
+            return new TypeTotal(count + other.count, totalMicros + other.totalMicros,
+                Math.max(maxMicros, other.maxMicros));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.alibaba.cloud.ai.workflow.model;
+
+import com.alibaba.cloud.ai.workflow.service.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// 基于游标 (keyset) 的分页结果, nextCursor 为 null 表示没有更多数据。
+// 游标是最后一条记录的 (时间, id), 下一页查询 "排在它之后" 的记录, 不使用 offset。
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+    
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+    
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+    
+    // rows 按 limit + 1 查询, 多出的一条只用于判断是否还有下一页
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+    
+    public record Cursor(LocalDateTime timestamp, String id) {
+        
+        public String encode() {
+            String raw = timestamp + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        // null 表示第一页
+        public static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new InvalidRequestException("Invalid cursor: " + cursor);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.alibaba.cloud.ai.workflow.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 只在编辑器中使用的布局信息 (节点位置、连接点、连线样式), 与执行所需的图分开存储。
+// nodes/edges 与 WorkflowDefinition 中的列表按下标一一对应。
+@Data
+public class WorkflowLayout {
+    
+    private List<NodeLayout> nodes = new ArrayList<>();
+    private List<EdgeLayout> edges = new ArrayList<>();
+    
+    @Data
+    public static class NodeLayout {
+        private WorkflowDefinition.NodeDefinition.Position position;
+        private String sourcePosition;
+        private String targetPosition;
+    }
+    
+    @Data
+    public static class EdgeLayout {
+        private String type;
+        private String sourceHandle;
+        private String targetHandle;
+    }
+    
+    public static WorkflowLayout of(WorkflowDefinition definition) {
+        WorkflowLayout layout = new WorkflowLayout();
+        if (definition.getNodes() != null) {
+            for (WorkflowDefinition.NodeDefinition node : definition.getNodes()) {
+                NodeLayout nodeLayout = new NodeLayout();
+                nodeLayout.setPosition(node.getPosition());
+                nodeLayout.setSourcePosition(node.getSourcePosition());
+                nodeLayout.setTargetPosition(node.getTargetPosition());
+                layout.getNodes().add(nodeLayout);
+            }
+        }
+        if (definition.getEdges() != null) {
+            for (WorkflowDefinition.EdgeDefinition edge : definition.getEdges()) {
+                EdgeLayout edgeLayout = new EdgeLayout();
+                edgeLayout.setType(edge.getType());
+                edgeLayout.setSourceHandle(edge.getSourceHandle());
+                edgeLayout.setTargetHandle(edge.getTargetHandle());
+                layout.getEdges().add(edgeLayout);
+            }
+        }
+        return layout;
+    }
+    
+    // 返回去掉布局字段的副本, 不修改原定义 (data 等引用共享)
+    public static WorkflowDefinition withoutLayout(WorkflowDefinition definition) {
+        WorkflowDefinition graph = new WorkflowDefinition();
+        graph.setId(definition.getId());
+        graph.setName(definition.getName());
+        graph.setDescription(definition.getDescription());
+        graph.setMetadata(definition.getMetadata());
+        if (definition.getNodes() != null) {
+            List<WorkflowDefinition.NodeDefinition> nodes = new ArrayList<>();
+            for (WorkflowDefinition.NodeDefinition node : definition.getNodes()) {
+                WorkflowDefinition.NodeDefinition copy = new WorkflowDefinition.NodeDefinition();
+                copy.setId(node.getId());
+                copy.setType(node.getType());
+                copy.setLabel(node.getLabel());
+                copy.setData(node.getData());
+                nodes.add(copy);
+            }
+            graph.setNodes(nodes);
+        }
+        if (definition.getEdges() != null) {
+            List<WorkflowDefinition.EdgeDefinition> edges = new ArrayList<>();
+            for (WorkflowDefinition.EdgeDefinition edge : definition.getEdges()) {
+                WorkflowDefinition.EdgeDefinition copy = new WorkflowDefinition.EdgeDefinition();
+                copy.setId(edge.getId());
+                copy.setSource(edge.getSource());
+                copy.setTarget(edge.getTarget());
+                copy.setData(edge.getData());
+                edges.add(copy);
+            }
+            graph.setEdges(edges);
+        }
+        return graph;
+    }
+    
+    // 把布局写回 (刚解码的) 定义
+    public void applyTo(WorkflowDefinition definition) {
+        List<WorkflowDefinition.NodeDefinition> graphNodes = definition.getNodes();
+        for (int i = 0; graphNodes != null && i < Math.min(graphNodes.size(), nodes.size()); i++) {
+            WorkflowDefinition.NodeDefinition node = graphNodes.get(i);
+            NodeLayout nodeLayout = nodes.get(i);
+            node.setPosition(nodeLayout.getPosition());
+            node.setSourcePosition(nodeLayout.getSourcePosition());
+            node.setTargetPosition(nodeLayout.getTargetPosition());
+        }
+        List<WorkflowDefinition.EdgeDefinition> graphEdges = definition.getEdges();
+        for (int i = 0; graphEdges != null && i < Math.min(graphEdges.size(), edges.size()); i++) {
+            WorkflowDefinition.EdgeDefinition edge = graphEdges.get(i);
+            EdgeLayout edgeLayout = edges.get(i);
+            edge.setType(edgeLayout.getType());
+            edge.setSourceHandle(edgeLayout.getSourceHandle());
+            edge.setTargetHandle(edgeLayout.getTargetHandle());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.alibaba.cloud.ai.workflow.model;
+
+import java.time.LocalDateTime;
+
+// 工作流列表使用的投影, 不加载 graphData
+public interface WorkflowSummary {
+    String getId();
+    String getName();
+    String getStatus();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,36 @@
+package com.alibaba.cloud.ai.workflow.node;
+
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// 没有注册 NodeExecutor 的节点类型: 把 data 中的键写入状态
+@Component
+public class CustomNodeExecutor implements NodeExecutor {
+    
+    @Override
+    public Set<String> types() {
+        return Set.of();
+    }
+    
+    @Override
+    public AsyncNodeActionWithConfig bind(WorkflowDefinition.NodeDefinition node, NodeInfo info) {
+        // data 中可能有 null 值, 不能使用 Map.copyOf
+        Map<String, Object> data = node.getData() != null
+            ? Collections.unmodifiableMap(new HashMap<>(node.getData()))
+            : Map.of();
+        String message = "Custom node executed: " + info.type();
+        return (state, config) -> {
+            Map<String, Object> result = info.newResult();
+            result.put("message", message);
+            result.putAll(data);
+            return CompletableFuture.completedFuture(result);
+        };
+    }
+}
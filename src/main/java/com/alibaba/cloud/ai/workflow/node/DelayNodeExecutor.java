@@ -0,0 +1,113 @@
+package com.alibaba.cloud.ai.workflow.node;
+
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.service.ExecutionEngine;
+import com.alibaba.cloud.ai.workflow.service.ExecutionParkedException;
+import com.alibaba.cloud.ai.workflow.service.ExecutionParking;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// 延迟/定时节点: 由共享定时器到期后完成, 等待期间不占用执行线程;
+// 不短于 workflow.execution.park-threshold 的等待暂停整个执行, 释放执行名额, 到期后从检查点恢复 (ExecutionParking)
+// delay/timer: data.duration ("500ms", "2s", "PT1M") 或 data.durationMs, 默认 1 秒
+// wait-until: data.until (ISO-8601 时间, 不带时区时按 UTC), 已过期则立即继续
+@Component
+@RequiredArgsConstructor
+public class DelayNodeExecutor implements NodeExecutor {
+    
+    private static final Duration DEFAULT_DELAY = Duration.ofSeconds(1);
+    
+    private final ExecutionEngine executionEngine;
+    private final ExecutionParking executionParking;
+    
+    @Override
+    public Set<String> types() {
+        return Set.of("delay", "timer", "wait-until");
+    }
+    
+    // 等待可能很长, 单独作为图节点, 完成后保存检查点
+    @Override
+    public boolean fusible() {
+        return false;
+    }
+    
+    @Override
+    public AsyncNodeActionWithConfig bind(WorkflowDefinition.NodeDefinition node, NodeInfo info) {
+        Map<String, Object> data = node.getData() != null ? node.getData() : Map.of();
+        Supplier<Duration> waitTime;
+        String message;
+        if ("wait-until".equals(info.type())) {
+            Instant until = parseInstant(info, data.get("until"));
+            waitTime = () -> Duration.between(Instant.now(), until);
+            message = "Wait completed";
+        } else {
+            Object value = data.containsKey("duration") ? data.get("duration") : data.get("durationMs");
+            Duration duration = parseDuration(info, value);
+            waitTime = () -> duration;
+            message = "Delay completed";
+        }
+        return (state, config) -> {
+            String executionId = config.threadId().orElse(null);
+            Duration wait = executionParking.remaining(executionId, info.id(), waitTime.get());
+            if (executionParking.shouldPark(executionId, info.id(), wait)) {
+                return CompletableFuture.failedFuture(new ExecutionParkedException(Instant.now().plus(wait)));
+            }
+            return executionEngine.schedule(wait, () -> {
+                Map<String, Object> result = info.newResult();
+                result.put("message", message);
+                return result;
+            });
+        };
+    }
+    
+    private static Duration parseDuration(NodeInfo info, Object value) {
+        if (value == null || "".equals(value)) {
+            return DEFAULT_DELAY;
+        }
+        try {
+            Duration duration = value instanceof Number number
+                ? Duration.ofMillis(number.longValue())
+                : DurationStyle.detectAndParse(value.toString().trim(), ChronoUnit.MILLIS);
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException("duration must not be negative");
+            }
+            return duration;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(
+                "Invalid duration '" + value + "' for node " + info.id() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private static Instant parseInstant(NodeInfo info, Object value) {
+        if (value == null || "".equals(value)) {
+            throw new IllegalArgumentException("Missing 'until' for wait-until node " + info.id());
+        }
+        if (value instanceof Number number) {
+            return Instant.ofEpochMilli(number.longValue());
+        }
+        String text = value.toString().trim();
+        try {
+            return OffsetDateTime.parse(text).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(text).toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid 'until' time '" + text + "' for node " + info.id(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.alibaba.cloud.ai.workflow.node;
+
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class InputNodeExecutor implements NodeExecutor {
+    
+    @Override
+    public Set<String> types() {
+        return Set.of("input");
+    }
+    
+    @Override
+    public AsyncNodeActionWithConfig bind(WorkflowDefinition.NodeDefinition node, NodeInfo info) {
+        return (state, config) -> {
+            Map<String, Object> result = info.newResult();
+            result.put("message", "Input node executed");
+            return CompletableFuture.completedFuture(result);
+        };
+    }
+}
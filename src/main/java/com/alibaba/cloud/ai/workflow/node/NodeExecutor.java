@@ -0,0 +1,23 @@
+package com.alibaba.cloud.ai.workflow.node;
+
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+
+import java.util.Set;
+
+// 节点类型扩展点: 每种节点类型实现为一个 Spring Bean, 由 NodeExecutorRegistry 按 nodeType 查找。
+// bind 在编译工作流时对每个节点调用一次, 应在此解析 data 中的配置 (配置错误时直接抛出异常使编译失败),
+// 返回的动作在每次执行时调用, 只需返回本节点写入状态的键值; 不能修改从状态中读到的值, 检查点和并行分支共享这些对象。
+public interface NodeExecutor {
+    
+    // 支持的 nodeType
+    Set<String> types();
+    
+    AsyncNodeActionWithConfig bind(WorkflowDefinition.NodeDefinition node, NodeInfo info);
+    
+    // 节点是否很快完成 (不等待定时器或外部事件)。相邻的可合并节点在编译时合并为一个图节点顺序执行,
+    // 节点事件和指标不变, 但检查点只在合并后的节点完成时保存
+    default boolean fusible() {
+        return true;
+    }
+}
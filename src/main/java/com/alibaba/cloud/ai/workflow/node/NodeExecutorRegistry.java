@@ -0,0 +1,41 @@
+package com.alibaba.cloud.ai.workflow.node;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// nodeType -> NodeExecutor, 未注册的类型交给 CustomNodeExecutor
+@Component
+@Slf4j
+public class NodeExecutorRegistry {
+    
+    private final Map<String, NodeExecutor> executors = new HashMap<>();
+    private final CustomNodeExecutor fallback;
+    
+    public NodeExecutorRegistry(List<NodeExecutor> executors, CustomNodeExecutor fallback) {
+        this.fallback = fallback;
+        for (NodeExecutor executor : executors) {
+            if (executor == fallback) {
+                continue;
+            }
+            for (String type : executor.types()) {
+                NodeExecutor existing = this.executors.putIfAbsent(type, executor);
+                if (existing != null) {
+                    throw new IllegalStateException(String.format("Node type '%s' is registered by both %s and %s",
+                        type, existing.getClass().getName(), executor.getClass().getName()));
+                }
+            }
+        }
+        log.info("Registered node types: {}", this.executors.keySet());
+    }
+    
+    public NodeExecutor resolve(String nodeType) {
+        if (nodeType == null) {
+            return fallback;
+        }
+        return executors.getOrDefault(nodeType, fallback);
+    }
+}
@@ -0,0 +1,24 @@
+package com.alibaba.cloud.ai.workflow.node;
+
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 编译时从节点定义中解析一次的基本信息, 执行时不再读取 data
+public record NodeInfo(String id, String type, String label) {
+    
+    public static NodeInfo of(WorkflowDefinition.NodeDefinition node) {
+        Object label = node.getData() != null ? node.getData().get("label") : null;
+        return new NodeInfo(node.getId(), node.getNodeType(), label != null ? label.toString() : node.getId());
+    }
+    
+    // 每个节点结果都包含的字段, 返回可修改的新 Map
+    public Map<String, Object> newResult() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("nodeId", id);
+        result.put("nodeType", type);
+        result.put("nodeLabel", label);
+        return result;
+    }
+}
@@ -0,0 +1,35 @@
+package com.alibaba.cloud.ai.workflow.node;
+
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.service.WorkflowGraphCompiler;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class OutputNodeExecutor implements NodeExecutor {
+    
+    @Override
+    public Set<String> types() {
+        return Set.of("output");
+    }
+    
+    @Override
+    public AsyncNodeActionWithConfig bind(WorkflowDefinition.NodeDefinition node, NodeInfo info) {
+        return (state, config) -> {
+            Map<String, Object> result = info.newResult();
+            result.put("message", "Output node executed");
+            // 复制当前状态, 不包含上一次的 finalResult, 避免状态引用自身;
+            // 各节点的结果已在输出的 nodeResults 中, 不再复制一份
+            Map<String, Object> finalResult = new HashMap<>(state.data());
+            finalResult.remove("finalResult");
+            finalResult.remove(WorkflowGraphCompiler.NODE_RESULTS_KEY);
+            result.put("finalResult", finalResult);
+            return CompletableFuture.completedFuture(result);
+        };
+    }
+}
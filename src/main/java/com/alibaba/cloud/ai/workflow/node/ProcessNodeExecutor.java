@@ -0,0 +1,30 @@
+package com.alibaba.cloud.ai.workflow.node;
+
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class ProcessNodeExecutor implements NodeExecutor {
+    
+    @Override
+    public Set<String> types() {
+        return Set.of("process");
+    }
+    
+    @Override
+    public AsyncNodeActionWithConfig bind(WorkflowDefinition.NodeDefinition node, NodeInfo info) {
+        return (state, config) -> {
+            // 模拟处理逻辑
+            Object input = state.value("input").orElse("default");
+            Map<String, Object> result = info.newResult();
+            result.put("processed", "Processed: " + input);
+            result.put("timestamp", System.currentTimeMillis());
+            return CompletableFuture.completedFuture(result);
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.alibaba.cloud.ai.workflow.repository;
+
+import com.alibaba.cloud.ai.workflow.entity.ArchivedExecutionEntity;
+import com.alibaba.cloud.ai.workflow.model.ExecutionSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedExecutionRepository extends JpaRepository<ArchivedExecutionEntity, String> {
+    
+    @Query("select e.status, count(e) from ArchivedExecutionEntity e where e.batchId = :batchId group by e.status")
+    List<Object[]> countByStatus(String batchId);
+    
+    // 与 ExecutionRepository 中的执行历史查询相同的顺序和 keyset 条件
+    @Query("select e.id as id, e.workflowId as workflowId, e.status as status, e.startedAt as startedAt, "
+        + "e.completedAt as completedAt, e.duration as duration from ArchivedExecutionEntity e "
+        + "where e.workflowId = :workflowId and (:status is null or e.status = :status) "
+        + "order by e.startedAt desc, e.id desc")
+    List<ExecutionSummary> findHistory(String workflowId, String status, Pageable pageable);
+    
+    @Query("select e.id as id, e.workflowId as workflowId, e.status as status, e.startedAt as startedAt, "
+        + "e.completedAt as completedAt, e.duration as duration from ArchivedExecutionEntity e "
+        + "where e.workflowId = :workflowId and (:status is null or e.status = :status) "
+        + "and (e.startedAt < :startedAt or (e.startedAt = :startedAt and e.id < :id)) "
+        + "order by e.startedAt desc, e.id desc")
+    List<ExecutionSummary> findHistoryAfter(String workflowId, String status, LocalDateTime startedAt, String id,
+                                            Pageable pageable);
+    
+    @Query("select e.id from ArchivedExecutionEntity e where e.startedAt < :before")
+    List<String> findIdsStartedBefore(LocalDateTime before, Pageable pageable);
+}
@@ -0,0 +1,9 @@
+package com.alibaba.cloud.ai.workflow.repository;
+
+import com.alibaba.cloud.ai.workflow.entity.BatchEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BatchRepository extends JpaRepository<BatchEntity, String> {
+}
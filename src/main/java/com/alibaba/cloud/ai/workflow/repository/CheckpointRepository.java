@@ -0,0 +1,24 @@
+package com.alibaba.cloud.ai.workflow.repository;
+
+import com.alibaba.cloud.ai.workflow.entity.CheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CheckpointRepository extends JpaRepository<CheckpointEntity, String> {
+    
+    @Query("select c.executionId from CheckpointEntity c where c.savedAt < :savedAt")
+    List<String> findExecutionIdsSavedBefore(LocalDateTime savedAt);
+    
+    // 单条 delete 语句, 不先查询实体
+    @Modifying
+    @Transactional
+    @Query("delete from CheckpointEntity c where c.executionId = :executionId")
+    int deleteByExecutionId(String executionId);
+}
@@ -0,0 +1,24 @@
+package com.alibaba.cloud.ai.workflow.repository;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionInstanceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExecutionInstanceRepository extends JpaRepository<ExecutionInstanceEntity, String> {
+    
+    @Query("select i.id from ExecutionInstanceEntity i where i.id in :ids and i.heartbeatAt >= :after")
+    List<String> findAliveIds(Collection<String> ids, LocalDateTime after);
+    
+    @Modifying
+    @Transactional
+    @Query("delete from ExecutionInstanceEntity i where i.heartbeatAt < :before")
+    int deleteStale(LocalDateTime before);
+}
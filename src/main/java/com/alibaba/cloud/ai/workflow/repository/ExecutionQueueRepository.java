@@ -0,0 +1,72 @@
+package com.alibaba.cloud.ai.workflow.repository;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionQueueEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExecutionQueueRepository extends JpaRepository<ExecutionQueueEntity, String> {
+    
+    // select ... for update skip locked: 并发领取的 worker 跳过彼此已锁定的行, 不会互相等待或领取同一行。
+    // lock.timeout = -2 即 LockOptions.SKIP_LOCKED
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select q from ExecutionQueueEntity q where q.leaseExpiresAt is null or q.leaseExpiresAt < :now "
+        + "order by q.enqueuedAt")
+    List<ExecutionQueueEntity> findClaimable(LocalDateTime now, Pageable pageable);
+    
+    // 领取时再次检查租约: 数据库不支持 skip locked 时 (如 H2 按普通 for update 处理),
+    // 并发的 worker 可能先后选中同一行, 只有第一个能更新成功
+    @Modifying
+    @Transactional
+    @Query("update ExecutionQueueEntity q set q.owner = :owner, q.leaseExpiresAt = :leaseExpiresAt, "
+        + "q.attempts = q.attempts + 1 "
+        + "where q.executionId = :executionId and (q.leaseExpiresAt is null or q.leaseExpiresAt < :now)")
+    int claim(String executionId, String owner, LocalDateTime leaseExpiresAt, LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("update ExecutionQueueEntity q set q.leaseExpiresAt = :leaseExpiresAt "
+        + "where q.owner = :owner and q.executionId in :executionIds")
+    int renew(String owner, Collection<String> executionIds, LocalDateTime leaseExpiresAt);
+    
+    // 只有仍持有租约时才删除, 租约已被其他 worker 接管时由对方负责
+    @Modifying
+    @Transactional
+    @Query("delete from ExecutionQueueEntity q where q.executionId = :executionId and q.owner = :owner")
+    int deleteOwned(String executionId, String owner);
+    
+    // 放弃领取 (本实例名额不足), 不计入领取次数
+    @Modifying
+    @Transactional
+    @Query("update ExecutionQueueEntity q set q.owner = null, q.leaseExpiresAt = null, q.attempts = q.attempts - 1 "
+        + "where q.executionId = :executionId and q.owner = :owner")
+    int release(String executionId, String owner);
+    
+    // 取消尚未被领取的执行
+    @Modifying
+    @Transactional
+    @Query("delete from ExecutionQueueEntity q where q.executionId = :executionId and q.leaseExpiresAt is null")
+    int deletePending(String executionId);
+    
+    @Query("select count(q) from ExecutionQueueEntity q where q.leaseExpiresAt is null or q.leaseExpiresAt < :now")
+    long countClaimable(LocalDateTime now);
+    
+    @Query("select q.executionId from ExecutionQueueEntity q where q.executionId in :executionIds")
+    List<String> findQueuedIds(Collection<String> executionIds);
+    
+    @Query("select q.executionId from ExecutionQueueEntity q where q.owner = :owner and q.executionId in :executionIds")
+    List<String> findOwnedIds(String owner, Collection<String> executionIds);
+}
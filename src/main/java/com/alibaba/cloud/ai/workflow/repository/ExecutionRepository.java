@@ -1,13 +1,74 @@
 package com.alibaba.cloud.ai.workflow.repository;
 
 import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.model.ExecutionOwnership;
+import com.alibaba.cloud.ai.workflow.model.ExecutionSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ExecutionRepository extends JpaRepository<ExecutionEntity, String> {
     List<ExecutionEntity> findByWorkflowIdOrderByStartedAtDesc(String workflowId);
     List<ExecutionEntity> findByStatus(String status);
+    
+    // 恢复检查每个心跳都会执行, 只读取判断 owner 需要的列
+    @Query("select e.id as id, e.status as status, e.owner as owner, e.startedAt as startedAt "
+        + "from ExecutionEntity e where e.status in :statuses")
+    List<ExecutionOwnership> findOwnershipByStatusIn(Collection<String> statuses);
+    
+    // 恢复前接管执行: owner 仍是 previousOwner 时才更新, 多个实例同时恢复时只有一个成功
+    @Modifying
+    @Transactional
+    @Query("update ExecutionEntity e set e.owner = :owner where e.id = :id and e.status in :statuses "
+        + "and (e.owner = :previousOwner or (e.owner is null and :previousOwner is null))")
+    int claimOwner(String id, String owner, String previousOwner, Collection<String> statuses);
+    
+    // ids 中已被其他实例接管的执行
+    @Query("select e.id from ExecutionEntity e where e.id in :ids and e.owner <> :owner")
+    List<String> findIdsOwnedByOthers(Collection<String> ids, String owner);
+    
+    // 批次中各状态的执行数: [status, count]
+    @Query("select e.status, count(e) from ExecutionEntity e where e.batchId = :batchId group by e.status")
+    List<Object[]> countByStatus(String batchId);
+    
+    @Query("select e.workflowId from ExecutionEntity e group by e.workflowId order by count(e) desc")
+    List<String> findMostExecutedWorkflowIds(Pageable pageable);
+    
+    // 单个工作流的执行历史, 按 (startedAt, id) 倒序的 keyset 分页, status 为 null 时不过滤
+    @Query("select e.id as id, e.workflowId as workflowId, e.status as status, e.startedAt as startedAt, "
+        + "e.completedAt as completedAt, e.duration as duration from ExecutionEntity e "
+        + "where e.workflowId = :workflowId and (:status is null or e.status = :status) "
+        + "order by e.startedAt desc, e.id desc")
+    List<ExecutionSummary> findHistory(String workflowId, String status, Pageable pageable);
+    
+    @Query("select e.id as id, e.workflowId as workflowId, e.status as status, e.startedAt as startedAt, "
+        + "e.completedAt as completedAt, e.duration as duration from ExecutionEntity e "
+        + "where e.workflowId = :workflowId and (:status is null or e.status = :status) "
+        + "and (e.startedAt < :startedAt or (e.startedAt = :startedAt and e.id < :id)) "
+        + "order by e.startedAt desc, e.id desc")
+    List<ExecutionSummary> findHistoryAfter(String workflowId, String status, LocalDateTime startedAt, String id,
+                                            Pageable pageable);
+    
+    @Query("select distinct e.workflowId from ExecutionEntity e")
+    List<String> findWorkflowIds();
+    
+    // 待归档的执行, 加锁并跳过其他实例正在归档的行 (同 ExecutionQueueRepository.findClaimable)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from ExecutionEntity e where e.workflowId = :workflowId and e.startedAt < :before "
+        + "and e.status in :statuses order by e.startedAt, e.id")
+    List<ExecutionEntity> findArchivable(String workflowId, Collection<String> statuses, LocalDateTime before,
+                                         Pageable pageable);
 }
\ No newline at end of file
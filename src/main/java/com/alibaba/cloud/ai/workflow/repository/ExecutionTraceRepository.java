@@ -0,0 +1,9 @@
+package com.alibaba.cloud.ai.workflow.repository;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionTraceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExecutionTraceRepository extends JpaRepository<ExecutionTraceEntity, String> {
+}
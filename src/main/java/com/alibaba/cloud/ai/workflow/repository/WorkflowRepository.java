@@ -1,13 +1,56 @@
 package com.alibaba.cloud.ai.workflow.repository;
 
 import com.alibaba.cloud.ai.workflow.entity.WorkflowEntity;
+import com.alibaba.cloud.ai.workflow.model.WorkflowSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface WorkflowRepository extends JpaRepository<WorkflowEntity, String> {
     List<WorkflowEntity> findByStatus(String status);
     List<WorkflowEntity> findByNameContaining(String name);
+    
+    // 按 (createdAt, id) 倒序的 keyset 分页
+    @Query("select w.id as id, w.name as name, w.status as status, w.createdAt as createdAt, w.updatedAt as updatedAt "
+        + "from WorkflowEntity w order by w.createdAt desc, w.id desc")
+    List<WorkflowSummary> findSummaries(Pageable pageable);
+    
+    @Query("select w.id as id, w.name as name, w.status as status, w.createdAt as createdAt, w.updatedAt as updatedAt "
+        + "from WorkflowEntity w where w.createdAt < :createdAt or (w.createdAt = :createdAt and w.id < :id) "
+        + "order by w.createdAt desc, w.id desc")
+    List<WorkflowSummary> findSummariesAfter(LocalDateTime createdAt, String id, Pageable pageable);
+    
+    // 只读取版本号 (updatedAt) 一列, 不加载 graph/layout; 工作流不存在时返回空列表
+    @Query("select w.updatedAt from WorkflowEntity w where w.id = :id")
+    List<LocalDateTime> findUpdatedAtById(String id);
+    
+    // 尚未转换为 graph/layout 格式的工作流, 按 id 分批
+    @Query("select w.id from WorkflowEntity w where w.graph is null and w.id > :afterId order by w.id")
+    List<String> findLegacyIds(String afterId, Pageable pageable);
+    
+    // 写入 graph/layout 并清空旧的 graphData, 不触发 @UpdateTimestamp; 读取之后工作流被修改过 (updatedAt 变化) 时不更新
+    @Modifying
+    @Transactional
+    @Query("update WorkflowEntity w set w.graph = :graph, w.layout = :layout, w.graphData = '' "
+        + "where w.id = :id and w.graph is null "
+        + "and (w.updatedAt = :updatedAt or (w.updatedAt is null and :updatedAt is null))")
+    int migrateLegacy(String id, byte[] graph, byte[] layout, LocalDateTime updatedAt);
+    
+    // 早期迁移只写入了 graph/layout, 这些记录仍保留着完整的 graphData
+    @Query("select w.id from WorkflowEntity w where w.graph is not null and w.graphData <> '' and w.id > :afterId "
+        + "order by w.id")
+    List<String> findMigratedWithGraphDataIds(String afterId, Pageable pageable);
+    
+    @Modifying
+    @Transactional
+    @Query("update WorkflowEntity w set w.graphData = '' where w.id in :ids and w.graph is not null")
+    int clearGraphData(Collection<String> ids);
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.BatchProperties;
+import com.alibaba.cloud.ai.workflow.config.ExecutionProperties;
+import com.alibaba.cloud.ai.workflow.entity.BatchEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.model.BatchItemResult;
+import com.alibaba.cloud.ai.workflow.model.BatchSummary;
+import com.alibaba.cloud.ai.workflow.repository.ArchivedExecutionRepository;
+import com.alibaba.cloud.ai.workflow.repository.BatchRepository;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionRepository;
+import com.alibaba.cloud.ai.workflow.storage.ExecutionPayloads;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 批量执行: 同一个工作流对多组输入执行。所有输入共用一次编译结果,
+// 执行记录以 queued 状态一次性写入 (由 ExecutionRecordWriter 合并为批量 insert),
+// 按 parallelism 逐个启动, 每完成一项启动下一项, 结果以 NDJSON 流式返回。
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BatchExecutionService {
+    
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    // 执行名额不足时第一次重新尝试的间隔, 之后每次翻倍
+    private static final Duration RETRY_DELAY = Duration.ofMillis(100);
+    
+    private final ExecutionService executionService;
+    private final WorkflowService workflowService;
+    private final ExecutionEngine executionEngine;
+    private final ExecutionRecordWriter executionRecordWriter;
+    private final ExecutionPayloads executionPayloads;
+    private final ExecutionRepository executionRepository;
+    private final ArchivedExecutionRepository archivedExecutionRepository;
+    private final BatchRepository batchRepository;
+    private final BatchProperties properties;
+    private final ExecutionProperties executionProperties;
+    private final ObjectMapper objectMapper;
+    
+    // 请求体为 JSON 数组或 NDJSON (每行一个输入对象)
+    public List<Map<String, Object>> readInputs(InputStream body, boolean ndjson) {
+        try {
+            if (!ndjson) {
+                List<Map<String, Object>> inputs = objectMapper.readValue(body, new TypeReference<>() {
+                });
+                return inputs != null ? inputs : List.of();
+            }
+            List<Map<String, Object>> inputs = new ArrayList<>();
+            try (MappingIterator<Map<String, Object>> lines = objectMapper.readerFor(Map.class).readValues(body)) {
+                while (lines.hasNextValue()) {
+                    inputs.add(lines.nextValue());
+                    if (inputs.size() > properties.getMaxSize()) {
+                        break;
+                    }
+                }
+            }
+            return inputs;
+        } catch (IOException e) {
+            throw new InvalidRequestException("Invalid batch inputs: " + e.getMessage(), e);
+        }
+    }
+    
+    public StartedBatch executeBatch(String workflowId, List<Map<String, Object>> inputs, Integer parallelism) {
+        if (inputs.isEmpty()) {
+            throw new InvalidRequestException("Batch inputs must not be empty");
+        }
+        if (inputs.size() > properties.getMaxSize()) {
+            throw new InvalidRequestException("Batch size exceeds the limit of " + properties.getMaxSize());
+        }
+        
+        // 整个批次只加载和编译一次, 执行期间工作流被更新也不影响本批次
+        String version = workflowService.getWorkflowVersion(workflowId);
+        CompiledWorkflow compiledWorkflow = executionService.getOrCompileGraph(workflowId, version);
+        
+        BatchEntity batch = new BatchEntity();
+        batch.setId(UUID.randomUUID().toString());
+        batch.setWorkflowId(workflowId);
+        batch.setStatus("running");
+        batch.setTotal(inputs.size());
+        batch.setParallelism(effectiveParallelism(parallelism, inputs.size()));
+        batch.setCreatedAt(LocalDateTime.now());
+        batchRepository.save(batch);
+        
+        List<ExecutionEntity> executions = new ArrayList<>(inputs.size());
+        for (Map<String, Object> input : inputs) {
+            ExecutionEntity execution = new ExecutionEntity();
+            execution.setWorkflowId(workflowId);
+            execution.setBatchId(batch.getId());
+            execution.setStatus("queued");
+            executionPayloads.writeInputs(execution, input);
+            executions.add(executionRecordWriter.create(execution));
+        }
+        
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(properties.getStreamTimeout().toMillis());
+        BatchRun run = new BatchRun(batch, executions, inputs, compiledWorkflow, version, emitter);
+        log.info("Batch {} started: workflow={}, size={}, parallelism={}",
+            batch.getId(), workflowId, inputs.size(), batch.getParallelism());
+        run.start();
+        return new StartedBatch(batch, emitter);
+    }
+    
+    // 计数来自已落库和已归档的执行记录, 所有项都结束时批次即完成 (包括重启后恢复执行的项)
+    public BatchSummary getBatch(String batchId) {
+        BatchEntity batch = batchRepository.findById(batchId)
+            .orElseThrow(() -> new RuntimeException("Batch not found: " + batchId));
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : executionRepository.countByStatus(batchId)) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        for (Object[] row : archivedExecutionRepository.countByStatus(batchId)) {
+            counts.merge((String) row[0], (Long) row[1], Long::sum);
+        }
+        long unfinished = counts.getOrDefault("queued", 0L) + counts.getOrDefault("running", 0L);
+        long finished = counts.getOrDefault("completed", 0L) + counts.getOrDefault("failed", 0L)
+            + counts.getOrDefault(ExecutionService.STATUS_CANCELLED, 0L)
+            + counts.getOrDefault(ExecutionService.STATUS_TIMED_OUT, 0L);
+        String status = unfinished == 0 && finished >= batch.getTotal() ? "completed" : batch.getStatus();
+        return new BatchSummary(batch.getId(), batch.getWorkflowId(), status, batch.getTotal(), counts,
+            batch.getCreatedAt(), batch.getCompletedAt(), batch.getDuration());
+    }
+    
+    private int effectiveParallelism(Integer requested, int size) {
+        int parallelism = requested != null && requested > 0 ? requested : properties.getParallelism();
+        parallelism = Math.min(parallelism, properties.getMaxParallelism());
+        // 超过单工作流并发上限的部分只会被反复拒绝
+        if (executionProperties.getMaxConcurrentPerWorkflow() > 0) {
+            parallelism = Math.min(parallelism, executionProperties.getMaxConcurrentPerWorkflow());
+        }
+        return Math.max(1, Math.min(parallelism, size));
+    }
+    
+    public record StartedBatch(BatchEntity batch, ResponseBodyEmitter emitter) {
+    }
+    
+    private class BatchRun {
+        
+        private final BatchEntity batch;
+        private final List<ExecutionEntity> executions;
+        private final List<Map<String, Object>> inputs;
+        private final CompiledWorkflow compiledWorkflow;
+        private final String version;
+        private final ResponseBodyEmitter emitter;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        // 客户端断开后批次继续执行, 不再写结果流
+        private final AtomicBoolean streaming = new AtomicBoolean(true);
+        
+        private BatchRun(BatchEntity batch, List<ExecutionEntity> executions, List<Map<String, Object>> inputs,
+                         CompiledWorkflow compiledWorkflow, String version, ResponseBodyEmitter emitter) {
+            this.batch = batch;
+            this.executions = executions;
+            this.inputs = inputs;
+            this.compiledWorkflow = compiledWorkflow;
+            this.version = version;
+            this.emitter = emitter;
+            this.remaining = new AtomicInteger(executions.size());
+            emitter.onTimeout(() -> streaming.set(false));
+            emitter.onError(error -> streaming.set(false));
+        }
+        
+        void start() {
+            for (int i = 0; i < batch.getParallelism(); i++) {
+                startNext();
+            }
+        }
+        
+        private void startNext() {
+            int index = next.getAndIncrement();
+            if (index < executions.size()) {
+                launch(index, 1);
+            }
+        }
+        
+        // 名额不足时由定时器按退避间隔重试, 重试本身不等待名额, 不占用分支线程
+        private void launch(int index, int attempt) {
+            ExecutionEntity execution = executions.get(index);
+            try {
+                executionService.startQueued(execution, inputs.get(index), compiledWorkflow, version)
+                    .whenComplete((finished, error) -> finishItem(index, finished != null ? finished : execution));
+            } catch (ExecutionRejectedException e) {
+                if (attempt >= properties.getMaxStartAttempts()) {
+                    log.warn("Batch {} item {} not started after {} attempts: {}",
+                        batch.getId(), index, attempt, e.getMessage());
+                    executionService.saveFailedExecution(execution, e);
+                    finishItem(index, execution);
+                    return;
+                }
+                executionEngine.deadline(retryDelay(attempt), () -> launch(index, attempt + 1));
+            } catch (RuntimeException e) {
+                log.error("Batch {} item {} failed to start", batch.getId(), index, e);
+                executionService.saveFailedExecution(execution, e);
+                finishItem(index, execution);
+            }
+        }
+        
+        private Duration retryDelay(int attempt) {
+            Duration delay = RETRY_DELAY.multipliedBy(1L << Math.min(attempt - 1, 16));
+            return delay.compareTo(properties.getMaxRetryDelay()) > 0 ? properties.getMaxRetryDelay() : delay;
+        }
+        
+        // 结果写出失败也要计数, 否则批次永远停在 running
+        private void finishItem(int index, ExecutionEntity execution) {
+            try {
+                send(BatchItemResult.of(index, executionPayloads.materialize(execution)));
+            } catch (RuntimeException e) {
+                log.warn("Failed to send result {} of batch {}: {}", index, batch.getId(), e.getMessage());
+            } finally {
+                if (remaining.decrementAndGet() == 0) {
+                    finish();
+                } else {
+                    startNext();
+                }
+            }
+        }
+        
+        private void finish() {
+            LocalDateTime completedAt = LocalDateTime.now();
+            batch.setStatus("completed");
+            batch.setCompletedAt(completedAt);
+            batch.setDuration(Duration.between(batch.getCreatedAt(), completedAt).toMillis());
+            try {
+                batchRepository.save(batch);
+            } catch (Exception e) {
+                log.error("Failed to update batch {}", batch.getId(), e);
+            }
+            log.info("Batch {} completed in {}ms", batch.getId(), batch.getDuration());
+            if (streaming.get()) {
+                emitter.complete();
+            }
+        }
+        
+        private void send(BatchItemResult result) {
+            if (!streaming.get()) {
+                return;
+            }
+            try {
+                emitter.send(objectMapper.writeValueAsString(result) + "\n", NDJSON);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Batch {} result stream closed: {}", batch.getId(), e.getMessage());
+                streaming.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.GraphCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class CompiledGraphCache {
+    
+    private final GraphCacheProperties properties;
+    private final Cache<GraphKey, CompiledWorkflow> cache;
+    private final Timer compileSuccess;
+    private final Timer compileFailure;
+    
+    public CompiledGraphCache(GraphCacheProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterAccess(properties.getExpireAfterAccess())
+            .recordStats()
+            .removalListener((GraphKey key, CompiledWorkflow graph, RemovalCause cause) ->
+                log.debug("Compiled workflow removed: {} ({})", key, cause))
+            .build();
+        // cache.gets{result=hit|miss}, cache.evictions 等
+        CaffeineCacheMetrics.monitor(registry, cache, "workflow.graph");
+        this.compileSuccess = compileTimer(registry, "success");
+        this.compileFailure = compileTimer(registry, "error");
+    }
+    
+    // 版本号变化 (工作流被更新) 后旧版本的条目不会再被命中, 由容量/过期策略回收
+    public CompiledWorkflow get(String workflowId, String version, Supplier<CompiledWorkflow> compiler) {
+        return cache.get(new GraphKey(workflowId, version), key -> {
+            long startNanos = System.nanoTime();
+            try {
+                CompiledWorkflow compiled = compiler.get();
+                compileSuccess.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                return compiled;
+            } catch (RuntimeException e) {
+                compileFailure.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        });
+    }
+    
+    public void invalidate(String workflowId) {
+        cache.asMap().keySet().removeIf(key -> key.workflowId().equals(workflowId));
+    }
+    
+    // 已编译的图包含节点动作的 lambda, 无法序列化; 快照只记录最常用的 (工作流 id, 版本), 按热度排序,
+    // 启动后由 ExecutionService 重新编译。每行一条, 以 tab 分隔, 先写临时文件再原子替换
+    @PreDestroy
+    public void saveSnapshot() {
+        if (properties.getSnapshotFile() == null || properties.getSnapshotFile().isBlank()) {
+            return;
+        }
+        Path target = Path.of(properties.getSnapshotFile());
+        List<GraphKey> keys = cache.policy().eviction()
+            .map(eviction -> List.copyOf(eviction.hottest(properties.getSnapshotSize()).keySet()))
+            .orElseGet(List::of);
+        try {
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (GraphKey key : keys) {
+                    out.write(key.workflowId() + "\t" + key.version());
+                    out.newLine();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved {} compiled graph keys to {}", keys.size(), target);
+        } catch (IOException e) {
+            log.warn("Failed to save graph cache snapshot {}: {}", target, e.getMessage());
+        }
+    }
+    
+    // 没有快照文件时返回空列表
+    public List<GraphKey> loadSnapshot() {
+        if (properties.getSnapshotFile() == null || properties.getSnapshotFile().isBlank()) {
+            return List.of();
+        }
+        Path source = Path.of(properties.getSnapshotFile());
+        List<GraphKey> keys = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+                int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    keys.add(new GraphKey(line.substring(0, separator), line.substring(separator + 1)));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            log.warn("Failed to read graph cache snapshot {}: {}", source, e.getMessage());
+        }
+        return keys;
+    }
+    
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        result.put("averageCompileMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+    
+    private static Timer compileTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("workflow.graph.compile")
+            .description("Workflow graph compile time on cache miss")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+    
+    record GraphKey(String workflowId, String version) {
+    }
+}
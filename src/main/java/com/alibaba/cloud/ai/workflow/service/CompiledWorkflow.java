@@ -0,0 +1,35 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.OverAllStateBuilder;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+// 编译结果: 图本身以及执行时需要的分支和状态合并信息; timeout 来自工作流 metadata, 未配置时为 null
+public record CompiledWorkflow(CompiledGraph graph, Set<String> parallelSources, Map<String, KeyStrategy> keyStrategies,
+                               Duration timeout) {
+    
+    // 输入中的键按 REPLACE 注册, 保证它们对节点可见
+    public OverAllState initialState(Map<String, Object> inputs) {
+        Map<String, KeyStrategy> strategies = new HashMap<>(keyStrategies);
+        inputs.keySet().forEach(key -> strategies.putIfAbsent(key, KeyStrategy.REPLACE));
+        return OverAllStateBuilder.builder()
+            .withKeyStrategies(strategies)
+            .withData(inputs)
+            .build();
+    }
+    
+    // 每个分叉节点的并行分支都提交到 branchExecutor, 而不是默认的 ForkJoinPool
+    public RunnableConfig runnableConfig(String executionId, Executor branchExecutor) {
+        RunnableConfig.Builder builder = RunnableConfig.builder().threadId(executionId);
+        parallelSources.forEach(source -> builder.addParallelNodeExecutor(source, branchExecutor));
+        return builder.build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import lombok.Getter;
+
+// 执行被取消或超时, status 为执行记录的最终状态 (cancelled / timed_out)
+@Getter
+public class ExecutionCancelledException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final String status;
+    
+    public ExecutionCancelledException(String status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -0,0 +1,264 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.DispatchProperties;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionQueueEntity;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// workflow.dispatch.mode=queue 时的 worker: 每个 worker 一个线程, 在空余名额内从执行队列领取执行,
+// 通过 ExecutionService.resumeExecution 启动 (有检查点时从检查点继续), 最终状态落库后删除队列行。
+// 后台线程定期为执行中的行续租; 实例宕机后租约过期, 其他 worker 重新领取。
+// 续租时发现租约已被接管的执行在本实例上停止, 同一个执行不会在两个 worker 上同时运行。
+@Component
+@Slf4j
+public class ExecutionDispatcher {
+    
+    private final DispatchProperties properties;
+    private final ExecutionQueue executionQueue;
+    private final ExecutionService executionService;
+    private final ExecutionRecordWriter executionRecordWriter;
+    private final ExecutionRepository executionRepository;
+    private final MeterRegistry registry;
+    private final Counter reclaimed;
+    private final Counter lostLeases;
+    private final String instanceId;
+    private final List<Worker> workers = new ArrayList<>();
+    private ScheduledExecutorService heartbeat;
+    private volatile boolean stopped;
+    
+    public ExecutionDispatcher(DispatchProperties properties, ExecutionQueue executionQueue,
+                               ExecutionService executionService, ExecutionRecordWriter executionRecordWriter,
+                               ExecutionRepository executionRepository, ExecutionInstance executionInstance,
+                               MeterRegistry registry) {
+        this.properties = properties;
+        this.executionQueue = executionQueue;
+        this.executionService = executionService;
+        this.executionRecordWriter = executionRecordWriter;
+        this.executionRepository = executionRepository;
+        this.registry = registry;
+        this.reclaimed = Counter.builder("workflow.dispatch.reclaimed")
+            .description("Executions claimed again after the previous lease expired")
+            .register(registry);
+        this.lostLeases = Counter.builder("workflow.dispatch.lost.leases")
+            .description("Running executions whose lease was taken over by another worker")
+            .register(registry);
+        this.instanceId = executionInstance.getId();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (properties.getMode() != DispatchProperties.Mode.QUEUE || properties.getWorkers() <= 0 || stopped) {
+            return;
+        }
+        // 删除队列行的回调也在续租线程上执行, 先于 worker 创建
+        long interval = properties.getHeartbeatInterval().toMillis();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(
+            new ExecutionEngine.NamedThreadFactory("execution-heartbeat-"));
+        heartbeat.scheduleWithFixedDelay(this::renewLeasesQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        ExecutionEngine.NamedThreadFactory threads = new ExecutionEngine.NamedThreadFactory("execution-worker-");
+        for (int i = 1; i <= properties.getWorkers(); i++) {
+            Worker worker = new Worker(instanceId + "/" + i, properties.getConcurrency());
+            workers.add(worker);
+            Gauge.builder("workflow.dispatch.in.flight", worker.inFlight, Map::size)
+                .description("Executions claimed by the worker that have not finished yet")
+                .tag("worker", worker.id)
+                .register(registry);
+            worker.thread = threads.newThread(() -> work(worker));
+            worker.thread.start();
+        }
+        log.info("Started {} execution workers on instance {} (concurrency {} each)",
+            workers.size(), instanceId, properties.getConcurrency());
+    }
+    
+    // 停止领取新的执行; 已领取的执行继续运行, 没有完成的由租约过期后其他实例接管
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        workers.forEach(worker -> worker.thread.interrupt());
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+    }
+    
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", properties.getMode().name().toLowerCase());
+        result.put("instanceId", instanceId);
+        Map<String, Integer> inFlight = new LinkedHashMap<>();
+        workers.forEach(worker -> inFlight.put(worker.id, worker.inFlight.size()));
+        result.put("workers", inFlight);
+        if (properties.getMode() == DispatchProperties.Mode.QUEUE) {
+            result.put("queued", executionQueue.size());
+            result.put("claimable", executionQueue.pendingCount());
+        }
+        return result;
+    }
+    
+    private void work(Worker worker) {
+        while (!stopped) {
+            try {
+                int wanted = worker.reserve(properties.getBatchSize());
+                List<ExecutionQueueEntity> claimed;
+                try {
+                    claimed = executionQueue.claim(worker.id, wanted);
+                } catch (RuntimeException e) {
+                    worker.slots.release(wanted);
+                    throw e;
+                }
+                worker.slots.release(wanted - claimed.size());
+                for (ExecutionQueueEntity item : claimed) {
+                    start(worker, item);
+                }
+                if (claimed.isEmpty()) {
+                    executionQueue.awaitWork(properties.getPollInterval());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.warn("Worker {} failed to claim executions: {}", worker.id, e.getMessage());
+                try {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void start(Worker worker, ExecutionQueueEntity item) {
+        String executionId = item.getExecutionId();
+        try {
+            if (item.getAttempts() > 1) {
+                reclaimed.increment();
+                log.info("Worker {} reclaimed execution {} (attempt {})", worker.id, executionId, item.getAttempts());
+                // 租约是从本实例的另一个 worker 接管的: 先停止原来的执行
+                executionService.abandonExecution(executionId, "Lease taken over by worker " + worker.id);
+            }
+            ExecutionEntity execution = executionRecordWriter.find(executionId)
+                .or(() -> executionRepository.findById(executionId))
+                .orElse(null);
+            // 执行记录已删除, 或上一个 worker 写完最终状态后没来得及删除队列行
+            if (execution == null || !isUnfinished(execution.getStatus())) {
+                finish(worker, executionId);
+                return;
+            }
+            if (item.getAttempts() > properties.getMaxAttempts()) {
+                log.error("Execution {} abandoned after {} attempts", executionId, item.getAttempts() - 1);
+                executionService.saveFailedExecution(execution, new IllegalStateException(
+                    "Execution abandoned after " + (item.getAttempts() - 1) + " attempts"));
+                finish(worker, executionId);
+                return;
+            }
+            worker.inFlight.put(executionId, item);
+            executionService.resumeExecution(execution)
+                .whenComplete((result, error) -> finish(worker, executionId));
+        } catch (ExecutionRejectedException e) {
+            // 本实例的执行名额已满, 放回队列由其他 worker 领取
+            log.debug("Worker {} released execution {}: {}", worker.id, executionId, e.getMessage());
+            worker.inFlight.remove(executionId);
+            worker.slots.release();
+            executionQueue.release(executionId, worker.id);
+        } catch (Exception e) {
+            log.error("Worker {} failed to start execution {}", worker.id, executionId, e);
+            finish(worker, executionId);
+        }
+    }
+    
+    // 名额立即释放; 队列行在最终状态落库后才删除, 在此之前继续续租。
+    // 落库前实例宕机时租约过期, 执行被重新领取, 不会停留在 running 而又不在队列中
+    private void finish(Worker worker, String executionId) {
+        worker.slots.release();
+        executionRecordWriter.whenFlushed(executionId).whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                log.warn("Execution {} stays queued, its final state was not saved: {}", executionId,
+                    error.getMessage());
+            } else {
+                try {
+                    executionQueue.complete(executionId, worker.id);
+                } catch (Exception e) {
+                    // 队列行保留到租约过期, 重新领取时发现执行已结束后删除
+                    log.warn("Failed to remove execution {} from the queue: {}", executionId, e.getMessage());
+                }
+            }
+            worker.inFlight.remove(executionId);
+        }, heartbeat);
+    }
+    
+    private void renewLeasesQuietly() {
+        for (Worker worker : workers) {
+            Set<String> executionIds = Set.copyOf(worker.inFlight.keySet());
+            if (executionIds.isEmpty()) {
+                continue;
+            }
+            try {
+                int renewed = executionQueue.renew(worker.id, executionIds);
+                if (renewed < executionIds.size()) {
+                    // 续租间隔过长或实例长时间停顿, 这些执行可能已在其他 worker 上再次执行
+                    Set<String> owned = executionQueue.owned(worker.id, executionIds);
+                    List<String> lost = executionIds.stream().filter(id -> !owned.contains(id)).toList();
+                    lostLeases.increment(lost.size());
+                    log.warn("Worker {} lost the lease on {} of {} executions at {}", worker.id,
+                        lost.size(), executionIds.size(), LocalDateTime.now());
+                    for (String executionId : lost) {
+                        // 已结束、等待落库的执行不再续租
+                        worker.inFlight.remove(executionId);
+                        // 由本实例的另一个 worker 接管时, 原来的执行已在领取时停止
+                        if (workers.stream().noneMatch(other -> other.inFlight.containsKey(executionId))) {
+                            executionService.abandonExecution(executionId,
+                                "Lease taken over by another worker after " + properties.getLeaseDuration());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Worker {} failed to renew leases: {}", worker.id, e.getMessage());
+            }
+        }
+    }
+    
+    private static boolean isUnfinished(String status) {
+        return "queued".equals(status) || "running".equals(status);
+    }
+    
+    private static final class Worker {
+        
+        private final String id;
+        // 空余的执行名额
+        private final Semaphore slots;
+        private final Map<String, ExecutionQueueEntity> inFlight = new ConcurrentHashMap<>();
+        private Thread thread;
+        
+        private Worker(String id, int concurrency) {
+            this.id = id;
+            this.slots = new Semaphore(concurrency);
+        }
+        
+        // 等待至少一个空余名额, 返回占用的名额数 (不超过 max)
+        int reserve(int max) throws InterruptedException {
+            slots.acquire();
+            int taken = 1 + slots.drainPermits();
+            int kept = Math.min(taken, Math.max(1, max));
+            slots.release(taken - kept);
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.ExecutionProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class ExecutionEngine {
+
+    private final ExecutionProperties properties;
+    private final ExecutionMetrics executionMetrics;
+    private final ExecutorService executor;
+    private final ExecutorService branchExecutor;
+    private final ScheduledExecutorService timer;
+    private final Semaphore admission;
+    // 同时被接受的执行总数上限: 平台线程池为 poolSize + queueCapacity, 虚拟线程为 maxInFlight
+    private final int capacity;
+    // 只保存有执行在进行或等待名额的工作流, 最后一个执行释放名额时移除, 已删除或空闲的工作流不会留在表中
+    private final Map<String, WorkflowLimit> workflowLimits = new ConcurrentHashMap<>();
+
+    public ExecutionEngine(ExecutionProperties properties, ExecutionMetrics executionMetrics, MeterRegistry registry) {
+        this.properties = properties;
+        this.executionMetrics = executionMetrics;
+        this.executor = createExecutor(properties);
+        this.branchExecutor = createBranchExecutor(properties);
+        this.timer = createTimer(properties);
+        // 虚拟线程不可用时回退到平台线程池, 此时仍按线程池的容量限制
+        boolean virtual = !(executor instanceof ThreadPoolExecutor);
+        this.capacity = virtual ? properties.getMaxInFlight() : properties.getPoolSize() + properties.getQueueCapacity();
+        this.admission = new Semaphore(capacity);
+        bindMetrics(registry);
+        log.info("Execution engine started: mode={}, capacity={}, maxConcurrentPerWorkflow={}",
+            virtual ? ExecutionProperties.Mode.VIRTUAL : ExecutionProperties.Mode.PLATFORM, capacity,
+            properties.getMaxConcurrentPerWorkflow());
+    }
+
+    // 申请执行名额: 队列已满或工作流并发已达上限时抛出 ExecutionRejectedException
+    // 返回的 Permit 必须交给 submit, 或在提交前失败时手动 release
+    // 每次拒绝都计入 workflow.execution.rejected, 不论调用方是接口、批量执行还是队列 worker
+    public Permit acquire(String workflowId) {
+        return acquire(workflowId, properties.getRejectionPolicy() == ExecutionProperties.RejectionPolicy.WAIT);
+    }
+    
+    // 不论 rejection-policy 都不等待, 用于自行重试的调用方 (批量执行), 不占用调用线程
+    public Permit acquireNow(String workflowId) {
+        return acquire(workflowId, false);
+    }
+    
+    private Permit acquire(String workflowId, boolean wait) {
+        if (!tryAcquire(admission, wait)) {
+            throw rejected(workflowId, "Execution queue is full, please retry later");
+        }
+        WorkflowLimit workflowLimit = retainWorkflowLimit(workflowId);
+        if (workflowLimit != null && !tryAcquire(workflowLimit.semaphore, wait)) {
+            releaseWorkflowLimit(workflowId);
+            admission.release();
+            throw rejected(workflowId, "Too many concurrent executions for workflow: " + workflowId);
+        }
+        return new Permit(workflowId, workflowLimit);
+    }
+
+    public <T> CompletableFuture<T> submit(Permit permit, Supplier<T> task) {
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            permit.release();
+            throw rejected(permit.workflowId, "Execution queue is full, please retry later");
+        }
+        return future.whenComplete((result, error) -> permit.release());
+    }
+
+    // 并行分支的执行器, 分支任务不会再等待其他任务, 队列满时在执行线程上直接运行
+    public Executor branchExecutor() {
+        return branchExecutor;
+    }
+    
+    // 到期后在分支执行器上运行 task, 等待期间不占用任何线程
+    public <T> CompletableFuture<T> schedule(Duration delay, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ScheduledFuture<?> scheduled = timer.schedule(
+            () -> future.completeAsync(task, branchExecutor), Math.max(0, delay.toNanos()), TimeUnit.NANOSECONDS);
+        // 调用方取消等待时同时移除定时任务
+        future.whenComplete((result, error) -> scheduled.cancel(false));
+        return future;
+    }
+    
+    // 到期后在分支执行器上运行 action (取消、超时处理等), 返回的 ScheduledFuture 用于提前取消
+    public ScheduledFuture<?> deadline(Duration delay, Runnable action) {
+        return timer.schedule(() -> branchExecutor.execute(action), Math.max(0, delay.toNanos()), TimeUnit.NANOSECONDS);
+    }
+    
+    public int availablePermits() {
+        return admission.availablePermits();
+    }
+    
+    // 已接受但尚未结束的执行数 (正在执行 + 排队)
+    public int inFlight() {
+        return capacity - admission.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        timer.shutdownNow();
+        branchExecutor.shutdownNow();
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        Gauge.builder("workflow.execution.in.flight", this, ExecutionEngine::inFlight)
+            .description("Accepted executions that have not finished yet")
+            .register(registry);
+        // 线程池的活跃线程数、队列长度、完成任务数等
+        new ExecutorServiceMetrics(executor, "workflow-exec", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(branchExecutor, "workflow-branch", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(timer, "workflow-timer", Tags.empty()).bindTo(registry);
+    }
+    
+    private ExecutionRejectedException rejected(String workflowId, String message) {
+        executionMetrics.executionRejected(workflowId);
+        return new ExecutionRejectedException(message);
+    }
+    
+    private boolean tryAcquire(Semaphore semaphore, boolean wait) {
+        if (!wait) {
+            return semaphore.tryAcquire();
+        }
+        try {
+            return semaphore.tryAcquire(properties.getAdmissionTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // 引用计数在 compute 中修改, 与移除互斥, 不会有两个执行拿到同一工作流的不同信号量
+    private WorkflowLimit retainWorkflowLimit(String workflowId) {
+        int limit = properties.getMaxConcurrentPerWorkflow();
+        if (limit <= 0) {
+            return null;
+        }
+        return workflowLimits.compute(workflowId, (id, current) -> {
+            WorkflowLimit workflowLimit = current != null ? current : new WorkflowLimit(limit);
+            workflowLimit.users++;
+            return workflowLimit;
+        });
+    }
+    
+    private void releaseWorkflowLimit(String workflowId) {
+        workflowLimits.computeIfPresent(workflowId, (id, workflowLimit) -> --workflowLimit.users > 0 ? workflowLimit : null);
+    }
+
+    private static ExecutorService createExecutor(ExecutionProperties properties) {
+        ExecutorService virtual = createVirtualExecutor(properties);
+        if (virtual != null) {
+            return virtual;
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            properties.getPoolSize(), properties.getPoolSize(),
+            60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+            new NamedThreadFactory("workflow-exec-"),
+            new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+    
+    private static ExecutorService createBranchExecutor(ExecutionProperties properties) {
+        ExecutorService virtual = createVirtualExecutor(properties);
+        if (virtual != null) {
+            return virtual;
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            properties.getBranchPoolSize(), properties.getBranchPoolSize(),
+            60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(properties.getBranchPoolSize()),
+            new NamedThreadFactory("workflow-branch-"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+    
+    private static ScheduledExecutorService createTimer(ExecutionProperties properties) {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(
+            Math.max(1, properties.getTimerThreads()), new NamedThreadFactory("workflow-timer-"));
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+    
+    private static ExecutorService createVirtualExecutor(ExecutionProperties properties) {
+        if (properties.getMode() != ExecutionProperties.Mode.VIRTUAL) {
+            return null;
+        }
+        try {
+            // 通过反射创建, 以便在 JDK 17 上编译并回退到平台线程池
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on this JVM, falling back to platform thread pool");
+            return null;
+        }
+    }
+
+    public class Permit {
+
+        private final String workflowId;
+        private final WorkflowLimit workflowLimit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String workflowId, WorkflowLimit workflowLimit) {
+            this.workflowId = workflowId;
+            this.workflowLimit = workflowLimit;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                if (workflowLimit != null) {
+                    workflowLimit.semaphore.release();
+                    releaseWorkflowLimit(workflowId);
+                }
+                admission.release();
+            }
+        }
+    }
+
+    // users: 持有或正在等待该工作流名额的执行数
+    private static class WorkflowLimit {
+
+        private final Semaphore semaphore;
+        private int users;
+
+        WorkflowLimit(int limit) {
+            this.semaphore = new Semaphore(limit);
+        }
+    }
+
+    static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.ExecutionProperties;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// 执行进度推送 (Server-Sent Events)。每个执行中的工作流保留最近 event-history-size 个事件,
+// 晚于开始订阅的客户端会先收到这些历史事件, 执行结束后通道被移除。
+// 节点线程只把事件放入各订阅者的队列, 由发送线程写给客户端, 慢客户端不会阻塞执行。
+// 执行还没有结束但不在本实例上运行时 (排队中、在其他实例上运行), 订阅者先收到 execution_status,
+// 之后每 event-poll-interval 读取一次执行记录, 状态变化时再推送 execution_status, 本实例开始运行后改为接收节点事件,
+// 执行结束时收到 execution_finished。
+@Component
+@Slf4j
+public class ExecutionEventPublisher {
+
+    public static final String NODE_STARTED = "node_started";
+    public static final String NODE_FINISHED = "node_finished";
+    public static final String NODE_FAILED = "node_failed";
+    public static final String EXECUTION_STATUS = "execution_status";
+    // 执行暂停等待恢复 (ExecutionParking), 通道保留到恢复后继续推送
+    public static final String EXECUTION_WAITING = "execution_waiting";
+    public static final String EXECUTION_FINISHED = "execution_finished";
+    
+    private static final Set<String> UNFINISHED = Set.of("queued", "running", ExecutionService.STATUS_WAITING);
+    // 通道交给 release 后, 订阅者发送完之前的事件再改为读取执行记录
+    private static final String RELEASED = "released";
+
+    private static final long EMITTER_TIMEOUT_MILLIS = 5 * 60 * 1000L;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final int historySize;
+    private final ExecutorService sender;
+    private final ScheduledExecutorService poller;
+    private final long pollMillis;
+
+    public ExecutionEventPublisher(ExecutionProperties properties) {
+        this.historySize = Math.max(1, properties.getEventHistorySize());
+        this.sender = Executors.newFixedThreadPool(Math.max(1, properties.getEventSenderThreads()),
+            new ExecutionEngine.NamedThreadFactory("execution-events-"));
+        this.poller = Executors.newSingleThreadScheduledExecutor(
+            new ExecutionEngine.NamedThreadFactory("execution-events-poll-"));
+        this.pollMillis = Math.max(100, properties.getEventPollInterval().toMillis());
+    }
+
+    // 执行开始时调用, 之后的节点事件才会被记录
+    public void open(String executionId) {
+        channels.computeIfAbsent(executionId, Channel::new);
+    }
+
+    // 只有执行不在本实例上运行时才通过 currentState 读取执行记录
+    public SseEmitter subscribe(String executionId, Supplier<ExecutionEntity> currentState) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Channel channel = channels.get(executionId);
+        if (channel == null || !channel.attach(emitter, currentState)) {
+            watch(executionId, emitter, currentState);
+        }
+        return emitter;
+    }
+
+    public void publish(String executionId, String event, Map<String, Object> data) {
+        Channel channel = channels.get(executionId);
+        if (channel != null) {
+            channel.send(new Event(event, data));
+        }
+    }
+
+    public void waiting(ExecutionEntity execution) {
+        Channel channel = channels.get(execution.getId());
+        if (channel != null) {
+            channel.send(new Event(EXECUTION_WAITING, execution));
+        }
+    }
+
+    public void close(ExecutionEntity execution) {
+        Channel channel = channels.remove(execution.getId());
+        if (channel != null) {
+            channel.finish(new Event(EXECUTION_FINISHED, execution));
+        }
+    }
+    
+    // 执行没有结束, 但之后不再由本实例推送事件 (已由其他实例接管): 订阅者改为读取执行记录
+    public void release(String executionId) {
+        Channel channel = channels.remove(executionId);
+        if (channel != null) {
+            channel.finish(new Event(RELEASED, null));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        sender.shutdownNow();
+    }
+    
+    private void watch(String executionId, SseEmitter emitter, Supplier<ExecutionEntity> currentState) {
+        ExecutionEntity execution = currentState.get();
+        if (!UNFINISHED.contains(execution.getStatus())) {
+            sendFinal(emitter, execution);
+            return;
+        }
+        if (trySend(emitter, new Event(EXECUTION_STATUS, execution))) {
+            new Watch(executionId, emitter, currentState, execution.getStatus()).start();
+        }
+    }
+
+    private static boolean trySend(SseEmitter emitter, Event event) {
+        try {
+            // SseEventBuilder 不能重复 build, 每次发送都重新构造
+            emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Execution event subscriber disconnected: {}", e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static void sendFinal(SseEmitter emitter, ExecutionEntity execution) {
+        try {
+            emitter.send(SseEmitter.event().name(EXECUTION_FINISHED).data(execution));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    // 锁内只修改历史和订阅者队列, 不做任何 IO
+    private class Channel {
+
+        private final String executionId;
+        private final Deque<Event> history = new ArrayDeque<>();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private boolean finished;
+
+        Channel(String executionId) {
+            this.executionId = executionId;
+        }
+
+        boolean attach(SseEmitter emitter, Supplier<ExecutionEntity> currentState) {
+            Subscriber subscriber = new Subscriber(this, emitter, currentState);
+            synchronized (this) {
+                if (finished) {
+                    return false;
+                }
+                subscribers.add(subscriber);
+                // 在锁内入队, 历史事件和之后的新事件不会乱序
+                subscriber.offer(List.copyOf(history), false);
+            }
+            emitter.onCompletion(() -> detach(subscriber));
+            emitter.onTimeout(() -> detach(subscriber));
+            return true;
+        }
+
+        synchronized void detach(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+        }
+
+        synchronized void send(Event event) {
+            if (finished) {
+                return;
+            }
+            history.addLast(event);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(List.of(event), false);
+            }
+        }
+
+        synchronized void finish(Event last) {
+            finished = true;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(List.of(last), true);
+            }
+            subscribers.clear();
+            history.clear();
+        }
+    }
+
+    // 每个订阅者同一时间最多一个发送任务, 保证事件按顺序送达
+    private class Subscriber {
+
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final Supplier<ExecutionEntity> currentState;
+        private final Deque<Event> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean overflowed;
+        private boolean closed;
+
+        Subscriber(Channel channel, SseEmitter emitter, Supplier<ExecutionEntity> currentState) {
+            this.channel = channel;
+            this.emitter = emitter;
+            this.currentState = currentState;
+        }
+
+        // 积压超过 historySize 时断开该订阅者 (结束事件除外), 客户端重连后从保留的历史事件开始
+        void offer(List<Event> events, boolean last) {
+            synchronized (this) {
+                if (events.isEmpty() || overflowed || closed) {
+                    return;
+                }
+                if (!last && queue.size() + events.size() > historySize) {
+                    overflowed = true;
+                    queue.clear();
+                } else {
+                    queue.addAll(events);
+                }
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                List<Event> batch;
+                boolean disconnect;
+                synchronized (this) {
+                    disconnect = overflowed;
+                    if (queue.isEmpty() && !disconnect) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(queue);
+                    queue.clear();
+                }
+                if (disconnect) {
+                    log.debug("Execution event subscriber is too slow, disconnecting");
+                    channel.detach(this);
+                    emitter.complete();
+                    return;
+                }
+                for (Event event : batch) {
+                    if (EXECUTION_FINISHED.equals(event.name())) {
+                        sendFinal(emitter, (ExecutionEntity) event.data());
+                        close();
+                        return;
+                    }
+                    if (RELEASED.equals(event.name())) {
+                        close();
+                        watch(channel.executionId, emitter, currentState);
+                        return;
+                    }
+                    if (!trySend(emitter, event)) {
+                        close();
+                        return;
+                    }
+                }
+            }
+        }
+
+        // 已结束或已断开: 之后的事件不再入队, 发送任务不再调度
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            channel.detach(this);
+        }
+    }
+    
+    // 定期读取不在本实例上运行的执行, 本实例开始运行它时改为订阅通道; 检查在发送线程上进行
+    private class Watch implements Runnable {
+        
+        private final String executionId;
+        private final SseEmitter emitter;
+        private final Supplier<ExecutionEntity> currentState;
+        private String lastStatus;
+        private ScheduledFuture<?> task;
+        private boolean stopped;
+        
+        Watch(String executionId, SseEmitter emitter, Supplier<ExecutionEntity> currentState, String status) {
+            this.executionId = executionId;
+            this.emitter = emitter;
+            this.currentState = currentState;
+            this.lastStatus = status;
+        }
+        
+        void start() {
+            emitter.onCompletion(this::stop);
+            emitter.onTimeout(this::stop);
+            emitter.onError(error -> stop());
+            ScheduledFuture<?> scheduled = poller.scheduleWithFixedDelay(() -> sender.execute(this),
+                pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+            synchronized (this) {
+                task = scheduled;
+                if (stopped) {
+                    task.cancel(false);
+                }
+            }
+        }
+        
+        synchronized void stop() {
+            stopped = true;
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+        
+        @Override
+        public synchronized void run() {
+            if (stopped) {
+                return;
+            }
+            try {
+                Channel channel = channels.get(executionId);
+                if (channel != null) {
+                    stop();
+                    if (!channel.attach(emitter, currentState)) {
+                        sendFinal(emitter, currentState.get());
+                    }
+                    return;
+                }
+                ExecutionEntity execution = currentState.get();
+                if (!UNFINISHED.contains(execution.getStatus())) {
+                    stop();
+                    sendFinal(emitter, execution);
+                } else if (!execution.getStatus().equals(lastStatus)) {
+                    lastStatus = execution.getStatus();
+                    if (!trySend(emitter, new Event(EXECUTION_STATUS, execution))) {
+                        stop();
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.debug("Failed to read execution {} for subscriber: {}", executionId, e.getMessage());
+                stop();
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private record Event(String name, Object data) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.CheckpointProperties;
+import com.alibaba.cloud.ai.workflow.config.DispatchProperties;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionInstanceEntity;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionInstanceRepository;
+import lombok.Getter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+// 本进程的实例标识。本实例启动或恢复的执行以它作为 owner, 实例定期在 execution_instances 表中写入心跳,
+// 其他实例只恢复 owner 心跳已超过 checkpoint.owner-timeout (或没有登记) 的执行
+@Component
+public class ExecutionInstance {
+    
+    private final ExecutionInstanceRepository instanceRepository;
+    private final CheckpointProperties properties;
+    @Getter
+    private final String id;
+    @Getter
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private LocalDateTime lastHeartbeat;
+    
+    public ExecutionInstance(ExecutionInstanceRepository instanceRepository, CheckpointProperties properties,
+                             DispatchProperties dispatchProperties) {
+        this.instanceRepository = instanceRepository;
+        this.properties = properties;
+        this.id = dispatchProperties.getInstanceId() != null && !dispatchProperties.getInstanceId().isBlank()
+            ? dispatchProperties.getInstanceId() : defaultId();
+    }
+    
+    // 启动完成后、worker 和恢复任务开始之前登记。不在 @PostConstruct 中写入, 以免 EntityManagerFactory
+    // 在上下文刷新期间提前初始化 (bootstrap-mode: deferred); 登记前开始的执行由 ExecutionRecovery 的开始时间条件保护
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void register() {
+        heartbeat();
+    }
+    
+    // 写入心跳。返回 true 表示距上次成功写入已超过 owner-timeout, 本实例的执行可能已被其他实例恢复
+    public synchronized boolean heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        ExecutionInstanceEntity instance = new ExecutionInstanceEntity();
+        instance.setId(id);
+        instance.setStartedAt(startedAt);
+        instance.setHeartbeatAt(now);
+        instanceRepository.save(instance);
+        LocalDateTime previous = lastHeartbeat;
+        lastHeartbeat = now;
+        return previous != null && previous.plus(properties.getOwnerTimeout()).isBefore(now);
+    }
+    
+    // owners 中心跳没有超时的实例
+    public Set<String> alive(Collection<String> owners) {
+        if (owners.isEmpty()) {
+            return Set.of();
+        }
+        LocalDateTime after = LocalDateTime.now().minus(properties.getOwnerTimeout());
+        return Set.copyOf(instanceRepository.findAliveIds(owners, after));
+    }
+    
+    // 没有登记的 owner 同样视为已停止, 删除心跳超时的行不影响判断
+    public int purgeStale() {
+        return instanceRepository.deleteStale(LocalDateTime.now().minus(properties.getOwnerTimeout()));
+    }
+    
+    private static String defaultId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
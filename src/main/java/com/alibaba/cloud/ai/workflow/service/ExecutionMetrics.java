@@ -0,0 +1,106 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+// 执行和节点级别的指标, 通过 /actuator/prometheus 暴露。
+// 节点指标包装在编译后的节点动作外层, 任何节点类型 (包括自定义节点) 都会被统计。
+@Component
+public class ExecutionMetrics {
+    
+    public static final String EXECUTION_TIMER = "workflow.execution";
+    public static final String EXECUTION_REJECTED = "workflow.execution.rejected";
+    public static final String EXECUTION_PARKED = "workflow.execution.parked";
+    public static final String NODE_TIMER = "workflow.node";
+    public static final String NODE_ERRORS = "workflow.node.errors";
+    
+    private final MeterRegistry registry;
+    
+    public ExecutionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    public Timer.Sample startExecution() {
+        return Timer.start(registry);
+    }
+    
+    public void executionFinished(Timer.Sample sample, String workflowId, String status) {
+        sample.stop(Timer.builder(EXECUTION_TIMER)
+            .description("Workflow execution latency")
+            .tag("workflowId", workflowId)
+            .tag("status", status)
+            .register(registry));
+    }
+    
+    // 暂停不是执行结束: 只计数, 恢复后的运行结束时才记录执行耗时
+    public void executionParked(String workflowId) {
+        Counter.builder(EXECUTION_PARKED)
+            .description("Executions paused by a long delay node")
+            .tag("workflowId", workflowId)
+            .register(registry)
+            .increment();
+    }
+    
+    public void executionRejected(String workflowId) {
+        Counter.builder(EXECUTION_REJECTED)
+            .description("Executions rejected by admission control")
+            .tag("workflowId", workflowId)
+            .register(registry)
+            .increment();
+    }
+    
+    // 计时器在编译时创建, 执行时只做记录
+    public AsyncNodeActionWithConfig instrument(WorkflowDefinition.NodeDefinition node,
+                                                AsyncNodeActionWithConfig action) {
+        String nodeType = node.getNodeType() != null ? node.getNodeType() : "unknown";
+        Timer success = nodeTimer(nodeType, "success");
+        Timer error = nodeTimer(nodeType, "error");
+        return (state, config) -> {
+            long startNanos = System.nanoTime();
+            CompletableFuture<Map<String, Object>> future;
+            try {
+                future = action.apply(state, config);
+            } catch (RuntimeException e) {
+                recordError(error, nodeType, e, startNanos);
+                throw e;
+            }
+            return future.whenComplete((result, failure) -> {
+                if (failure == null) {
+                    success.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                } else if (ExecutionService.parkedBy(failure) == null) {
+                    // 暂停不是节点失败
+                    recordError(error, nodeType, failure, startNanos);
+                }
+            });
+        };
+    }
+    
+    private Timer nodeTimer(String nodeType, String outcome) {
+        return Timer.builder(NODE_TIMER)
+            .description("Node execution latency")
+            .tag("nodeType", nodeType)
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+    
+    private void recordError(Timer timer, String nodeType, Throwable failure, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+            ? failure.getCause() : failure;
+        Counter.builder(NODE_ERRORS)
+            .description("Node failures by exception type")
+            .tag("nodeType", nodeType)
+            .tag("exception", cause.getClass().getSimpleName())
+            .register(registry)
+            .increment();
+    }
+}
@@ -0,0 +1,10 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+public class ExecutionNotRunningException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public ExecutionNotRunningException(String message) {
+        super(message);
+    }
+}
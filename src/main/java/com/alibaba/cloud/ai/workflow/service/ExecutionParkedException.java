@@ -0,0 +1,20 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+// 延迟/定时节点暂停了执行 (见 ExecutionParking), 执行在 resumeAt 从检查点恢复
+@Getter
+public class ExecutionParkedException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Instant resumeAt;
+    
+    public ExecutionParkedException(Instant resumeAt) {
+        // 不是错误, 不需要堆栈
+        super("Execution waiting until " + resumeAt, null, false, false);
+        this.resumeAt = resumeAt;
+    }
+}
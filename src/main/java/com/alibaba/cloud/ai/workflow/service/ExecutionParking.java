@@ -0,0 +1,62 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.checkpoint.ExecutionCheckpointSaver;
+import com.alibaba.cloud.ai.workflow.config.ExecutionProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 延迟/定时节点的长时间等待 (workflow.execution.park-threshold): 节点以 ExecutionParkedException 结束本次运行,
+// ExecutionService 记录 waiting 状态和恢复时间, 释放执行名额和线程, 到期后从检查点恢复。
+// 只有检查点正好从该节点开始时才暂停, 恢复时不会重复执行之前的节点
+@Component
+@RequiredArgsConstructor
+public class ExecutionParking {
+    
+    private final ExecutionProperties properties;
+    private final ExecutionCheckpointSaver checkpointSaver;
+    // 可以暂停的执行: 本实例上运行中的非批量执行
+    private final Set<String> parkable = ConcurrentHashMap.newKeySet();
+    // 从暂停恢复的执行: 等待中的节点 (没有检查点时为 null, 即第一个节点) 和原定的恢复时间
+    private final Map<String, Wait> resumed = new ConcurrentHashMap<>();
+    
+    void register(String executionId) {
+        parkable.add(executionId);
+    }
+    
+    void unregister(String executionId) {
+        parkable.remove(executionId);
+        resumed.remove(executionId);
+    }
+    
+    void resumeAt(String executionId, String nodeId, Instant resumeAt) {
+        resumed.put(executionId, new Wait(nodeId, resumeAt));
+    }
+    
+    // 节点本次需要等待的时间: 从暂停恢复的节点只等到原定的恢复时间
+    public Duration remaining(String executionId, String nodeId, Duration wait) {
+        Wait previous = executionId != null ? resumed.remove(executionId) : null;
+        if (previous != null && (previous.nodeId() == null || previous.nodeId().equals(nodeId))) {
+            Duration left = Duration.between(Instant.now(), previous.resumeAt());
+            return left.isNegative() ? Duration.ZERO : left;
+        }
+        return wait;
+    }
+    
+    // 等待不短于 park-threshold 且检查点从该节点开始 (必要时立即写入) 时返回 true
+    public boolean shouldPark(String executionId, String nodeId, Duration wait) {
+        Duration threshold = properties.getParkThreshold();
+        return executionId != null && threshold != null && !threshold.isZero()
+            && wait.compareTo(threshold) >= 0
+            && parkable.contains(executionId)
+            && checkpointSaver.saveBefore(executionId, nodeId);
+    }
+    
+    private record Wait(String nodeId, Instant resumeAt) {
+    }
+}
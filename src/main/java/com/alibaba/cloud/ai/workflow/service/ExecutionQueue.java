@@ -0,0 +1,141 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.DispatchProperties;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionQueueEntity;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionQueueRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// 数据库中的执行队列 (execution_queue 表)。入队时执行记录和队列行在同一个事务中同步写入,
+// 其他实例的 worker 领取后立即能读到输入; 领取使用 select ... for update skip locked 加租约,
+// worker 定期续租, 租约过期的行可以被其他 worker 重新领取。
+@Component
+public class ExecutionQueue {
+    
+    private final ExecutionQueueRepository queueRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final DispatchProperties properties;
+    // 本实例入队时唤醒等待中的 worker
+    private final Object signal = new Object();
+    
+    public ExecutionQueue(ExecutionQueueRepository queueRepository, EntityManager entityManager,
+                          PlatformTransactionManager transactionManager, DispatchProperties properties) {
+        this.queueRepository = queueRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+    
+    // 写入 queued 状态的执行记录和队列行, 分配 id 和开始时间
+    public ExecutionEntity enqueue(ExecutionEntity execution) {
+        execution.setId(UUID.randomUUID().toString());
+        execution.setStartedAt(LocalDateTime.now());
+        ExecutionQueueEntity item = new ExecutionQueueEntity();
+        item.setExecutionId(execution.getId());
+        item.setWorkflowId(execution.getWorkflowId());
+        item.setEnqueuedAt(execution.getStartedAt());
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.persist(ExecutionRecordWriter.copyOf(execution));
+            entityManager.persist(item);
+        });
+        signal();
+        return execution;
+    }
+    
+    // 领取最多 limit 条未被领取或租约已过期的执行, 按入队顺序。
+    // skip locked 让并发的 worker 选中不同的行, 每一行仍以条件更新领取, 不依赖数据库对 skip locked 的支持
+    List<ExecutionQueueEntity> claim(String owner, int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime leaseExpiresAt = now.plus(properties.getLeaseDuration());
+            List<ExecutionQueueEntity> claimed = new ArrayList<>();
+            for (ExecutionQueueEntity item : queueRepository.findClaimable(now, PageRequest.of(0, limit))) {
+                entityManager.detach(item);
+                if (queueRepository.claim(item.getExecutionId(), owner, leaseExpiresAt, now) == 0) {
+                    continue;
+                }
+                item.setOwner(owner);
+                item.setLeaseExpiresAt(leaseExpiresAt);
+                item.setAttempts(item.getAttempts() + 1);
+                claimed.add(item);
+            }
+            return claimed;
+        });
+    }
+    
+    // 返回仍由 owner 持有的条数
+    int renew(String owner, Collection<String> executionIds) {
+        return queueRepository.renew(owner, executionIds, LocalDateTime.now().plus(properties.getLeaseDuration()));
+    }
+    
+    // executionIds 中仍由 owner 持有租约的执行
+    Set<String> owned(String owner, Collection<String> executionIds) {
+        return Set.copyOf(queueRepository.findOwnedIds(owner, executionIds));
+    }
+    
+    boolean complete(String executionId, String owner) {
+        return queueRepository.deleteOwned(executionId, owner) > 0;
+    }
+    
+    void release(String executionId, String owner) {
+        queueRepository.release(executionId, owner);
+        signal();
+    }
+    
+    // 只能取消尚未被领取的执行, 已被领取的由执行所在的实例取消。
+    // 删除队列行和写入 cancelled 状态在同一个事务中, 不会留下既不在队列中也没有结束的执行
+    boolean cancelPending(ExecutionEntity cancelled) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (queueRepository.deletePending(cancelled.getId()) == 0) {
+                return false;
+            }
+            ExecutionEntity row = entityManager.find(ExecutionEntity.class, cancelled.getId());
+            if (row != null) {
+                ExecutionRecordWriter.copyInto(cancelled, row);
+            }
+            return true;
+        }));
+    }
+    
+    long pendingCount() {
+        return queueRepository.countClaimable(LocalDateTime.now());
+    }
+    
+    long size() {
+        return queueRepository.count();
+    }
+    
+    // 在队列中的执行由 worker 的租约负责, 启动时的恢复不应再处理
+    public Set<String> findQueued(Collection<String> executionIds) {
+        if (executionIds.isEmpty()) {
+            return Set.of();
+        }
+        return Set.copyOf(queueRepository.findQueuedIds(executionIds));
+    }
+    
+    // 没有新的入队通知时最多等待 timeout, 其他实例的入队只能靠轮询发现
+    void awaitWork(Duration timeout) throws InterruptedException {
+        synchronized (signal) {
+            signal.wait(Math.max(1, timeout.toMillis()));
+        }
+    }
+    
+    void signal() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+}
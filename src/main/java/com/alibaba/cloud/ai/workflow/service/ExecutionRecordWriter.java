@@ -0,0 +1,371 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.PersistenceProperties;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionTraceEntity;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionRepository;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionTraceRepository;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 执行记录的异步批量写入: 状态变更先写入内存缓冲区, 由单个后台线程按批次刷写到数据库。
+// 同一条记录在一个刷写周期内的多次变更会合并为一次 insert 或 update。执行结束时的节点耗时记录随最终状态在同一批次写入。
+// update 只修改数据库中仍存在且尚未结束的记录: 已归档、已删除或已由其他地方写入最终状态的记录不会被重新插入或覆盖。
+@Component
+@Slf4j
+public class ExecutionRecordWriter {
+    
+    static final Set<String> FINISHED = Set.of("completed", "failed",
+        ExecutionService.STATUS_CANCELLED, ExecutionService.STATUS_TIMED_OUT);
+    
+    private final ExecutionRepository executionRepository;
+    private final ExecutionTraceRepository traceRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final PersistenceProperties properties;
+    private final ExecutionInstance executionInstance;
+    private final ScheduledExecutorService flusher;
+    private final Timer flushSuccess;
+    private final Timer flushFailure;
+    private final DistributionSummary batchSizes;
+    
+    // 尚未刷写的最新状态
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+    // 正在刷写 (事务尚未提交) 的状态, 保证刷写期间读取仍能看到最新值
+    private final Map<String, PendingWrite> flushing = new ConcurrentHashMap<>();
+    // whenFlushed 返回的 future, 记录不再有缓冲的状态时完成
+    private final Map<String, CompletableFuture<Void>> flushWaiters = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+    
+    public ExecutionRecordWriter(ExecutionRepository executionRepository,
+                                 ExecutionTraceRepository traceRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 PersistenceProperties properties,
+                                 ExecutionInstance executionInstance,
+                                 MeterRegistry registry) {
+        this.executionRepository = executionRepository;
+        this.traceRepository = traceRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.executionInstance = executionInstance;
+        this.flushSuccess = flushTimer(registry, "success");
+        this.flushFailure = flushTimer(registry, "error");
+        this.batchSizes = DistributionSummary.builder("workflow.persistence.batch.size")
+            .description("Execution records written per batch")
+            .register(registry);
+        Gauge.builder("workflow.persistence.pending", pending, Map::size)
+            .description("Execution records waiting to be flushed")
+            .register(registry);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+            new ExecutionEngine.NamedThreadFactory("execution-writer-"));
+        long interval = properties.getFlushInterval().toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    // 记录一次新的执行, 分配 id 和开始时间, 由本实例负责
+    public ExecutionEntity create(ExecutionEntity execution) {
+        execution.setId(UUID.randomUUID().toString());
+        execution.setStartedAt(LocalDateTime.now());
+        execution.setOwner(executionInstance.getId());
+        enqueue(new PendingWrite(copyOf(execution), true, null, 0));
+        return execution;
+    }
+    
+    // 记录状态变更, execution 必须是完整的最新状态
+    public void update(ExecutionEntity execution) {
+        update(execution, null);
+    }
+    
+    // 记录执行的最终状态和节点耗时, trace 为 null 时只更新执行记录
+    public void update(ExecutionEntity execution, ExecutionTraceEntity trace) {
+        enqueue(new PendingWrite(copyOf(execution), false, trace, 0));
+    }
+    
+    // 读取尚未落库的最新状态
+    public Optional<ExecutionEntity> find(String executionId) {
+        PendingWrite write = pending.get(executionId);
+        if (write == null) {
+            write = flushing.get(executionId);
+        }
+        return Optional.ofNullable(write).map(w -> copyOf(w.entity()));
+    }
+    
+    public Optional<ExecutionTraceEntity> findTrace(String executionId) {
+        PendingWrite write = pending.get(executionId);
+        if (write == null || write.trace() == null) {
+            write = flushing.get(executionId);
+        }
+        return Optional.ofNullable(write).map(PendingWrite::trace);
+    }
+    
+    public int pendingCount() {
+        return pending.size();
+    }
+    
+    // 调用时缓冲中的状态全部落库后完成, 没有缓冲的状态时立即完成;
+    // 记录多次写入失败被丢弃时以异常完成。future 在刷写线程上完成, 回调不应阻塞
+    public CompletableFuture<Void> whenFlushed(String executionId) {
+        CompletableFuture<Void> waiter = flushWaiters.computeIfAbsent(executionId, id -> new CompletableFuture<>());
+        // 登记之后再检查, 与刷写线程的 notifyFlushed 之间不会漏掉通知
+        notifyFlushed(executionId);
+        return waiter;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+    
+    private void enqueue(PendingWrite write) {
+        // 与未刷写的 insert 合并时保留 insert 标记, 后续的状态变更不带耗时记录时保留之前的
+        pending.merge(write.entity().getId(), write,
+            (previous, latest) -> new PendingWrite(latest.entity(), previous.insert(), latest.traceOr(previous), 0));
+        if (closed) {
+            flush();
+        } else if (pending.size() >= properties.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush execution records", e);
+        }
+    }
+    
+    synchronized void flush() {
+        flushRequested.set(false);
+        while (!pending.isEmpty()) {
+            List<PendingWrite> batch = drain(properties.getBatchSize());
+            if (batch.isEmpty()) {
+                return;
+            }
+            long startNanos = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+                flushSuccess.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+                batch.forEach(w -> flushing.remove(w.entity().getId(), w));
+                batch.forEach(w -> notifyFlushed(w.entity().getId()));
+                log.debug("Flushed {} execution records", batch.size());
+            } catch (Exception e) {
+                flushFailure.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                if (batch.size() == 1) {
+                    log.error("Failed to write execution record {}, will retry", batch.get(0).entity().getId(), e);
+                    requeue(batch);
+                    return;
+                }
+                // 一条无法写入的记录 (约束冲突、字段超长) 会使整批回滚, 逐条重写后只有失败的记录计入重试次数
+                log.warn("Failed to write {} execution records as a batch, retrying one by one: {}",
+                    batch.size(), e.getMessage());
+                if (!writeEach(batch)) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    // 每条记录一个事务, 失败的放回缓冲区; 全部成功时返回 true
+    private boolean writeEach(List<PendingWrite> batch) {
+        List<PendingWrite> failed = new ArrayList<>();
+        for (PendingWrite write : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(List.of(write)));
+                flushing.remove(write.entity().getId(), write);
+                notifyFlushed(write.entity().getId());
+            } catch (Exception e) {
+                log.error("Failed to write execution record {}, will retry", write.entity().getId(), e);
+                failed.add(write);
+            }
+        }
+        batchSizes.record(batch.size() - failed.size());
+        requeue(failed);
+        return failed.isEmpty();
+    }
+    
+    private List<PendingWrite> drain(int limit) {
+        List<PendingWrite> batch = new ArrayList<>(Math.min(limit, pending.size()));
+        for (String executionId : pending.keySet()) {
+            if (batch.size() >= limit) {
+                break;
+            }
+            PendingWrite write = pending.get(executionId);
+            if (write == null) {
+                continue;
+            }
+            // 先登记到 flushing 再从 pending 移除, find 在任何时刻都能找到未提交的记录
+            flushing.put(executionId, write);
+            if (pending.remove(executionId, write)) {
+                batch.add(write);
+            } else {
+                // 期间被新的状态合并, 留到下一批写入
+                flushing.remove(executionId, write);
+            }
+        }
+        return batch;
+    }
+    
+    private void write(List<PendingWrite> batch) {
+        // 先一次性加载待更新的记录, 在加载的实体上修改, 由 version 检查期间的并发修改
+        List<String> updateIds = batch.stream()
+            .filter(w -> !w.insert())
+            .map(w -> w.entity().getId())
+            .toList();
+        Map<String, ExecutionEntity> rows = updateIds.isEmpty() ? Map.of()
+            : executionRepository.findAllById(updateIds).stream()
+                .collect(Collectors.toMap(ExecutionEntity::getId, Function.identity()));
+        List<PendingWrite> written = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            if (write.insert()) {
+                entityManager.persist(copyOf(write.entity()));
+                written.add(write);
+                continue;
+            }
+            ExecutionEntity row = rows.get(write.entity().getId());
+            if (row == null || FINISHED.contains(row.getStatus())) {
+                log.debug("Skipping update of execution {}: record is {}", write.entity().getId(),
+                    row == null ? "missing" : row.getStatus());
+                continue;
+            }
+            copyInto(write.entity(), row);
+            written.add(write);
+        }
+        // 重新执行 (恢复或重新领取) 的执行可能已有耗时记录, 先加载再 merge
+        List<String> traceIds = written.stream()
+            .filter(w -> w.trace() != null)
+            .map(w -> w.entity().getId())
+            .toList();
+        if (!traceIds.isEmpty()) {
+            traceRepository.findAllById(traceIds);
+            written.stream().filter(w -> w.trace() != null).forEach(w -> entityManager.merge(w.trace()));
+        }
+        // insert/update 由 hibernate.jdbc.batch_size 和 order_inserts/order_updates 合并为 JDBC 批量语句
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    private void requeue(List<PendingWrite> batch) {
+        for (PendingWrite write : batch) {
+            String executionId = write.entity().getId();
+            flushing.remove(executionId, write);
+            if (write.attempts() + 1 >= properties.getMaxAttempts()) {
+                log.error("Dropping execution record {} after {} failed attempts", executionId, write.attempts() + 1);
+                notifyDropped(executionId);
+                continue;
+            }
+            PendingWrite retry = new PendingWrite(write.entity(), write.insert(), write.trace(), write.attempts() + 1);
+            // 如果期间又有新的状态, 以新状态为准, 但保留 insert 标记
+            pending.merge(executionId, retry, (latest, failed) -> new PendingWrite(latest.entity(),
+                failed.insert() || latest.insert(), latest.traceOr(failed), failed.attempts()));
+        }
+    }
+    
+    private void notifyFlushed(String executionId) {
+        if (pending.containsKey(executionId) || flushing.containsKey(executionId)) {
+            return;
+        }
+        CompletableFuture<Void> waiter = flushWaiters.remove(executionId);
+        if (waiter != null) {
+            complete(waiter, null);
+        }
+    }
+    
+    // 期间又有新的状态缓冲时不算丢弃, 等新状态落库
+    private void notifyDropped(String executionId) {
+        if (pending.containsKey(executionId) || flushing.containsKey(executionId)) {
+            return;
+        }
+        CompletableFuture<Void> waiter = flushWaiters.remove(executionId);
+        if (waiter != null) {
+            complete(waiter, new IllegalStateException("Execution record " + executionId + " was dropped"));
+        }
+    }
+    
+    // 回调中的异常不能中断刷写
+    private static void complete(CompletableFuture<Void> waiter, Exception error) {
+        try {
+            if (error == null) {
+                waiter.complete(null);
+            } else {
+                waiter.completeExceptionally(error);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Execution record flush callback failed", e);
+        }
+    }
+    
+    private static Timer flushTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("workflow.persistence.flush")
+            .description("Execution record batch write latency")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+    
+    // 不复制 version, 复制出的记录只用于 insert 或 copyInto
+    public static ExecutionEntity copyOf(ExecutionEntity source) {
+        ExecutionEntity copy = new ExecutionEntity();
+        copy.setId(source.getId());
+        copy.setStartedAt(source.getStartedAt());
+        copyInto(source, copy);
+        return copy;
+    }
+    
+    // 把 source 的状态写到已加载的记录上 (id 和 startedAt 不变)
+    public static void copyInto(ExecutionEntity source, ExecutionEntity target) {
+        target.setWorkflowId(source.getWorkflowId());
+        target.setBatchId(source.getBatchId());
+        target.setInputs(source.getInputs());
+        target.setOutputs(source.getOutputs());
+        target.setInputsData(source.getInputsData());
+        target.setOutputsData(source.getOutputsData());
+        target.setStatus(source.getStatus());
+        target.setErrorMessage(source.getErrorMessage());
+        target.setCompletedAt(source.getCompletedAt());
+        target.setDuration(source.getDuration());
+        target.setOwner(source.getOwner());
+        target.setResumeAt(source.getResumeAt());
+    }
+    
+    private record PendingWrite(ExecutionEntity entity, boolean insert, ExecutionTraceEntity trace, int attempts) {
+        
+        ExecutionTraceEntity traceOr(PendingWrite other) {
+            return trace != null ? trace : other.trace();
+        }
+    }
+}
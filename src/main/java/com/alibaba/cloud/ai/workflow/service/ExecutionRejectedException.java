@@ -0,0 +1,10 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+public class ExecutionRejectedException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public ExecutionRejectedException(String message) {
+        super(message);
+    }
+}
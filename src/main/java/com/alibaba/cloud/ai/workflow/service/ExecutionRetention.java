@@ -0,0 +1,200 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.RetentionProperties;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionTraceEntity;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.repository.ArchivedExecutionRepository;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionRepository;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionTraceRepository;
+import com.alibaba.cloud.ai.workflow.storage.ExecutionPayloads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 定期把超过保留时间的已结束执行 (连同节点耗时记录) 从 executions 表移入 execution_archive,
+// 每个事务只移动 batch-size 条, 行锁在事务结束时释放; 多个实例同时运行时跳过彼此锁定的行。
+// 归档后的执行仍可通过 ExecutionService 按 id 和执行历史查询。
+@Component
+@Slf4j
+public class ExecutionRetention {
+    
+    static final String KEY = "retention";
+    
+    private final RetentionProperties properties;
+    private final ExecutionRepository executionRepository;
+    private final ArchivedExecutionRepository archivedRepository;
+    private final ExecutionTraceRepository traceRepository;
+    private final ExecutionRecordWriter executionRecordWriter;
+    private final WorkflowService workflowService;
+    private final ExecutionPayloads executionPayloads;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archivedCounter;
+    private final Counter purgedCounter;
+    private ScheduledExecutorService scheduler;
+    
+    public ExecutionRetention(RetentionProperties properties, ExecutionRepository executionRepository,
+                              ArchivedExecutionRepository archivedRepository, ExecutionTraceRepository traceRepository,
+                              ExecutionRecordWriter executionRecordWriter, WorkflowService workflowService,
+                              ExecutionPayloads executionPayloads, EntityManager entityManager,
+                              PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.properties = properties;
+        this.executionRepository = executionRepository;
+        this.archivedRepository = archivedRepository;
+        this.traceRepository = traceRepository;
+        this.executionRecordWriter = executionRecordWriter;
+        this.workflowService = workflowService;
+        this.executionPayloads = executionPayloads;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivedCounter = Counter.builder("workflow.retention.archived")
+            .description("Executions moved to the archive table")
+            .register(registry);
+        this.purgedCounter = Counter.builder("workflow.retention.purged")
+            .description("Archived executions deleted after archive-ttl")
+            .register(registry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!properties.isEnabled() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ExecutionEngine.NamedThreadFactory("execution-retention-"));
+        scheduler.scheduleWithFixedDelay(this::runQuietly, 0, properties.getInterval().toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    private void runQuietly() {
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("Execution retention run failed", e);
+        }
+    }
+    
+    public void run() {
+        LocalDateTime now = LocalDateTime.now();
+        long archived = 0;
+        for (String workflowId : executionRepository.findWorkflowIds()) {
+            Duration ttl = retentionOf(workflowId);
+            if (ttl.isZero()) {
+                continue;
+            }
+            LocalDateTime before = now.minus(ttl);
+            int moved;
+            do {
+                moved = archiveBatch(workflowId, before);
+                archived += moved;
+            } while (moved >= properties.getBatchSize() && !Thread.currentThread().isInterrupted());
+        }
+        long purged = properties.getArchiveTtl().isZero() ? 0 : purge(now.minus(properties.getArchiveTtl()));
+        if (archived > 0 || purged > 0) {
+            log.info("Execution retention: archived {}, purged {} archived executions", archived, purged);
+        }
+    }
+    
+    // 移动一批执行, 返回移动的条数 (小于 batch-size 时该工作流已处理完)
+    private int archiveBatch(String workflowId, LocalDateTime before) {
+        Integer moved = transactionTemplate.execute(status -> {
+            // 最终状态还没落库的留到下一次
+            List<ExecutionEntity> executions = executionRepository.findArchivable(workflowId, ExecutionRecordWriter.FINISHED, before,
+                    PageRequest.of(0, properties.getBatchSize())).stream()
+                .filter(execution -> executionRecordWriter.find(execution.getId()).isEmpty())
+                .toList();
+            if (executions.isEmpty()) {
+                return 0;
+            }
+            List<String> ids = executions.stream().map(ExecutionEntity::getId).toList();
+            Map<String, ExecutionTraceEntity> traces = traceRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ExecutionTraceEntity::getExecutionId, Function.identity()));
+            for (ExecutionEntity execution : executions) {
+                entityManager.persist(executionPayloads.archive(execution, traces.get(execution.getId())));
+            }
+            traceRepository.deleteAllByIdInBatch(traces.keySet());
+            executionRepository.deleteAllByIdInBatch(ids);
+            return executions.size();
+        });
+        archivedCounter.increment(moved != null ? moved : 0);
+        return moved != null ? moved : 0;
+    }
+    
+    private long purge(LocalDateTime before) {
+        long purged = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<String> ids = archivedRepository.findIdsStartedBefore(before,
+                    PageRequest.of(0, properties.getBatchSize()));
+                archivedRepository.deleteAllByIdInBatch(ids);
+                return ids.size();
+            });
+            if (deleted == null || deleted == 0) {
+                break;
+            }
+            purged += deleted;
+            purgedCounter.increment(deleted);
+        }
+        return purged;
+    }
+    
+    // 工作流已删除或配置无效时使用默认值
+    private Duration retentionOf(String workflowId) {
+        try {
+            Duration retention = workflowRetention(workflowService.getWorkflow(workflowId));
+            return retention != null ? retention : properties.getTtl();
+        } catch (RuntimeException e) {
+            log.debug("Using default retention for workflow {}: {}", workflowId, e.getMessage());
+            return properties.getTtl();
+        }
+    }
+    
+    // 工作流 metadata.retention, 格式与 timeout 相同 ("30d", "PT12H"), 数字按毫秒计, 0 表示不归档。未配置时返回 null
+    static Duration workflowRetention(WorkflowDefinition definition) {
+        Map<String, Object> metadata = definition.getMetadata();
+        Object value = metadata != null ? metadata.get(KEY) : null;
+        if (value == null || "".equals(value)) {
+            return null;
+        }
+        Duration retention;
+        try {
+            retention = value instanceof Number number
+                ? Duration.ofMillis(number.longValue())
+                : DurationStyle.detectAndParse(value.toString().trim(), ChronoUnit.MILLIS);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid retention '" + value + "': " + e.getMessage(), e);
+        }
+        if (retention.isNegative()) {
+            throw new IllegalArgumentException("Retention must not be negative: " + value);
+        }
+        return retention;
+    }
+}
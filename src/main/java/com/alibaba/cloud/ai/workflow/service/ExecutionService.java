@@ -1,234 +1,719 @@
 package com.alibaba.cloud.ai.workflow.service;
 
 import com.alibaba.cloud.ai.graph.*;
-import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.checkpoint.ExecutionCheckpointSaver;
+import com.alibaba.cloud.ai.workflow.checkpoint.StoredCheckpoint;
+import com.alibaba.cloud.ai.workflow.config.DispatchProperties;
+import com.alibaba.cloud.ai.workflow.config.ExecutionProperties;
+import com.alibaba.cloud.ai.workflow.config.GraphCacheProperties;
 import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionTraceEntity;
+import com.alibaba.cloud.ai.workflow.model.ExecutionSummary;
+import com.alibaba.cloud.ai.workflow.model.ExecutionTrace;
+import com.alibaba.cloud.ai.workflow.model.KeysetPage;
 import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.node.NodeExecutorRegistry;
+import com.alibaba.cloud.ai.workflow.node.NodeInfo;
+import com.alibaba.cloud.ai.workflow.repository.ArchivedExecutionRepository;
 import com.alibaba.cloud.ai.workflow.repository.ExecutionRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionTraceRepository;
+import com.alibaba.cloud.ai.workflow.storage.ExecutionPayloads;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ExecutionService {
     
+    public static final String STATUS_CANCELLED = "cancelled";
+    public static final String STATUS_TIMED_OUT = "timed_out";
+    // 延迟节点暂停的执行, 到 resumeAt 时从检查点恢复 (ExecutionParking)
+    public static final String STATUS_WAITING = "waiting";
+    // 队列租约或执行被其他 worker / 实例接管后停止本实例上的执行, 不是执行记录的状态
+    static final String LEASE_LOST = "lease_lost";
+    
+    // 取消请求等待执行结束的最长时间, 节点不响应中断时返回的记录可能仍是 running
+    private static final Duration CANCEL_WAIT = Duration.ofSeconds(5);
+    // 暂停的执行到期时名额已满, 稍后重试恢复
+    private static final Duration PARK_RETRY = Duration.ofSeconds(1);
+    
     private final WorkflowService workflowService;
     private final ExecutionRepository executionRepository;
-    private final ObjectMapper objectMapper;
-    private final Map<String, CompiledGraph> graphCache = new ConcurrentHashMap<>();
+    private final ExecutionRecordWriter executionRecordWriter;
+    private final ExecutionEventPublisher executionEventPublisher;
+    private final ExecutionPayloads executionPayloads;
+    private final ExecutionEngine executionEngine;
+    private final ExecutionParking executionParking;
+    private final CompiledGraphCache graphCache;
+    private final WorkflowGraphCompiler graphCompiler;
+    private final GraphCacheProperties graphCacheProperties;
+    private final ExecutionMetrics executionMetrics;
+    private final NodeExecutorRegistry nodeExecutorRegistry;
+    private final ExecutionCheckpointSaver checkpointSaver;
+    private final NodeResultCache nodeResultCache;
+    private final ExecutionProperties executionProperties;
+    private final DispatchProperties dispatchProperties;
+    private final ExecutionQueue executionQueue;
+    private final ExecutionTraceRepository traceRepository;
+    private final ArchivedExecutionRepository archivedExecutionRepository;
+    private final ExecutionInstance executionInstance;
+    // 本实例上已提交、尚未结束的执行
+    private final Map<String, RunningExecution> runningExecutions = new ConcurrentHashMap<>();
+    // 本实例上暂停等待恢复的执行及其恢复定时器
+    private final Map<String, ScheduledFuture<?>> parkedExecutions = new ConcurrentHashMap<>();
     
     public ExecutionEntity executeWorkflow(String workflowId, Map<String, Object> inputs) {
+        if (dispatchProperties.getMode() == DispatchProperties.Mode.QUEUE) {
+            return enqueueExecution(workflowId, inputs);
+        }
+        // 先申请执行名额, 被拒绝时不写入执行记录
+        ExecutionEngine.Permit permit = executionEngine.acquire(workflowId);
+        
         ExecutionEntity execution = new ExecutionEntity();
         execution.setWorkflowId(workflowId);
         execution.setStatus("running");
         
         try {
-            execution.setInputs(objectMapper.writeValueAsString(inputs));
-            execution = executionRepository.save(execution);
-            
-            // 获取工作流定义
-            WorkflowDefinition definition = workflowService.getWorkflow(workflowId);
+            executionPayloads.writeInputs(execution, inputs);
+            execution = executionRecordWriter.create(execution);
             
-            // 编译图
-            CompiledGraph compiledGraph = getOrCompileGraph(workflowId, definition);
+            // 编译图 (按工作流版本缓存, 未命中时才加载定义)
+            String version = workflowService.getWorkflowVersion(workflowId);
+            CompiledWorkflow compiledWorkflow = getOrCompileGraph(workflowId, version);
             
             // 创建初始状态
-            OverAllState initialState = OverAllStateBuilder.builder()
-                .withData(inputs != null ? inputs : new HashMap<>())
-                .build();
+            OverAllState initialState = compiledWorkflow.initialState(inputs != null ? inputs : new HashMap<>());
             
             // 执行工作流
-            String executionId = execution.getId();
-            LocalDateTime startTime = LocalDateTime.now();
+            checkpointSaver.track(execution.getId(), workflowId, version);
+            run(permit, execution, compiledWorkflow, initialState, LocalDateTime.now(), true);
             
-            // 异步执行工作流
-            CompletableFuture.supplyAsync(() -> {
-                try {
-                    return compiledGraph.invoke(initialState, RunnableConfig.builder().build());
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }).thenAccept(optionalState -> {
-                if (optionalState.isPresent()) {
-                    updateExecutionSuccess(executionId, optionalState.get(), startTime);
-                } else {
-                    updateExecutionError(executionId, new RuntimeException("Execution returned empty result"), startTime);
-                }
-            }).exceptionally(error -> {
-                updateExecutionError(executionId, error, startTime);
-                return null;
-            });
-            
-            return execution;
+            return executionPayloads.materialize(execution);
             
+        } catch (ExecutionRejectedException e) {
+            log.warn("Execution rejected for workflow {}: {}", workflowId, e.getMessage());
+            saveFailedExecution(execution, e);
+            throw e;
         } catch (Exception e) {
+            permit.release();
             log.error("Failed to execute workflow", e);
-            execution.setStatus("failed");
-            execution.setErrorMessage(e.getMessage());
-            executionRepository.save(execution);
+            saveFailedExecution(execution, e);
             throw new RuntimeException("Failed to execute workflow", e);
         }
     }
     
-    private CompiledGraph getOrCompileGraph(String workflowId, WorkflowDefinition definition) {
-        return graphCache.computeIfAbsent(workflowId, id -> {
-            try {
-                // 使用默认的 KeyStrategy
-                StateGraph graph = new StateGraph();
-                
-                // 添加节点
-                for (WorkflowDefinition.NodeDefinition node : definition.getNodes()) {
-                    AsyncNodeAction action = createNodeAction(node);
-                    graph.addNode(node.getId(), action);
-                }
-                
-                // 添加边
-                for (WorkflowDefinition.EdgeDefinition edge : definition.getEdges()) {
-                    // 处理特殊的开始和结束节点
-                    String source = edge.getSource();
-                    String target = edge.getTarget();
-                    
-                    if ("start".equals(source)) {
-                        source = StateGraph.START;
-                    }
-                    if ("end".equals(target)) {
-                        target = StateGraph.END;
-                    }
-                    
-                    graph.addEdge(source, target);
+    // 只写入执行队列, 由某个实例的 ExecutionDispatcher 领取执行。工作流不存在时直接失败
+    private ExecutionEntity enqueueExecution(String workflowId, Map<String, Object> inputs) {
+        workflowService.getWorkflowVersion(workflowId);
+        ExecutionEntity execution = new ExecutionEntity();
+        execution.setWorkflowId(workflowId);
+        execution.setStatus("queued");
+        executionPayloads.writeInputs(execution, inputs);
+        executionQueue.enqueue(execution);
+        log.debug("Execution {} queued for workflow {}", execution.getId(), workflowId);
+        return executionPayloads.materialize(execution);
+    }
+    
+    // 恢复上次运行时中断的执行: 有检查点时从检查点之后的节点继续, 否则用原始输入从头执行。
+    // 最后一个检查点之后已经执行过的节点会再执行一次。也用于启动队列中领取到的执行。
+    // 名额不足时抛出 ExecutionRejectedException, 其他错误记录为执行失败; 返回的 future 以最终的执行记录完成
+    public CompletableFuture<ExecutionEntity> resumeExecution(ExecutionEntity execution) {
+        String workflowId = execution.getWorkflowId();
+        ExecutionEngine.Permit permit = executionEngine.acquire(workflowId);
+        String previousStatus = execution.getStatus();
+        LocalDateTime previousResumeAt = execution.getResumeAt();
+        try {
+            String version = workflowService.getWorkflowVersion(workflowId);
+            CompiledWorkflow compiledWorkflow = getOrCompileGraph(workflowId, version);
+            Optional<StoredCheckpoint> checkpoint = checkpointSaver.load(execution.getId());
+            OverAllState initialState;
+            if (checkpoint.isPresent()) {
+                // 节点 id 可能已经变化, 不能从旧版本的检查点继续; 执行记为失败, 检查点不会再被使用
+                if (!version.equals(checkpoint.get().workflowVersion())) {
+                    checkpointSaver.discard(execution.getId());
+                    throw new IllegalStateException("Workflow was modified after the checkpoint was saved");
                 }
-                
-                // 如果没有明确的开始边，添加默认的
-                boolean hasStartEdge = definition.getEdges().stream()
-                    .anyMatch(e -> "start".equals(e.getSource()));
-                if (!hasStartEdge && !definition.getNodes().isEmpty()) {
-                    graph.addEdge(StateGraph.START, definition.getNodes().get(0).getId());
+                initialState = compiledWorkflow.initialState(checkpointSaver.prepareResume(checkpoint.get()));
+                initialState.withResume();
+                log.info("Resuming execution {} after node {}", execution.getId(), checkpoint.get().nodeId());
+            } else {
+                initialState = compiledWorkflow.initialState(executionPayloads.readInputs(execution));
+                checkpointSaver.track(execution.getId(), workflowId, version);
+                if ("queued".equals(execution.getStatus())) {
+                    log.debug("Starting queued execution {}", execution.getId());
+                } else {
+                    log.info("Restarting execution {} from the beginning, no checkpoint found", execution.getId());
                 }
-                
-                // 如果没有明确的结束边，添加默认的
-                boolean hasEndEdge = definition.getEdges().stream()
-                    .anyMatch(e -> "end".equals(e.getTarget()));
-                if (!hasEndEdge && !definition.getNodes().isEmpty()) {
-                    String lastNodeId = definition.getNodes().get(definition.getNodes().size() - 1).getId();
-                    graph.addEdge(lastNodeId, StateGraph.END);
+            }
+            if (previousResumeAt != null) {
+                // 暂停的延迟节点只等待剩余的时间
+                executionParking.resumeAt(execution.getId(), checkpoint.map(StoredCheckpoint::nextNodeId).orElse(null),
+                    previousResumeAt.atZone(ZoneId.systemDefault()).toInstant());
+                execution.setResumeAt(null);
+            }
+            markRunning(execution);
+            return run(permit, execution, compiledWorkflow, initialState, execution.getStartedAt(), true);
+        } catch (ExecutionRejectedException e) {
+            permit.release();
+            executionParking.unregister(execution.getId());
+            execution.setResumeAt(previousResumeAt);
+            restoreStatus(execution, previousStatus);
+            throw e;
+        } catch (Exception e) {
+            permit.release();
+            executionParking.unregister(execution.getId());
+            log.error("Failed to resume execution {}", execution.getId(), e);
+            saveFailedExecution(execution, e);
+            return CompletableFuture.completedFuture(execution);
+        }
+    }
+    
+    // 在专用执行器上异步执行工作流, threadId 用于节点内识别所属的执行。
+    // 返回的 future 以最终的执行记录 (completed 或 failed) 完成
+    private CompletableFuture<ExecutionEntity> run(ExecutionEngine.Permit permit, ExecutionEntity started,
+                                                   CompiledWorkflow compiledWorkflow, OverAllState initialState,
+                                                   LocalDateTime startTime, boolean publishEvents) {
+        Timer.Sample sample = executionMetrics.startExecution();
+        if (publishEvents) {
+            executionEventPublisher.open(started.getId());
+        }
+        
+        RunningExecution running = new RunningExecution();
+        runningExecutions.put(started.getId(), running);
+        if (publishEvents && checkpointSaver.isEnabled()) {
+            executionParking.register(started.getId());
+        }
+        Duration timeout = compiledWorkflow.timeout() != null
+            ? compiledWorkflow.timeout() : executionProperties.getDefaultTimeout();
+        if (timeout != null && !timeout.isZero() && !timeout.isNegative()) {
+            running.setTimeout(executionEngine.deadline(timeout, () -> running.cancel(STATUS_TIMED_OUT,
+                "Execution timed out after " + timeout.toMillis() + "ms")));
+        }
+        
+        RunnableConfig config = compiledWorkflow.runnableConfig(started.getId(), executionEngine.branchExecutor());
+        CompletableFuture<ExecutionEntity> result;
+        try {
+            result = executionEngine.submit(permit, () -> running.runOnWorker(() -> {
+                try {
+                    return compiledWorkflow.graph().invoke(initialState, config);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
                 }
-                
-                return graph.compile();
-            } catch (Exception e) {
-                log.error("Failed to compile graph", e);
-                throw new RuntimeException("Failed to compile graph", e);
+            })).thenApply(optionalState -> optionalState.isPresent()
+                ? updateExecutionSuccess(started, optionalState.get(), startTime, sample, running)
+                : updateExecutionError(started, new RuntimeException("Execution returned empty result"), startTime,
+                    sample, running)
+            ).exceptionally(error -> updateExecutionError(started,
+                // 取消/超时导致的各种异常 (节点失败、线程中断) 统一按取消原因记录
+                running.cancellation() != null ? running.cancellation() : error, startTime, sample, running));
+        } catch (RuntimeException e) {
+            runningExecutions.remove(started.getId(), running);
+            executionParking.unregister(started.getId());
+            running.close();
+            throw e;
+        }
+        running.setResult(result);
+        return result.whenComplete((execution, error) -> {
+            if (runningExecutions.remove(started.getId(), running)) {
+                executionParking.unregister(started.getId());
             }
+            running.close();
         });
     }
     
-    private AsyncNodeAction createNodeAction(WorkflowDefinition.NodeDefinition node) {
-        return (state) -> {
-            String nodeType = node.getNodeType();
-            log.info("Executing node: {} ({})", node.getId(), nodeType);
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("nodeId", node.getId());
-            result.put("nodeType", nodeType);
-            result.put("nodeLabel", getNodeLabel(node));
-            
-            // 根据节点类型执行不同的逻辑
-            switch (nodeType) {
-                case "input":
-                    result.put("message", "Input node executed");
-                    break;
-                    
-                case "process":
-                    // 模拟处理逻辑
-                    Object input = state.value("input").orElse("default");
-                    result.put("processed", "Processed: " + input);
-                    result.put("timestamp", System.currentTimeMillis());
-                    break;
-                    
-                case "output":
-                    result.put("message", "Output node executed");
-                    result.put("finalResult", state.data());
-                    break;
-                    
-                case "delay":
-                    // 模拟延迟
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                    result.put("message", "Delay completed");
-                    break;
-                    
-                default:
-                    result.put("message", "Custom node executed: " + nodeType);
-                    if (node.getData() != null) {
-                        result.putAll(node.getData());
-                    }
-                    break;
+    // 取消本实例上执行中或暂停等待恢复的工作流, 以及队列中尚未被领取的执行, 返回结束后的执行记录
+    public ExecutionEntity cancelExecution(String executionId) {
+        RunningExecution running = runningExecutions.get(executionId);
+        if (running == null) {
+            ExecutionEntity execution = getExecution(executionId);
+            // 还在队列中等待领取的执行直接结束
+            if ("queued".equals(execution.getStatus())) {
+                ExecutionEntity cancelled = cancelledCopy(execution);
+                if (executionQueue.cancelPending(cancelled)) {
+                    log.info("Cancelled queued execution {}", executionId);
+                    return executionPayloads.materialize(cancelled);
+                }
             }
-            
-            return CompletableFuture.completedFuture(result);
-        };
+            // 本实例上暂停的执行: 恢复定时器还没触发时直接结束
+            ScheduledFuture<?> parked = parkedExecutions.get(executionId);
+            if (STATUS_WAITING.equals(execution.getStatus()) && parked != null && parked.cancel(false)) {
+                parkedExecutions.remove(executionId, parked);
+                ExecutionEntity cancelled = cancelledCopy(execution);
+                cancelled.setResumeAt(null);
+                checkpointSaver.discard(executionId);
+                executionRecordWriter.update(cancelled);
+                executionEventPublisher.close(executionPayloads.materialize(cancelled));
+                log.info("Cancelled waiting execution {}", executionId);
+                return executionPayloads.materialize(cancelled);
+            }
+            throw new ExecutionNotRunningException(
+                "Execution " + executionId + " is not running on this instance: " + execution.getStatus());
+        }
+        if (running.cancel(STATUS_CANCELLED, "Execution cancelled")) {
+            log.info("Cancelling execution {}", executionId);
+        }
+        try {
+            return executionPayloads.materialize(running.result().get(CANCEL_WAIT.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Execution {} did not stop within {}ms", executionId, CANCEL_WAIT.toMillis());
+            return getExecution(executionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return getExecution(executionId);
+        }
     }
     
-    private String getNodeLabel(WorkflowDefinition.NodeDefinition node) {
-        if (node.getData() != null && node.getData().containsKey("label")) {
-            return (String) node.getData().get("label");
+    // 基于未解码的记录更新, 不把解码后的 inputs 写回文本列
+    private ExecutionEntity cancelledCopy(ExecutionEntity execution) {
+        ExecutionEntity cancelled = ExecutionRecordWriter.copyOf(executionRecordWriter.find(execution.getId())
+            .or(() -> executionRepository.findById(execution.getId()))
+            .orElse(execution));
+        cancelled.setStatus(STATUS_CANCELLED);
+        cancelled.setErrorMessage("Execution cancelled");
+        cancelled.setCompletedAt(LocalDateTime.now());
+        cancelled.setDuration(Duration.between(cancelled.getStartedAt(), cancelled.getCompletedAt()).toMillis());
+        return cancelled;
+    }
+    
+    // 停止本实例上租约已丢失的执行: 执行已由其他 worker 或实例接管, 这里不再写入执行记录和检查点。
+    // 执行不在本实例上运行时返回 false
+    public boolean abandonExecution(String executionId, String reason) {
+        RunningExecution running = runningExecutions.get(executionId);
+        if (running == null || !running.cancel(LEASE_LOST, reason)) {
+            return false;
         }
-        return node.getId();
+        log.warn("Stopping execution {}: {}", executionId, reason);
+        return true;
     }
     
-    private void updateExecutionSuccess(String executionId, OverAllState finalState, LocalDateTime startTime) {
+    // 启动批量执行中排队的一项, 名额不足时不等待, 直接抛出 ExecutionRejectedException, 由调用方稍后重试。
+    // 批量执行项不推送节点事件
+    CompletableFuture<ExecutionEntity> startQueued(ExecutionEntity queued, Map<String, Object> inputs,
+                                                   CompiledWorkflow compiledWorkflow, String version) {
+        ExecutionEngine.Permit permit = executionEngine.acquireNow(queued.getWorkflowId());
+        String previousStatus = queued.getStatus();
         try {
-            ExecutionEntity execution = executionRepository.findById(executionId).orElse(null);
-            if (execution != null) {
-                execution.setStatus("completed");
-                execution.setOutputs(objectMapper.writeValueAsString(finalState.data()));
-                execution.setCompletedAt(LocalDateTime.now());
-                execution.setDuration(
-                    java.time.Duration.between(startTime, LocalDateTime.now()).toMillis()
-                );
-                executionRepository.save(execution);
-                log.info("Workflow execution completed: {}", executionId);
+            markRunning(queued);
+            OverAllState initialState = compiledWorkflow.initialState(inputs != null ? inputs : new HashMap<>());
+            checkpointSaver.track(queued.getId(), queued.getWorkflowId(), version);
+            return run(permit, queued, compiledWorkflow, initialState, LocalDateTime.now(), false);
+        } catch (ExecutionRejectedException e) {
+            // 线程池队列已满 (submit 拒绝), 与 acquire 拒绝一样交给调用方稍后重试
+            permit.release();
+            restoreStatus(queued, previousStatus);
+            throw e;
+        } catch (Exception e) {
+            permit.release();
+            log.error("Failed to start execution {}", queued.getId(), e);
+            saveFailedExecution(queued, e);
+            return CompletableFuture.completedFuture(queued);
+        }
+    }
+    
+    // 执行中或在本实例上暂停等待恢复
+    public boolean isRunning(String executionId) {
+        return runningExecutions.containsKey(executionId) || parkedExecutions.containsKey(executionId);
+    }
+    
+    public Set<String> runningExecutionIds() {
+        return Set.copyOf(runningExecutions.keySet());
+    }
+    
+    private void markRunning(ExecutionEntity execution) {
+        if (!"running".equals(execution.getStatus()) || !executionInstance.getId().equals(execution.getOwner())) {
+            execution.setStatus("running");
+            execution.setOwner(executionInstance.getId());
+            executionRecordWriter.update(execution);
+        }
+    }
+    
+    // 启动被拒绝时撤销 markRunning, 重试前记录仍是原来的状态
+    private void restoreStatus(ExecutionEntity execution, String previousStatus) {
+        if (previousStatus != null && !previousStatus.equals(execution.getStatus())) {
+            execution.setStatus(previousStatus);
+            executionRecordWriter.update(execution);
+        }
+    }
+    
+    void saveFailedExecution(ExecutionEntity execution, Exception e) {
+        execution.setStatus("failed");
+        execution.setErrorMessage(e.getMessage());
+        if (execution.getId() == null) {
+            executionRecordWriter.create(execution);
+        } else {
+            checkpointSaver.finish(execution.getId());
+            executionRecordWriter.update(execution);
+            executionEventPublisher.close(execution);
+        }
+    }
+    
+    CompiledWorkflow getOrCompileGraph(String workflowId) {
+        return getOrCompileGraph(workflowId, workflowService.getWorkflowVersion(workflowId));
+    }
+    
+    CompiledWorkflow getOrCompileGraph(String workflowId, String version) {
+        return graphCache.get(workflowId, version, () -> compileGraph(workflowService.getWorkflow(workflowId), version));
+    }
+    
+    private CompiledWorkflow compileGraph(WorkflowDefinition definition, String version) {
+        try {
+            return graphCompiler.compile(definition,
+                node -> executionMetrics.instrument(node, createNodeAction(node, definition.getId(), version)),
+                node -> nodeExecutorRegistry.resolve(node.getNodeType()).fusible(),
+                checkpointSaver.isEnabled() ? checkpointSaver : null);
+        } catch (Exception e) {
+            log.error("Failed to compile graph", e);
+            throw new RuntimeException("Failed to compile graph", e);
+        }
+    }
+    
+    // 包装节点逻辑, 在节点开始/结束时推送执行事件。
+    // 节点类型在编译时解析为已绑定配置的动作, 执行时不再按类型分派
+    AsyncNodeActionWithConfig createNodeAction(WorkflowDefinition.NodeDefinition node) {
+        return createNodeAction(node, null, null);
+    }
+    
+    // 标记为 cacheable 的节点在事件包装内层使用结果缓存, 命中时仍然推送节点开始/结束事件
+    private AsyncNodeActionWithConfig createNodeAction(WorkflowDefinition.NodeDefinition node, String workflowId,
+                                                       String version) {
+        NodeInfo info = NodeInfo.of(node);
+        AsyncNodeActionWithConfig bound = nodeExecutorRegistry.resolve(info.type()).bind(node, info);
+        AsyncNodeActionWithConfig action = workflowId != null
+            ? nodeResultCache.memoize(workflowId, version, node, info, bound)
+            : bound;
+        Duration nodeTimeout = ExecutionTimeouts.nodeTimeout(node);
+        return (state, config) -> {
+            String executionId = config.threadId().orElse(null);
+            RunningExecution running = executionId != null ? runningExecutions.get(executionId) : null;
+            if (running != null) {
+                running.checkActive();
+            }
+            long startNanos = System.nanoTime();
+            String thread = Thread.currentThread().getName();
+            int stateKeysIn = state.data().size();
+            log.info("Executing node: {} ({})", info.id(), info.type());
+            publishNodeEvent(executionId, ExecutionEventPublisher.NODE_STARTED, info, null);
+            CompletableFuture<Map<String, Object>> future;
+            try {
+                future = action.apply(state, config);
+            } catch (RuntimeException e) {
+                publishNodeFailed(executionId, info, e);
+                throw e;
             }
+            if (running != null) {
+                guardNode(running, info, future, nodeTimeout);
+                if (executionProperties.isTrace()) {
+                    future = future.whenComplete((result, error) ->
+                        running.recordNode(info, startNanos, thread, stateKeysIn, result, error));
+                }
+            }
+            return future
+                .thenApply(result -> finishNode(executionId, info, result, startNanos))
+                .whenComplete((result, error) -> {
+                    // 暂停不是节点失败
+                    if (error != null && parkedBy(error) == null) {
+                        publishNodeFailed(executionId, info,
+                            error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                    }
+                });
+        };
+    }
+    
+    // 执行被取消或节点超时时, 节点的 future 以 ExecutionCancelledException 结束; 节点超时视为整个执行超时
+    private void guardNode(RunningExecution running, NodeInfo info, CompletableFuture<Map<String, Object>> future,
+                           Duration nodeTimeout) {
+        running.track(future);
+        if (nodeTimeout != null && !future.isDone()) {
+            ScheduledFuture<?> deadline = executionEngine.deadline(nodeTimeout, () -> running.cancel(STATUS_TIMED_OUT,
+                "Node " + info.id() + " timed out after " + nodeTimeout.toMillis() + "ms"));
+            future.whenComplete((result, error) -> deadline.cancel(false));
+        }
+    }
+    
+    private Map<String, Object> finishNode(String executionId, NodeInfo info, Map<String, Object> result,
+                                           long startNanos) {
+        Map<String, Object> nodeResult = new HashMap<>(result);
+        nodeResult.remove("finalResult");
+        result.put(WorkflowGraphCompiler.NODE_RESULTS_KEY, Map.of(info.id(), nodeResult));
+        publishNodeEvent(executionId, ExecutionEventPublisher.NODE_FINISHED, info,
+            Map.of("durationMs", (System.nanoTime() - startNanos) / 1_000_000));
+        return result;
+    }
+    
+    private void publishNodeFailed(String executionId, NodeInfo info, Throwable error) {
+        publishNodeEvent(executionId, ExecutionEventPublisher.NODE_FAILED, info,
+            Map.of("error", String.valueOf(error.getMessage())));
+    }
+    
+    private void publishNodeEvent(String executionId, String event, NodeInfo info, Map<String, Object> extra) {
+        if (executionId == null) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("executionId", executionId);
+        data.put("nodeId", info.id());
+        data.put("nodeType", info.type());
+        data.put("nodeLabel", info.label());
+        data.put("timestamp", System.currentTimeMillis());
+        if (extra != null) {
+            data.putAll(extra);
+        }
+        executionEventPublisher.publish(executionId, event, data);
+    }
+    
+    // 执行过程中不再读取数据库: 基于开始时的记录构造最终状态, 交给 writer 合并落库
+    private ExecutionEntity updateExecutionSuccess(ExecutionEntity started, OverAllState finalState,
+                                                   LocalDateTime startTime, Timer.Sample sample,
+                                                   RunningExecution running) {
+        ExecutionEntity execution = ExecutionRecordWriter.copyOf(started);
+        try {
+            execution.setStatus("completed");
+            executionPayloads.writeOutputs(execution, finalState.data());
+            checkpointSaver.finish(execution.getId());
+            execution.setCompletedAt(LocalDateTime.now());
+            execution.setDuration(
+                java.time.Duration.between(startTime, LocalDateTime.now()).toMillis()
+            );
+            executionRecordWriter.update(execution, traceOf(execution, running));
+            executionEventPublisher.close(executionPayloads.materialize(execution));
+            executionMetrics.executionFinished(sample, execution.getWorkflowId(), execution.getStatus());
+            log.info("Workflow execution completed: {}", execution.getId());
         } catch (Exception e) {
             log.error("Failed to update execution success", e);
         }
+        return execution;
     }
     
-    private void updateExecutionError(String executionId, Throwable error, LocalDateTime startTime) {
+    private ExecutionEntity updateExecutionError(ExecutionEntity started, Throwable error, LocalDateTime startTime,
+                                                 Timer.Sample sample, RunningExecution running) {
+        ExecutionEntity execution = ExecutionRecordWriter.copyOf(started);
+        ExecutionParkedException parked = parkedBy(error);
+        if (parked != null) {
+            return park(execution, parked, sample, running);
+        }
+        if (error instanceof ExecutionCancelledException cancelled && LEASE_LOST.equals(cancelled.getStatus())) {
+            // 执行记录和检查点已属于接管的 worker, 订阅者改为读取执行记录;
+            // 由本实例的另一个 worker 接管时通道已属于新的执行
+            if (runningExecutions.get(execution.getId()) == running) {
+                executionEventPublisher.release(execution.getId());
+            }
+            executionMetrics.executionFinished(sample, execution.getWorkflowId(), LEASE_LOST);
+            return execution;
+        }
         try {
-            ExecutionEntity execution = executionRepository.findById(executionId).orElse(null);
-            if (execution != null) {
-                execution.setStatus("failed");
-                execution.setErrorMessage(error.getMessage());
-                execution.setCompletedAt(LocalDateTime.now());
-                execution.setDuration(
-                    java.time.Duration.between(startTime, LocalDateTime.now()).toMillis()
-                );
-                executionRepository.save(execution);
-                log.error("Workflow execution failed: {}", executionId, error);
+            execution.setStatus(error instanceof ExecutionCancelledException cancelled ? cancelled.getStatus() : "failed");
+            execution.setErrorMessage(error.getMessage());
+            execution.setCompletedAt(LocalDateTime.now());
+            checkpointSaver.finish(execution.getId());
+            execution.setDuration(
+                java.time.Duration.between(startTime, LocalDateTime.now()).toMillis()
+            );
+            executionRecordWriter.update(execution, traceOf(execution, running));
+            executionEventPublisher.close(execution);
+            executionMetrics.executionFinished(sample, execution.getWorkflowId(), execution.getStatus());
+            if (error instanceof ExecutionCancelledException) {
+                log.info("Workflow execution {}: {} ({})", execution.getStatus(), execution.getId(), error.getMessage());
+            } else {
+                log.error("Workflow execution failed: {}", execution.getId(), error);
             }
         } catch (Exception e) {
             log.error("Failed to update execution error", e);
         }
+        return execution;
+    }
+    
+    // 检查点已在 ExecutionParking 中写入: 记录 waiting 状态, 释放执行名额和线程, 到 resumeAt 时恢复
+    private ExecutionEntity park(ExecutionEntity execution, ExecutionParkedException parked, Timer.Sample sample,
+                                 RunningExecution running) {
+        try {
+            execution.setStatus(STATUS_WAITING);
+            execution.setResumeAt(LocalDateTime.ofInstant(parked.getResumeAt(), ZoneId.systemDefault()));
+            checkpointSaver.release(execution.getId());
+            executionRecordWriter.update(execution);
+            // 通道保留到恢复, 订阅者继续收到恢复后的节点事件
+            executionEventPublisher.waiting(executionPayloads.materialize(execution));
+            executionMetrics.executionParked(execution.getWorkflowId());
+            scheduleResume(execution.getId(), Duration.between(Instant.now(), parked.getResumeAt()));
+            log.info("Workflow execution {} waiting until {}", execution.getId(), execution.getResumeAt());
+        } catch (Exception e) {
+            log.error("Failed to park execution {}", execution.getId(), e);
+        }
+        return execution;
+    }
+    
+    private void scheduleResume(String executionId, Duration delay) {
+        parkedExecutions.put(executionId, executionEngine.deadline(delay, () -> resumeParked(executionId)));
+    }
+    
+    // 执行已被取消或由其他实例恢复时不再继续; 名额已满时稍后重试
+    private void resumeParked(String executionId) {
+        parkedExecutions.remove(executionId);
+        ExecutionEntity execution = executionRecordWriter.find(executionId)
+            .or(() -> executionRepository.findById(executionId))
+            .map(ExecutionRecordWriter::copyOf)
+            .orElse(null);
+        if (execution == null || !STATUS_WAITING.equals(execution.getStatus())
+            || !executionInstance.getId().equals(execution.getOwner())) {
+            // 已由其他实例恢复: 订阅者改为读取执行记录
+            executionEventPublisher.release(executionId);
+            return;
+        }
+        try {
+            resumeExecution(execution);
+        } catch (ExecutionRejectedException e) {
+            log.debug("Execution {} could not resume yet: {}", executionId, e.getMessage());
+            scheduleResume(executionId, PARK_RETRY);
+        }
+    }
+    
+    static ExecutionParkedException parkedBy(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ExecutionParkedException parked) {
+                return parked;
+            }
+        }
+        return null;
+    }
+    
+    private ExecutionTraceEntity traceOf(ExecutionEntity execution, RunningExecution running) {
+        if (!executionProperties.isTrace()) {
+            return null;
+        }
+        ExecutionTraceEntity trace = new ExecutionTraceEntity();
+        trace.setExecutionId(execution.getId());
+        trace.setWorkflowId(execution.getWorkflowId());
+        trace.setDurationMicros(running.elapsedMicros());
+        trace.setCreatedAt(LocalDateTime.now());
+        executionPayloads.writeSpans(trace, running.spans());
+        return trace;
+    }
+    
+    // 执行中的返回已结束节点的记录; 没有记录 (关闭了 trace 或记录已删除) 时为空
+    public Optional<ExecutionTrace> getTrace(String executionId) {
+        ExecutionEntity execution = executionRecordWriter.find(executionId)
+            .or(() -> executionRepository.findById(executionId))
+            .orElse(null);
+        if (execution == null) {
+            return archivedExecutionRepository.findById(executionId)
+                .map(executionPayloads::readArchivedTrace)
+                .orElseThrow(() -> new RuntimeException("Execution not found: " + executionId));
+        }
+        RunningExecution running = runningExecutions.get(executionId);
+        if (running != null) {
+            return Optional.of(ExecutionTrace.of(executionId, execution.getWorkflowId(), execution.getStatus(),
+                running.elapsedMicros(), running.spans()));
+        }
+        return executionRecordWriter.findTrace(executionId)
+            .or(() -> traceRepository.findById(executionId))
+            .map(trace -> ExecutionTrace.of(executionId, execution.getWorkflowId(), execution.getStatus(),
+                trace.getDurationMicros(), executionPayloads.readSpans(trace)));
     }
     
     public ExecutionEntity getExecution(String executionId) {
-        return executionRepository.findById(executionId)
+        // 优先返回尚未落库的最新状态, 最后查找已归档的执行
+        return executionRecordWriter.find(executionId)
+            .or(() -> executionRepository.findById(executionId))
+            .map(executionPayloads::materialize)
+            .or(() -> archivedExecutionRepository.findById(executionId).map(executionPayloads::restore))
             .orElseThrow(() -> new RuntimeException("Execution not found: " + executionId));
     }
     
+    // 执行历史只包含已落库的记录 (异步写入有 flush-interval 的延迟)。
+    // 先查 executions 表, 不足一页时用同一个游标从归档表补足; 两个表的结果按相同顺序合并,
+    // 翻到归档部分之前不会访问归档表
+    public KeysetPage<ExecutionSummary> listExecutions(String workflowId, String status, Integer limit, String cursor) {
+        int pageSize = KeysetPage.normalizeLimit(limit);
+        KeysetPage.Cursor after = KeysetPage.Cursor.decode(cursor);
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<ExecutionSummary> rows = after == null
+            ? executionRepository.findHistory(workflowId, status, page)
+            : executionRepository.findHistoryAfter(workflowId, status, after.timestamp(), after.id(), page);
+        if (rows.size() <= pageSize) {
+            List<ExecutionSummary> archived = after == null
+                ? archivedExecutionRepository.findHistory(workflowId, status, page)
+                : archivedExecutionRepository.findHistoryAfter(workflowId, status, after.timestamp(), after.id(),
+                    page);
+            if (!archived.isEmpty()) {
+                List<ExecutionSummary> merged = new ArrayList<>(rows);
+                merged.addAll(archived);
+                merged.sort(Comparator.comparing(ExecutionSummary::getStartedAt,
+                        Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+                    .thenComparing(ExecutionSummary::getId, Comparator.reverseOrder()));
+                rows = merged.subList(0, Math.min(merged.size(), pageSize + 1));
+            }
+        }
+        return KeysetPage.of(rows, pageSize, e -> new KeysetPage.Cursor(e.getStartedAt(), e.getId()));
+    }
+    
+    public SseEmitter subscribeExecution(String executionId) {
+        return executionEventPublisher.subscribe(executionId, () -> getExecution(executionId));
+    }
+    
     public void clearGraphCache(String workflowId) {
-        graphCache.remove(workflowId);
+        graphCache.invalidate(workflowId);
+        nodeResultCache.invalidate(workflowId);
+    }
+    
+    public Map<String, Object> getGraphCacheStats() {
+        return graphCache.stats();
+    }
+    
+    public Map<String, Object> getNodeCacheStats() {
+        return nodeResultCache.stats();
+    }
+    
+    // 先编译上次停止时缓存中最常用的工作流 (快照), 再按执行次数补充 warm-up-count 个。
+    // 快照记录的版本已过期 (工作流被更新) 时编译当前版本
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpGraphCache() {
+        List<CompiledGraphCache.GraphKey> snapshot = graphCache.loadSnapshot();
+        Set<String> workflowIds = new LinkedHashSet<>();
+        snapshot.forEach(key -> workflowIds.add(key.workflowId()));
+        int count = graphCacheProperties.getWarmUpCount();
+        if (count > 0) {
+            workflowIds.addAll(executionRepository.findMostExecutedWorkflowIds(PageRequest.of(0, count)));
+        }
+        if (workflowIds.isEmpty()) {
+            return;
+        }
+        int compiled = 0;
+        for (String workflowId : workflowIds) {
+            try {
+                getOrCompileGraph(workflowId);
+                compiled++;
+            } catch (Exception e) {
+                log.warn("Failed to warm up graph for workflow {}: {}", workflowId, e.getMessage());
+            }
+        }
+        log.info("Graph cache warmed up: {}/{} workflows compiled ({} from snapshot)",
+            compiled, workflowIds.size(), snapshot.size());
     }
 }
\ No newline at end of file
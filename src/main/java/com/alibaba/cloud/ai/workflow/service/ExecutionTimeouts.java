@@ -0,0 +1,45 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+// 超时配置: 工作流 metadata.timeout 和节点 data.timeout, 格式与延迟节点的 duration 相同 ("500ms", "30s", "PT1M"),
+// 数字按毫秒计。未配置时返回 null
+final class ExecutionTimeouts {
+    
+    static final String KEY = "timeout";
+    
+    private ExecutionTimeouts() {
+    }
+    
+    static Duration workflowTimeout(WorkflowDefinition definition) {
+        return parse(definition.getMetadata(), "workflow");
+    }
+    
+    static Duration nodeTimeout(WorkflowDefinition.NodeDefinition node) {
+        return parse(node.getData(), "node " + node.getId());
+    }
+    
+    private static Duration parse(Map<String, Object> values, String owner) {
+        Object value = values != null ? values.get(KEY) : null;
+        if (value == null || "".equals(value)) {
+            return null;
+        }
+        Duration timeout;
+        try {
+            timeout = value instanceof Number number
+                ? Duration.ofMillis(number.longValue())
+                : DurationStyle.detectAndParse(value.toString().trim(), ChronoUnit.MILLIS);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid timeout '" + value + "' for " + owner + ": " + e.getMessage(), e);
+        }
+        if (timeout.isZero() || timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout for " + owner + " must be positive: " + value);
+        }
+        return timeout;
+    }
+}
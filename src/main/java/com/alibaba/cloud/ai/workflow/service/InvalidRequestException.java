@@ -0,0 +1,16 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+// 请求内容无效 (工作流定义校验失败、分页游标无法解析、批量输入不合法), 接口返回 400。
+// 其他 IllegalArgumentException 属于内部错误, 不作为请求错误返回
+public class InvalidRequestException extends IllegalArgumentException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+    
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,231 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.config.NodeCacheProperties;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.node.NodeInfo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// 确定性节点的结果缓存。节点 data 中 cacheable=true 时, 以 (工作流, 版本, 节点 id, 相关状态的哈希) 为键缓存节点结果,
+// 相同输入的后续执行直接返回缓存的结果。cacheKeys 指定节点依赖的状态键, 不指定时使用除节点元信息以外的全部状态。
+// 同一个键正在计算时, 其他执行等待同一个结果而不会重复计算; 失败的结果不缓存。
+// 计算失败 (节点出错, 或计算它的执行被取消、超时) 时, 等待中的执行不共用这个失败, 而是各自在分支执行器上重新执行节点。
+@Component
+@Slf4j
+public class NodeResultCache {
+    
+    public static final String CACHE_LOOKUPS = "workflow.node.cache";
+    
+    // 每个节点都会写入的元信息和逐节点变化的值, 不作为默认的缓存键
+    private static final Set<String> IGNORED_STATE_KEYS = Set.of(
+        "nodeId", "nodeType", "nodeLabel", "message", "timestamp", WorkflowGraphCompiler.NODE_RESULTS_KEY);
+    
+    private final NodeCacheProperties properties;
+    private final MeterRegistry registry;
+    private final AsyncCache<NodeKey, Map<String, Object>> cache;
+    private final Executor retryExecutor;
+    // 按键排序输出 Map, 相同内容的状态得到相同的哈希
+    private final ObjectMapper keyMapper;
+    
+    public NodeResultCache(NodeCacheProperties properties, MeterRegistry registry, ObjectMapper objectMapper,
+                           ExecutionEngine executionEngine) {
+        this.properties = properties;
+        this.retryExecutor = executionEngine.branchExecutor();
+        this.registry = registry;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats()
+            .buildAsync();
+        // cache.gets{cache=workflow.node.result, result=hit|miss}
+        CaffeineCacheMetrics.monitor(registry, cache, "workflow.node.result");
+        this.keyMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+    
+    // 编译时调用: 未标记 cacheable 的节点原样返回
+    public AsyncNodeActionWithConfig memoize(String workflowId, String version, WorkflowDefinition.NodeDefinition node,
+                                             NodeInfo info, AsyncNodeActionWithConfig action) {
+        Map<String, Object> data = node.getData();
+        if (!properties.isEnabled() || data == null || !isTrue(data.get("cacheable"))) {
+            return action;
+        }
+        List<String> cacheKeys = cacheKeys(info, data.get("cacheKeys"));
+        String nodeType = info.type() != null ? info.type() : "unknown";
+        Counter hits = lookupCounter(nodeType, "hit");
+        Counter misses = lookupCounter(nodeType, "miss");
+        return (state, config) -> {
+            String stateHash = hash(state, cacheKeys);
+            if (stateHash == null) {
+                misses.increment();
+                return action.apply(state, config);
+            }
+            // 加载函数只登记一个未完成的 future, 节点在缓存之外由当前线程执行, 不占用缓存内部的锁
+            CompletableFuture<Map<String, Object>> pending = new CompletableFuture<>();
+            CompletableFuture<Map<String, Object>> cached = cache.get(
+                new NodeKey(workflowId, version, info.id(), stateHash), (key, executor) -> pending);
+            if (cached != pending) {
+                hits.increment();
+                // 调用方会修改返回的 Map (写入 nodeResults), 每次返回新的副本
+                return cached.thenApply(NodeResultCache::thaw)
+                    .exceptionallyComposeAsync(error -> action.apply(state, config), retryExecutor);
+            }
+            misses.increment();
+            compute(action, state, config, pending);
+            return pending.thenApply(NodeResultCache::thaw);
+        };
+    }
+    
+    // 无论节点同步抛出异常还是返回失败的 future, pending 都会完成, 失败的结果由 Caffeine 移出缓存
+    private static void compute(AsyncNodeActionWithConfig action, OverAllState state, RunnableConfig config,
+                                CompletableFuture<Map<String, Object>> pending) {
+        try {
+            action.apply(state, config).whenComplete((result, error) -> {
+                if (error != null) {
+                    pending.completeExceptionally(error);
+                } else {
+                    pending.complete(freeze(result));
+                }
+            });
+        } catch (Throwable e) {
+            pending.completeExceptionally(e);
+        }
+    }
+    
+    // 工作流删除或更新后, 旧版本的结果不会再被命中, 这里提前释放
+    public void invalidate(String workflowId) {
+        cache.synchronous().asMap().keySet().removeIf(key -> key.workflowId().equals(workflowId));
+    }
+    
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.synchronous().stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.synchronous().estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        return result;
+    }
+    
+    // 状态无法序列化时返回 null, 本次不使用缓存
+    private String hash(OverAllState state, List<String> cacheKeys) {
+        Map<String, Object> relevant = new TreeMap<>();
+        if (cacheKeys != null) {
+            for (String key : cacheKeys) {
+                relevant.put(key, state.value(key).orElse(null));
+            }
+        } else {
+            state.data().forEach((key, value) -> {
+                if (!IGNORED_STATE_KEYS.contains(key)) {
+                    relevant.put(key, value);
+                }
+            });
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(keyMapper.writeValueAsString(relevant).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException e) {
+            log.debug("State is not serializable, skipping node cache: {}", e.getMessage());
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private Counter lookupCounter(String nodeType, String result) {
+        return Counter.builder(CACHE_LOOKUPS)
+            .description("Node result cache lookups")
+            .tag("nodeType", nodeType)
+            .tag("result", result)
+            .register(registry);
+    }
+    
+    // cacheKeys 可以是字符串数组或逗号分隔的字符串
+    private static List<String> cacheKeys(NodeInfo info, Object value) {
+        if (value == null) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>();
+        if (value instanceof Collection<?> collection) {
+            collection.forEach(key -> keys.add(String.valueOf(key).trim()));
+        } else if (value instanceof String text) {
+            for (String key : text.split(",")) {
+                keys.add(key.trim());
+            }
+        } else {
+            throw new IllegalArgumentException("Invalid cacheKeys on node " + info.id() + ": " + value);
+        }
+        keys.removeIf(String::isEmpty);
+        return keys.isEmpty() ? null : List.copyOf(keys);
+    }
+    
+    private static boolean isTrue(Object value) {
+        return value instanceof Boolean flag ? flag : value != null && Boolean.parseBoolean(value.toString());
+    }
+    
+    // 缓存的结果在多个执行之间共享: 存入时把嵌套的 Map/List/Set 一起复制为不可修改的集合,
+    // 计算它的执行之后修改自己的结果不会影响缓存; 结果中可能有 null 值, 不能使用 Map.copyOf
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> freeze(Map<String, Object> result) {
+        return (Map<String, Object>) copy(result, true);
+    }
+    
+    // 每次命中都返回可修改的深拷贝, 节点可能原地修改状态中嵌套的集合, 不能与其他执行共用
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> thaw(Map<String, Object> cached) {
+        return (Map<String, Object>) copy(cached, false);
+    }
+    
+    // 只复制集合, 其他值 (字符串、数字、布尔) 不可变, 直接共用
+    private static Object copy(Object value, boolean frozen) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(16, map.size() * 4 / 3 + 1));
+            map.forEach((key, item) -> copy.put(key, copy(item, frozen)));
+            return frozen ? Collections.unmodifiableMap(copy) : copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(item -> copy.add(copy(item, frozen)));
+            return frozen ? Collections.unmodifiableList(copy) : copy;
+        }
+        if (value instanceof Set<?> set) {
+            Set<Object> copy = new LinkedHashSet<>(Math.max(16, set.size() * 4 / 3 + 1));
+            set.forEach(item -> copy.add(copy(item, frozen)));
+            return frozen ? Collections.unmodifiableSet(copy) : copy;
+        }
+        return value;
+    }
+    
+    record NodeKey(String workflowId, String version, String nodeId, String stateHash) {
+    }
+}
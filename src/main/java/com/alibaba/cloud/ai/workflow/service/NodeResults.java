@@ -0,0 +1,159 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// 状态中 nodeResults 的值: 节点 id -> 节点结果, 按节点完成的顺序记录每个节点的增量。
+// 追加一个节点只新建一个链表节点并共享之前的全部结果, 而 MERGE 策略每完成一个节点都复制整个 Map;
+// 实例不可变, 检查点、并行分支和最终输出共享同一份数据。
+// 序列化为普通的 JSON 对象 (同一节点写入多次时取最后一次), 从检查点恢复时由普通 Map 重建。
+public final class NodeResults extends AbstractMap<String, Object> {
+    
+    public static final NodeResults EMPTY = new NodeResults(null, null, null, 0);
+    
+    // 代替 MERGE 注册在 nodeResults 键上
+    public static final KeyStrategy STRATEGY = NodeResults::merge;
+    
+    private final NodeResults previous;
+    private final String nodeId;
+    private final Object result;
+    private final int depth;
+    // 展开后的只读视图, 第一次按 Map 读取全部条目时生成
+    private volatile Map<String, Object> view;
+    
+    private NodeResults(NodeResults previous, String nodeId, Object result, int depth) {
+        this.previous = previous;
+        this.nodeId = nodeId;
+        this.result = result;
+        this.depth = depth;
+    }
+    
+    public static NodeResults copyOf(Map<String, ?> results) {
+        if (results instanceof NodeResults nodeResults) {
+            return nodeResults;
+        }
+        NodeResults merged = EMPTY;
+        for (Map.Entry<String, ?> entry : results.entrySet()) {
+            merged = merged.with(entry.getKey(), entry.getValue());
+        }
+        return merged;
+    }
+    
+    public NodeResults with(String nodeId, Object result) {
+        return new NodeResults(this, nodeId, result, depth + 1);
+    }
+    
+    // 追加 results 中的条目。图执行器对两份状态 (执行器内部的 Map 和传给节点的 OverAllState) 分别应用同一个增量,
+    // 两份记录深度相同、对应位置是同一个结果对象; 并行节点汇合时返回其中一份的全部状态, 合并到另一份时
+    // 按深度对齐后只追加多出的部分, 不会把已有的结果重复追加
+    public NodeResults withAll(Map<String, ?> results) {
+        if (results == this || results.isEmpty()) {
+            return this;
+        }
+        if (results instanceof NodeResults other && other.depth >= depth) {
+            NodeResults aligned = other.ancestorAt(depth);
+            if (aligned == this) {
+                return other;
+            }
+            if (aligned.sameEntry(this)) {
+                return appendSince(other, aligned);
+            }
+        }
+        NodeResults merged = this;
+        for (Map.Entry<String, ?> entry : results.entrySet()) {
+            merged = merged.with(entry.getKey(), entry.getValue());
+        }
+        return merged;
+    }
+    
+    // 记录的增量条数, 同一节点重复执行时大于 size()
+    public int depth() {
+        return depth;
+    }
+    
+    @Override
+    public Object get(Object key) {
+        return view != null ? view.get(key) : find(key);
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return view().containsKey(key);
+    }
+    
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return view().entrySet();
+    }
+    
+    private Object find(Object key) {
+        for (NodeResults node = this; node.previous != null; node = node.previous) {
+            if (node.nodeId.equals(key)) {
+                return node.result;
+            }
+        }
+        return null;
+    }
+    
+    private NodeResults ancestorAt(int targetDepth) {
+        NodeResults node = this;
+        while (node.depth > targetDepth) {
+            node = node.previous;
+        }
+        return node;
+    }
+    
+    private boolean sameEntry(NodeResults other) {
+        return depth == other.depth && result == other.result && Objects.equals(nodeId, other.nodeId);
+    }
+    
+    // 把 other 中 ancestor 之后的条目按顺序追加到当前记录
+    private NodeResults appendSince(NodeResults other, NodeResults ancestor) {
+        NodeResults[] tail = new NodeResults[other.depth - ancestor.depth];
+        int i = tail.length;
+        for (NodeResults node = other; node != ancestor; node = node.previous) {
+            tail[--i] = node;
+        }
+        NodeResults merged = this;
+        for (NodeResults node : tail) {
+            merged = merged.with(node.nodeId, node.result);
+        }
+        return merged;
+    }
+    
+    private Map<String, Object> view() {
+        Map<String, Object> flattened = view;
+        if (flattened == null) {
+            NodeResults[] chain = new NodeResults[depth];
+            int i = depth;
+            for (NodeResults node = this; node.previous != null; node = node.previous) {
+                chain[--i] = node;
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (NodeResults node : chain) {
+                map.put(node.nodeId, node.result);
+            }
+            flattened = Collections.unmodifiableMap(map);
+            view = flattened;
+        }
+        return flattened;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Object merge(Object oldValue, Object newValue) {
+        if (newValue == null) {
+            return oldValue;
+        }
+        if (!(newValue instanceof Map<?, ?> update)) {
+            return newValue;
+        }
+        NodeResults base = oldValue instanceof Map<?, ?> existing ? copyOf((Map<String, ?>) existing) : EMPTY;
+        return base.withAll((Map<String, ?>) update);
+    }
+}
@@ -0,0 +1,123 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.model.ExecutionTrace;
+import com.alibaba.cloud.ai.workflow.node.NodeInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// 在本实例上执行中的工作流。取消或超时时让正在执行的节点立即以 ExecutionCancelledException 结束
+// (延迟节点的定时任务随之取消), 并中断阻塞在节点代码中的执行线程; 之后的节点不会再开始
+final class RunningExecution {
+    
+    private final Set<CompletableFuture<?>> runningNodes = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<ExecutionCancelledException> cancellation = new AtomicReference<>();
+    private final long startNanos = System.nanoTime();
+    // 已结束节点的耗时记录, 并行分支的节点在不同线程上写入
+    private final Queue<ExecutionTrace.NodeSpan> spans = new ConcurrentLinkedQueue<>();
+    // 正在执行图的线程, 由 this 保护
+    private Thread worker;
+    private volatile ScheduledFuture<?> timeout;
+    // 以最终的执行记录完成
+    private volatile CompletableFuture<ExecutionEntity> result;
+    
+    // 只有第一次取消生效
+    boolean cancel(String status, String message) {
+        ExecutionCancelledException cancelled = new ExecutionCancelledException(status, message);
+        if (!cancellation.compareAndSet(null, cancelled)) {
+            return false;
+        }
+        runningNodes.forEach(node -> node.completeExceptionally(cancelled));
+        synchronized (this) {
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+        return true;
+    }
+    
+    ExecutionCancelledException cancellation() {
+        return cancellation.get();
+    }
+    
+    void checkActive() {
+        ExecutionCancelledException cancelled = cancellation.get();
+        if (cancelled != null) {
+            throw cancelled;
+        }
+    }
+    
+    // 登记节点返回的 future, 取消时直接结束它
+    void track(CompletableFuture<?> node) {
+        runningNodes.add(node);
+        node.whenComplete((result, error) -> runningNodes.remove(node));
+        ExecutionCancelledException cancelled = cancellation.get();
+        if (cancelled != null) {
+            node.completeExceptionally(cancelled);
+        }
+    }
+    
+    // 在执行线程上运行图, 排队期间已被取消时不再开始; 结束后清除中断标记, 避免影响线程池中的下一个任务
+    <T> T runOnWorker(Supplier<T> task) {
+        synchronized (this) {
+            checkActive();
+            worker = Thread.currentThread();
+        }
+        try {
+            return task.get();
+        } finally {
+            synchronized (this) {
+                worker = null;
+                Thread.interrupted();
+            }
+        }
+    }
+    
+    // 节点结束时调用, nodeStartNanos 为节点开始时的 System.nanoTime()
+    void recordNode(NodeInfo info, long nodeStartNanos, String thread, int stateKeysIn,
+                    Map<String, Object> result, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String outcome = cause == null ? "completed"
+            : cause instanceof ExecutionCancelledException cancelled ? cancelled.getStatus() : "failed";
+        spans.add(new ExecutionTrace.NodeSpan(info.id(), info.type(), info.label(),
+            (nodeStartNanos - startNanos) / 1_000, (System.nanoTime() - nodeStartNanos) / 1_000,
+            thread, stateKeysIn, result != null ? result.size() : 0, outcome));
+    }
+    
+    List<ExecutionTrace.NodeSpan> spans() {
+        return List.copyOf(spans);
+    }
+    
+    long elapsedMicros() {
+        return (System.nanoTime() - startNanos) / 1_000;
+    }
+    
+    CompletableFuture<ExecutionEntity> result() {
+        return result;
+    }
+    
+    void setResult(CompletableFuture<ExecutionEntity> result) {
+        this.result = result;
+    }
+    
+    void setTimeout(ScheduledFuture<?> timeout) {
+        this.timeout = timeout;
+    }
+    
+    void close() {
+        ScheduledFuture<?> scheduled = timeout;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+}
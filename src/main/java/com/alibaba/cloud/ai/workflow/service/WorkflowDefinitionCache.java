@@ -0,0 +1,43 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.DefinitionCacheProperties;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+@Component
+public class WorkflowDefinitionCache {
+    
+    private final Cache<String, CachedDefinition> cache;
+    
+    public WorkflowDefinitionCache(DefinitionCacheProperties properties, MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "workflow.definition");
+    }
+    
+    public CachedDefinition get(String workflowId, Function<String, CachedDefinition> loader) {
+        return cache.get(workflowId, loader);
+    }
+    
+    public void invalidate(String workflowId) {
+        cache.invalidate(workflowId);
+    }
+    
+    // 缓存的版本与数据库中的版本不同 (其他实例更新过) 时移除
+    public void invalidateIfStale(String workflowId, String version) {
+        cache.asMap().computeIfPresent(workflowId, (id, cached) -> cached.version().equals(version) ? cached : null);
+    }
+    
+    // 缓存的定义在多个请求之间共享, 调用方不要修改
+    public record CachedDefinition(String version, WorkflowDefinition definition) {
+    }
+}
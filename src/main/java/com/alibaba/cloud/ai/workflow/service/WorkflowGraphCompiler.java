@@ -0,0 +1,298 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.CompileConfig;
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.OverAllStateBuilder;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
+import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.serializer.plain_text.jackson.JacksonStateSerializer;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// 将 WorkflowDefinition 编译为 StateGraph。
+// 先由 WorkflowTopology 校验定义、确定入口/出口并按拓扑序剪除不可达节点;
+// 一个节点有多条出边时, 各分支作为并行节点执行, 并在共同的汇合节点合并状态;
+// 分支内的线性链路被合并为一个顺序执行的节点, 以满足并行节点 "每个分支一个节点" 的要求;
+// 主干上相邻的可合并节点 (不等待外部事件的节点) 同样合并, 减少大图的每步开销。
+@Component
+@Slf4j
+public class WorkflowGraphCompiler {
+
+    // 所有节点结果按节点 id 汇总在该键下 (NodeResults), 并行分支的结果不会互相覆盖
+    public static final String NODE_RESULTS_KEY = "nodeResults";
+
+    // 内置节点写入状态的键, 后写入的覆盖先写入的
+    private static final List<String> NODE_OUTPUT_KEYS = List.of(
+        "nodeId", "nodeType", "nodeLabel", "message", "processed", "timestamp", "finalResult");
+
+    // CompiledGraph 的默认步数上限
+    private static final int DEFAULT_MAX_ITERATIONS = 25;
+
+    private static final SharedStateSerializer STATE_SERIALIZER = new SharedStateSerializer();
+
+    public CompiledWorkflow compile(WorkflowDefinition definition,
+                                    Function<WorkflowDefinition.NodeDefinition, AsyncNodeActionWithConfig> actionFactory)
+            throws GraphStateException {
+        return compile(definition, actionFactory, null);
+    }
+
+    // checkpointSaver 为 null 时不生成检查点
+    public CompiledWorkflow compile(WorkflowDefinition definition,
+                                    Function<WorkflowDefinition.NodeDefinition, AsyncNodeActionWithConfig> actionFactory,
+                                    BaseCheckpointSaver checkpointSaver)
+            throws GraphStateException {
+        return compile(definition, actionFactory, node -> false, checkpointSaver);
+    }
+
+    // fusible 判断节点能否与前后的节点合并为一个图节点顺序执行 (见 NodeExecutor.fusible)
+    public CompiledWorkflow compile(WorkflowDefinition definition,
+                                    Function<WorkflowDefinition.NodeDefinition, AsyncNodeActionWithConfig> actionFactory,
+                                    Predicate<WorkflowDefinition.NodeDefinition> fusible,
+                                    BaseCheckpointSaver checkpointSaver)
+            throws GraphStateException {
+        GraphPlan plan = plan(definition, fusible);
+        WorkflowTopology topology = plan.topology();
+        Map<String, KeyStrategy> keyStrategies = keyStrategies(definition);
+
+        StateGraph graph = new StateGraph(() -> new HashMap<>(keyStrategies), STATE_SERIALIZER);
+
+        // 按拓扑序添加节点, 合并的链路以链路头的 id 作为图节点
+        int graphNodes = 0;
+        for (WorkflowDefinition.NodeDefinition node : topology.nodes.values()) {
+            if (plan.fusedNodes().contains(node.getId())) {
+                continue;
+            }
+            List<String> chain = plan.chains().get(node.getId());
+            if (chain != null && chain.size() > 1) {
+                List<AsyncNodeActionWithConfig> actions = new ArrayList<>();
+                for (String nodeId : chain) {
+                    actions.add(actionFactory.apply(topology.nodes.get(nodeId)));
+                }
+                graph.addNode(node.getId(), sequence(actions, keyStrategies));
+            } else {
+                graph.addNode(node.getId(), actionFactory.apply(node));
+            }
+            graphNodes++;
+        }
+
+        // 添加边, 链路内部的边由合并后的节点代替, 合并节点的出边取链路尾节点的出边
+        for (Map.Entry<String, Set<String>> entry : topology.successors.entrySet()) {
+            String source = entry.getKey();
+            if (plan.fusedNodes().contains(source)) {
+                continue;
+            }
+            if (plan.branchJoins().containsKey(source)) {
+                graph.addEdge(source, plan.branchJoins().get(source));
+                continue;
+            }
+            List<String> chain = plan.chains().get(source);
+            Set<String> targets = chain != null ? topology.successors(chain.get(chain.size() - 1)) : entry.getValue();
+            for (String target : targets) {
+                graph.addEdge(source, target);
+            }
+        }
+
+        if (!topology.pruned.isEmpty()) {
+            log.info("Workflow {}: pruned nodes unreachable from start {}", definition.getId(), topology.pruned);
+        }
+        log.debug("Workflow {} compiled: {} nodes into {} graph nodes, parallel branches at {}",
+            definition.getId(), topology.nodes.size(), graphNodes, plan.parallelSources());
+        CompiledGraph compiled = graph.compile(compileConfig(checkpointSaver));
+        // 默认最多 25 步。无环的图中每个图节点只执行一次, 执行和输出结果各占一步, 再加上开始和结束
+        compiled.setMaxIterations(Math.max(DEFAULT_MAX_ITERATIONS, 2 * graphNodes + 4));
+        return new CompiledWorkflow(compiled, Set.copyOf(plan.parallelSources()), Map.copyOf(keyStrategies),
+            ExecutionTimeouts.workflowTimeout(definition));
+    }
+
+    // 保存工作流时检查定义, 有问题时抛出 InvalidRequestException
+    public void validate(WorkflowDefinition definition) {
+        try {
+            plan(definition, node -> false);
+        } catch (GraphStateException e) {
+            throw new InvalidRequestException("Invalid workflow: " + e.getMessage(), e);
+        }
+        try {
+            ExecutionTimeouts.workflowTimeout(definition);
+            definition.getNodes().forEach(ExecutionTimeouts::nodeTimeout);
+            ExecutionRetention.workflowRetention(definition);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage(), e);
+        }
+    }
+
+    // 编译计划: 校验和拓扑排序, 识别并行分支, 合并线性链路
+    private GraphPlan plan(WorkflowDefinition definition, Predicate<WorkflowDefinition.NodeDefinition> fusible)
+            throws GraphStateException {
+        WorkflowTopology topology = WorkflowTopology.of(definition);
+
+        // 识别并行分支: 分支头 -> 分支链路, 分支头 -> 汇合节点
+        Map<String, List<String>> chains = new HashMap<>();
+        Map<String, String> branchJoins = new HashMap<>();
+        Set<String> fusedNodes = new HashSet<>();
+        Set<String> parallelSources = new LinkedHashSet<>();
+        for (Map.Entry<String, Set<String>> entry : topology.successors.entrySet()) {
+            if (entry.getValue().size() < 2) {
+                continue;
+            }
+            String source = entry.getKey();
+            String join = null;
+            for (String head : entry.getValue()) {
+                List<String> chain = branchChain(source, head, topology);
+                String branchJoin = topology.successors(chain.get(chain.size() - 1)).iterator().next();
+                if (join == null) {
+                    join = branchJoin;
+                } else if (!join.equals(branchJoin)) {
+                    throw new GraphStateException(String.format(
+                        "parallel branches starting at '%s' must merge into a single node, found '%s' and '%s'",
+                        source, join, branchJoin));
+                }
+                chains.put(head, chain);
+                branchJoins.put(head, branchJoin);
+                fusedNodes.addAll(chain.subList(1, chain.size()));
+            }
+            parallelSources.add(source);
+        }
+
+        // 合并线性链路: 相邻的可合并节点之间只有一条边 (前者只有一条出边, 后者只有一条入边) 时,
+        // 在同一个图节点中顺序执行, 省去每步的调度、状态合并和检查点
+        for (String nodeId : topology.nodes.keySet()) {
+            if (!isFusible(nodeId, topology, fusible, chains, fusedNodes, parallelSources)) {
+                continue;
+            }
+            List<String> chain = new ArrayList<>();
+            chain.add(nodeId);
+            String current = nodeId;
+            while (topology.successors(current).size() == 1) {
+                String next = topology.successors(current).iterator().next();
+                if (StateGraph.END.equals(next) || topology.predecessors(next).size() != 1
+                    || !isFusible(next, topology, fusible, chains, fusedNodes, parallelSources)) {
+                    break;
+                }
+                chain.add(next);
+                current = next;
+            }
+            if (chain.size() > 1) {
+                chains.put(nodeId, chain);
+                fusedNodes.addAll(chain.subList(1, chain.size()));
+            }
+        }
+        return new GraphPlan(topology, chains, branchJoins, fusedNodes, parallelSources);
+    }
+
+    // 分叉节点和并行分支中的节点保持原样
+    private static boolean isFusible(String nodeId, WorkflowTopology topology,
+                                     Predicate<WorkflowDefinition.NodeDefinition> fusible,
+                                     Map<String, List<String>> chains, Set<String> fusedNodes,
+                                     Set<String> parallelSources) {
+        return !chains.containsKey(nodeId) && !fusedNodes.contains(nodeId) && !parallelSources.contains(nodeId)
+            && fusible.test(topology.nodes.get(nodeId));
+    }
+
+    // 从分支头开始沿唯一出边前进, 直到遇到汇合节点 (多条入边) 或结束节点
+    private List<String> branchChain(String source, String head, WorkflowTopology topology)
+            throws GraphStateException {
+        if (StateGraph.END.equals(head)) {
+            throw new GraphStateException(String.format(
+                "parallel branch starting at '%s' cannot point directly to the end", source));
+        }
+        if (topology.predecessors(head).size() > 1) {
+            throw new GraphStateException(String.format(
+                "parallel branch node '%s' must have a single incoming edge", head));
+        }
+        List<String> chain = new ArrayList<>();
+        String current = head;
+        while (true) {
+            chain.add(current);
+            Set<String> next = topology.successors(current);
+            if (next.size() != 1) {
+                throw new GraphStateException(String.format(
+                    "node '%s' in the parallel branch starting at '%s' must have exactly one outgoing edge "
+                        + "(nested parallel branches are not supported)", current, source));
+            }
+            String nextNode = next.iterator().next();
+            if (StateGraph.END.equals(nextNode) || topology.predecessors(nextNode).size() > 1) {
+                return chain;
+            }
+            current = nextNode;
+        }
+    }
+
+    // 顺序执行一条链路, 后面的节点能看到前面节点的输出, 返回整条链路合并后的增量
+    private AsyncNodeActionWithConfig sequence(List<AsyncNodeActionWithConfig> actions,
+                                               Map<String, KeyStrategy> keyStrategies) {
+        return (state, config) -> {
+            OverAllState local = OverAllStateBuilder.builder()
+                .withKeyStrategies(state.keyStrategies())
+                .withData(state.data())
+                .build();
+            CompletableFuture<Map<String, Object>> result = CompletableFuture.completedFuture(new HashMap<>());
+            for (AsyncNodeActionWithConfig action : actions) {
+                result = result.thenCompose(partial -> action.apply(local, config).thenApply(update -> {
+                    local.updateState(update);
+                    return OverAllState.updateState(partial, update, keyStrategies);
+                }));
+            }
+            return result;
+        };
+    }
+
+    private Map<String, KeyStrategy> keyStrategies(WorkflowDefinition definition) {
+        Map<String, KeyStrategy> strategies = new HashMap<>();
+        NODE_OUTPUT_KEYS.forEach(key -> strategies.put(key, KeyStrategy.REPLACE));
+        // 自定义节点会把 data 中的键写入状态
+        for (WorkflowDefinition.NodeDefinition node : definition.getNodes()) {
+            if (node.getData() != null) {
+                node.getData().keySet().forEach(key -> strategies.putIfAbsent(key, KeyStrategy.REPLACE));
+            }
+        }
+        strategies.put(NODE_RESULTS_KEY, NodeResults.STRATEGY);
+        return strategies;
+    }
+
+    // StateGraph.compile() 默认注册的 MemorySaver 会为每次执行保留所有节点的状态副本且从不释放,
+    // 这里只注册传入的 saver (可能为空), 没有 saver 时执行器也不会为检查点复制状态
+    private static CompileConfig compileConfig(BaseCheckpointSaver checkpointSaver) {
+        SaverConfig.Builder saverConfig = SaverConfig.builder();
+        if (checkpointSaver != null) {
+            saverConfig.register("workflow", checkpointSaver);
+        }
+        return CompileConfig.builder().saverConfig(saverConfig.build()).build();
+    }
+
+    // 图执行器在每个节点完成后复制一份状态交给检查点, 默认实现用 JSON 序列化再解析, 每个节点复制整个状态。
+    // 状态中的值不会被修改 (节点只返回新的增量, nodeResults 不可变), 复制顶层 Map 即可;
+    // 检查点实际写入时由 ExecutionCheckpointSaver 编码
+    private static final class SharedStateSerializer extends JacksonStateSerializer {
+
+        private SharedStateSerializer() {
+            super(OverAllState::new);
+        }
+
+        // 传入的是 stateFactory 由原状态新建的 OverAllState, 已经复制过顶层 Map
+        @Override
+        public OverAllState cloneObject(OverAllState state) {
+            return state;
+        }
+    }
+
+    private record GraphPlan(WorkflowTopology topology, Map<String, List<String>> chains,
+                             Map<String, String> branchJoins, Set<String> fusedNodes, Set<String> parallelSources) {
+    }
+}
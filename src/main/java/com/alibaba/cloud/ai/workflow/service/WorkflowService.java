@@ -1,14 +1,20 @@
 package com.alibaba.cloud.ai.workflow.service;
 
 import com.alibaba.cloud.ai.workflow.entity.WorkflowEntity;
+import com.alibaba.cloud.ai.workflow.model.KeysetPage;
 import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.model.WorkflowSummary;
 import com.alibaba.cloud.ai.workflow.repository.WorkflowRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.alibaba.cloud.ai.workflow.storage.WorkflowStorage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -17,15 +23,19 @@ import java.util.List;
 public class WorkflowService {
     
     private final WorkflowRepository workflowRepository;
-    private final ObjectMapper objectMapper;
+    private final WorkflowStorage workflowStorage;
+    private final WorkflowDefinitionCache definitionCache;
+    private final WorkflowGraphCompiler graphCompiler;
     
     @Transactional
     public WorkflowDefinition createWorkflow(WorkflowDefinition definition) {
+        // 定义有问题时在保存时返回 400, 而不是在执行时失败
+        graphCompiler.validate(definition);
         try {
             WorkflowEntity entity = new WorkflowEntity();
             entity.setName(definition.getName());
             entity.setDescription(definition.getDescription());
-            entity.setGraphData(objectMapper.writeValueAsString(definition));
+            workflowStorage.write(entity, definition);
             entity.setStatus("draft");
             
             WorkflowEntity saved = workflowRepository.save(entity);
@@ -41,15 +51,17 @@ public class WorkflowService {
     
     @Transactional
     public WorkflowDefinition updateWorkflow(String id, WorkflowDefinition definition) {
+        graphCompiler.validate(definition);
         try {
             WorkflowEntity entity = workflowRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Workflow not found: " + id));
             
             entity.setName(definition.getName());
             entity.setDescription(definition.getDescription());
-            entity.setGraphData(objectMapper.writeValueAsString(definition));
+            workflowStorage.write(entity, definition);
             
             workflowRepository.save(entity);
+            invalidateAfterCommit(id);
             definition.setId(id);
             
             log.info("Updated workflow: {}", id);
@@ -61,30 +73,70 @@ public class WorkflowService {
     }
     
     public WorkflowDefinition getWorkflow(String id) {
+        getWorkflowVersion(id);
+        return loadDefinition(id).definition();
+    }
+    
+    // 工作流版本号 (updatedAt), 用作已编译图缓存的 key。
+    // 每次从数据库读取 updatedAt 一列, 其他实例的更新在本实例下一次执行时即可见, 不受定义缓存过期时间影响;
+    // 缓存的定义版本不同时失效缓存, 之后的 getWorkflow 重新加载
+    public String getWorkflowVersion(String id) {
+        List<LocalDateTime> updatedAt = workflowRepository.findUpdatedAtById(id);
+        if (updatedAt.isEmpty()) {
+            throw new RuntimeException("Workflow not found: " + id);
+        }
+        String version = String.valueOf(updatedAt.get(0));
+        definitionCache.invalidateIfStale(id, version);
+        return version;
+    }
+    
+    // 读穿缓存: 命中时不访问数据库也不做 JSON 解析
+    private WorkflowDefinitionCache.CachedDefinition loadDefinition(String id) {
+        return definitionCache.get(id, this::readDefinition);
+    }
+    
+    private WorkflowDefinitionCache.CachedDefinition readDefinition(String id) {
         try {
             WorkflowEntity entity = workflowRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Workflow not found: " + id));
             
-            WorkflowDefinition definition = objectMapper.readValue(
-                entity.getGraphData(), 
-                WorkflowDefinition.class
-            );
-            definition.setId(entity.getId());
+            WorkflowDefinition definition = workflowStorage.read(entity);
             
-            return definition;
+            return new WorkflowDefinitionCache.CachedDefinition(String.valueOf(entity.getUpdatedAt()), definition);
         } catch (Exception e) {
             log.error("Failed to get workflow", e);
             throw new RuntimeException("Failed to get workflow", e);
         }
     }
     
-    public List<WorkflowEntity> listWorkflows() {
-        return workflowRepository.findAll();
+    // 只查询列表需要的字段, 不加载 graph/layout
+    public KeysetPage<WorkflowSummary> listWorkflows(Integer limit, String cursor) {
+        int pageSize = KeysetPage.normalizeLimit(limit);
+        KeysetPage.Cursor after = KeysetPage.Cursor.decode(cursor);
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<WorkflowSummary> rows = after == null
+            ? workflowRepository.findSummaries(page)
+            : workflowRepository.findSummariesAfter(after.timestamp(), after.id(), page);
+        return KeysetPage.of(rows, pageSize, w -> new KeysetPage.Cursor(w.getCreatedAt(), w.getId()));
     }
     
     @Transactional
     public void deleteWorkflow(String id) {
         workflowRepository.deleteById(id);
+        invalidateAfterCommit(id);
         log.info("Deleted workflow: {}", id);
     }
+    
+    // 立即失效一次, 提交后再失效一次, 避免并发读在提交前把旧定义重新放回缓存
+    private void invalidateAfterCommit(String id) {
+        definitionCache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    definitionCache.invalidate(id);
+                }
+            });
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 工作流的邻接表表示, 编译的第一步。
+// 检查重复/缺失的节点 id、悬空边、孤立节点和环, 确定入口和出口:
+// 没有 start 边时入口是唯一没有入边的节点, 所有没有出边的节点都连接到结束节点。
+// nodes 按拓扑序排列, 从入口不可达的节点被剪除。
+final class WorkflowTopology {
+
+    // 拓扑序
+    final Map<String, WorkflowDefinition.NodeDefinition> nodes;
+    // 包含 StateGraph.START 和 StateGraph.END
+    final Map<String, Set<String>> successors;
+    final Map<String, Set<String>> predecessors;
+    // 不可达而被剪除的节点
+    final List<String> pruned;
+
+    private WorkflowTopology(Map<String, WorkflowDefinition.NodeDefinition> nodes,
+                             Map<String, Set<String>> successors, Map<String, Set<String>> predecessors,
+                             List<String> pruned) {
+        this.nodes = nodes;
+        this.successors = successors;
+        this.predecessors = predecessors;
+        this.pruned = pruned;
+    }
+
+    Set<String> successors(String nodeId) {
+        return successors.getOrDefault(nodeId, Set.of());
+    }
+
+    Set<String> predecessors(String nodeId) {
+        return predecessors.getOrDefault(nodeId, Set.of());
+    }
+
+    // 所有问题一起报告, 而不是只报告第一个
+    static WorkflowTopology of(WorkflowDefinition definition) throws GraphStateException {
+        List<String> errors = new ArrayList<>();
+        Map<String, WorkflowDefinition.NodeDefinition> declared = new LinkedHashMap<>();
+        if (definition.getNodes() != null) {
+            for (WorkflowDefinition.NodeDefinition node : definition.getNodes()) {
+                if (node.getId() == null || node.getId().isBlank()) {
+                    errors.add("a node has no id");
+                } else if (isReserved(node.getId())) {
+                    errors.add(String.format("node id '%s' is reserved", node.getId()));
+                } else if (declared.putIfAbsent(node.getId(), node) != null) {
+                    errors.add(String.format("duplicate node id '%s'", node.getId()));
+                }
+            }
+        }
+        if (declared.isEmpty() && errors.isEmpty()) {
+            errors.add("workflow must contain at least one node");
+        }
+
+        Map<String, Set<String>> successors = new LinkedHashMap<>();
+        Map<String, Set<String>> predecessors = new HashMap<>();
+        List<WorkflowDefinition.EdgeDefinition> edges = definition.getEdges() != null ? definition.getEdges() : List.of();
+        for (WorkflowDefinition.EdgeDefinition edge : edges) {
+            // 处理特殊的开始和结束节点
+            String source = "start".equals(edge.getSource()) ? StateGraph.START : edge.getSource();
+            String target = "end".equals(edge.getTarget()) ? StateGraph.END : edge.getTarget();
+            if (StateGraph.END.equals(source) || "end".equals(edge.getSource())) {
+                errors.add("edges cannot start at the end node");
+            } else if (StateGraph.START.equals(target) || "start".equals(edge.getTarget())) {
+                errors.add("edges cannot point to the start node");
+            } else if (!StateGraph.START.equals(source) && !declared.containsKey(source)) {
+                errors.add(String.format("edge '%s' starts at unknown node '%s'", edge.getId(), source));
+            } else if (!StateGraph.END.equals(target) && !declared.containsKey(target)) {
+                errors.add(String.format("edge '%s' points to unknown node '%s'", edge.getId(), target));
+            } else if (source.equals(target)) {
+                errors.add(String.format("node '%s' has an edge to itself", source));
+            } else {
+                link(successors, predecessors, source, target);
+            }
+        }
+
+        boolean explicitStart = successors.containsKey(StateGraph.START);
+        List<String> entries = new ArrayList<>();
+        for (String nodeId : declared.keySet()) {
+            boolean hasIncoming = predecessors.containsKey(nodeId);
+            boolean hasOutgoing = successors.containsKey(nodeId);
+            if (!hasIncoming && !hasOutgoing && declared.size() > 1) {
+                errors.add(String.format("node '%s' is not connected", nodeId));
+            } else if (!hasIncoming) {
+                entries.add(nodeId);
+            }
+        }
+        if (!explicitStart && entries.size() > 1) {
+            errors.add(String.format("workflow has several entry nodes %s, connect them or add edges from start",
+                entries));
+        }
+        if (!errors.isEmpty()) {
+            throw new GraphStateException(String.join("; ", errors));
+        }
+
+        if (!explicitStart && !entries.isEmpty()) {
+            link(successors, predecessors, StateGraph.START, entries.get(0));
+        }
+        // 没有出边的节点都是出口
+        for (String nodeId : declared.keySet()) {
+            if (!successors.containsKey(nodeId)) {
+                link(successors, predecessors, nodeId, StateGraph.END);
+            }
+        }
+
+        List<String> order = topologicalOrder(declared.keySet(), successors, predecessors);
+        if (order.size() < declared.size()) {
+            Set<String> cyclic = new LinkedHashSet<>(declared.keySet());
+            order.forEach(cyclic::remove);
+            throw new GraphStateException(String.format("workflow contains a cycle through nodes %s", cyclic));
+        }
+
+        Set<String> reachable = reachableFromStart(successors);
+        Map<String, WorkflowDefinition.NodeDefinition> nodes = new LinkedHashMap<>();
+        List<String> pruned = new ArrayList<>();
+        for (String nodeId : order) {
+            if (reachable.contains(nodeId)) {
+                nodes.put(nodeId, declared.get(nodeId));
+            } else {
+                pruned.add(nodeId);
+            }
+        }
+        for (String nodeId : pruned) {
+            for (String target : successors.remove(nodeId)) {
+                predecessors.get(target).remove(nodeId);
+            }
+            predecessors.remove(nodeId);
+        }
+        return new WorkflowTopology(nodes, successors, predecessors, List.copyOf(pruned));
+    }
+
+    // Kahn 算法, 有环时返回的节点少于 nodeIds
+    private static List<String> topologicalOrder(Set<String> nodeIds, Map<String, Set<String>> successors,
+                                                 Map<String, Set<String>> predecessors) {
+        Map<String, Integer> inDegree = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (String nodeId : nodeIds) {
+            int degree = 0;
+            for (String source : predecessors.getOrDefault(nodeId, Set.of())) {
+                if (!StateGraph.START.equals(source)) {
+                    degree++;
+                }
+            }
+            inDegree.put(nodeId, degree);
+            if (degree == 0) {
+                ready.add(nodeId);
+            }
+        }
+        List<String> order = new ArrayList<>(nodeIds.size());
+        while (!ready.isEmpty()) {
+            String nodeId = ready.poll();
+            order.add(nodeId);
+            for (String target : successors.getOrDefault(nodeId, Set.of())) {
+                if (inDegree.containsKey(target) && inDegree.merge(target, -1, Integer::sum) == 0) {
+                    ready.add(target);
+                }
+            }
+        }
+        return order;
+    }
+
+    private static Set<String> reachableFromStart(Map<String, Set<String>> successors) {
+        Set<String> reachable = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>(successors.get(StateGraph.START));
+        while (!queue.isEmpty()) {
+            String nodeId = queue.poll();
+            if (reachable.add(nodeId)) {
+                queue.addAll(successors.getOrDefault(nodeId, Set.of()));
+            }
+        }
+        return reachable;
+    }
+
+    private static boolean isReserved(String nodeId) {
+        return "start".equals(nodeId) || "end".equals(nodeId)
+            || StateGraph.START.equals(nodeId) || StateGraph.END.equals(nodeId);
+    }
+
+    private static void link(Map<String, Set<String>> successors, Map<String, Set<String>> predecessors,
+                             String source, String target) {
+        successors.computeIfAbsent(source, k -> new LinkedHashSet<>()).add(target);
+        predecessors.computeIfAbsent(target, k -> new LinkedHashSet<>()).add(source);
+    }
+}
@@ -0,0 +1,134 @@
+package com.alibaba.cloud.ai.workflow.storage;
+
+import com.alibaba.cloud.ai.workflow.config.StorageProperties;
+import com.alibaba.cloud.ai.workflow.entity.ArchivedExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionTraceEntity;
+import com.alibaba.cloud.ai.workflow.model.ExecutionTrace;
+import com.alibaba.cloud.ai.workflow.service.ExecutionRecordWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// 执行的 inputs/outputs: 不超过 max-inline-size 时以 JSON 文本存入原列,
+// 超过时编码压缩后存入 blob 列, 原列为 null。对外返回前通过 materialize 还原为 JSON 文本。
+@Component
+@RequiredArgsConstructor
+public class ExecutionPayloads {
+    
+    private final StorageCodec codec;
+    private final StorageProperties properties;
+    
+    public void writeInputs(ExecutionEntity execution, Object inputs) {
+        String json = codec.toJson(inputs);
+        if (fitsInline(json)) {
+            execution.setInputs(json);
+            execution.setInputsData(null);
+        } else {
+            execution.setInputs(null);
+            execution.setInputsData(codec.encode(inputs));
+        }
+    }
+    
+    public void writeOutputs(ExecutionEntity execution, Object outputs) {
+        String json = codec.toJson(outputs);
+        if (fitsInline(json)) {
+            execution.setOutputs(json);
+            execution.setOutputsData(null);
+        } else {
+            execution.setOutputs(null);
+            execution.setOutputsData(codec.encode(outputs));
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> readInputs(ExecutionEntity execution) {
+        Map<String, Object> inputs = execution.getInputsData() != null
+            ? codec.decode(execution.getInputsData(), Map.class)
+            : execution.getInputs() != null ? codec.fromJson(execution.getInputs(), Map.class) : null;
+        return inputs != null ? inputs : new HashMap<>();
+    }
+    
+    // 节点耗时记录总是编码存储, 不经过 JSON 文本列
+    public void writeSpans(ExecutionTraceEntity trace, List<ExecutionTrace.NodeSpan> spans) {
+        trace.setNodeCount(spans.size());
+        trace.setSpans(codec.encode(spans));
+    }
+    
+    public List<ExecutionTrace.NodeSpan> readSpans(ExecutionTraceEntity trace) {
+        return List.of(codec.decode(trace.getSpans(), ExecutionTrace.NodeSpan[].class));
+    }
+    
+    // 归档时 inputs/outputs 统一还原为 JSON 文本, 与错误信息和节点耗时记录一起编码为一个 blob
+    public ArchivedExecutionEntity archive(ExecutionEntity execution, ExecutionTraceEntity trace) {
+        ExecutionEntity view = materialize(execution);
+        ArchivedExecutionEntity archived = new ArchivedExecutionEntity();
+        archived.setId(execution.getId());
+        archived.setWorkflowId(execution.getWorkflowId());
+        archived.setBatchId(execution.getBatchId());
+        archived.setStatus(execution.getStatus());
+        archived.setStartedAt(execution.getStartedAt());
+        archived.setCompletedAt(execution.getCompletedAt());
+        archived.setDuration(execution.getDuration());
+        archived.setArchivedAt(LocalDateTime.now());
+        archived.setData(codec.encode(new ArchivedPayload(view.getInputs(), view.getOutputs(),
+            view.getErrorMessage(), trace != null ? trace.getDurationMicros() : null,
+            trace != null ? readSpans(trace) : null)));
+        return archived;
+    }
+    
+    // 还原为与未归档时相同的执行记录 (inputs/outputs 为 JSON 文本)
+    public ExecutionEntity restore(ArchivedExecutionEntity archived) {
+        ArchivedPayload payload = codec.decode(archived.getData(), ArchivedPayload.class);
+        ExecutionEntity execution = new ExecutionEntity();
+        execution.setId(archived.getId());
+        execution.setWorkflowId(archived.getWorkflowId());
+        execution.setBatchId(archived.getBatchId());
+        execution.setStatus(archived.getStatus());
+        execution.setStartedAt(archived.getStartedAt());
+        execution.setCompletedAt(archived.getCompletedAt());
+        execution.setDuration(archived.getDuration());
+        execution.setInputs(payload.inputs());
+        execution.setOutputs(payload.outputs());
+        execution.setErrorMessage(payload.errorMessage());
+        return execution;
+    }
+    
+    public Optional<ExecutionTrace> readArchivedTrace(ArchivedExecutionEntity archived) {
+        ArchivedPayload payload = codec.decode(archived.getData(), ArchivedPayload.class);
+        if (payload.spans() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(ExecutionTrace.of(archived.getId(), archived.getWorkflowId(), archived.getStatus(),
+            payload.traceMicros(), payload.spans()));
+    }
+    
+    // 需要解码时返回副本, 不修改 (可能处于持久化上下文中的) 原对象
+    public ExecutionEntity materialize(ExecutionEntity execution) {
+        if (execution.getInputsData() == null && execution.getOutputsData() == null) {
+            return execution;
+        }
+        ExecutionEntity view = ExecutionRecordWriter.copyOf(execution);
+        if (view.getInputsData() != null) {
+            view.setInputs(codec.decodeToJson(view.getInputsData()));
+        }
+        if (view.getOutputsData() != null) {
+            view.setOutputs(codec.decodeToJson(view.getOutputsData()));
+        }
+        return view;
+    }
+    
+    private boolean fitsInline(String json) {
+        // 按字符数估算, 对 ASCII 为主的 JSON 足够准确
+        return json.length() <= properties.getMaxInlineSize().toBytes();
+    }
+    
+    record ArchivedPayload(String inputs, String outputs, String errorMessage, Long traceMicros,
+                           List<ExecutionTrace.NodeSpan> spans) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.alibaba.cloud.ai.workflow.storage;
+
+import com.alibaba.cloud.ai.workflow.config.StorageProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// 存储编码: 2 字节数据头 (格式, 压缩方式) + 负载。
+// 读取时按数据头解码, 因此修改 workflow.storage.format 不影响已有数据。
+@Component
+public class StorageCodec {
+    
+    private static final byte FORMAT_JSON = 'J';
+    private static final byte FORMAT_SMILE = 'S';
+    private static final byte FORMAT_CBOR = 'C';
+    private static final byte COMPRESSION_NONE = 'N';
+    private static final byte COMPRESSION_DEFLATE = 'D';
+    private static final int HEADER_SIZE = 2;
+    
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+    private final StorageProperties properties;
+    
+    public StorageCodec(ObjectMapper objectMapper, StorageProperties properties) {
+        // 与应用的 ObjectMapper 配置相同 (模块、日期格式等), 省略 null 字段
+        this.jsonMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.smileMapper = jsonMapper.copyWith(new SmileFactory());
+        this.cborMapper = jsonMapper.copyWith(new CBORFactory());
+        this.properties = properties;
+    }
+    
+    public byte[] encode(Object value) {
+        byte format = formatByte(properties.getFormat());
+        try {
+            byte[] payload = mapper(format).writeValueAsBytes(value);
+            if (payload.length < properties.getCompressionThreshold().toBytes()) {
+                return withHeader(format, COMPRESSION_NONE, payload);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4 + HEADER_SIZE);
+            out.write(format);
+            out.write(COMPRESSION_DEFLATE);
+            try (OutputStream deflater = new DeflaterOutputStream(out)) {
+                deflater.write(payload);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode " + value.getClass().getSimpleName(), e);
+        }
+    }
+    
+    public <T> T decode(byte[] data, Class<T> type) {
+        if (data.length < HEADER_SIZE) {
+            throw new IllegalArgumentException("Stored payload is too short: " + data.length + " bytes");
+        }
+        try (InputStream in = payload(data)) {
+            return mapper(data[0]).readValue(in, type);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to decode " + type.getSimpleName(), e);
+        }
+    }
+    
+    // 解码为 JSON 文本, 用于 API 中原本以 JSON 字符串返回的字段
+    public String decodeToJson(byte[] data) {
+        return toJson(decode(data, Object.class));
+    }
+    
+    public String toJson(Object value) {
+        try {
+            return jsonMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write JSON", e);
+        }
+    }
+    
+    public <T> T fromJson(String json, Class<T> type) {
+        try {
+            return jsonMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read JSON as " + type.getSimpleName(), e);
+        }
+    }
+    
+    private InputStream payload(byte[] data) {
+        InputStream in = new ByteArrayInputStream(data, HEADER_SIZE, data.length - HEADER_SIZE);
+        return switch (data[1]) {
+            case COMPRESSION_NONE -> in;
+            case COMPRESSION_DEFLATE -> new InflaterInputStream(in);
+            default -> throw new IllegalArgumentException("Unknown compression in stored payload: " + data[1]);
+        };
+    }
+    
+    private ObjectMapper mapper(byte format) {
+        return switch (format) {
+            case FORMAT_JSON -> jsonMapper;
+            case FORMAT_SMILE -> smileMapper;
+            case FORMAT_CBOR -> cborMapper;
+            default -> throw new IllegalArgumentException("Unknown format in stored payload: " + format);
+        };
+    }
+    
+    private static byte formatByte(StorageProperties.Format format) {
+        return switch (format) {
+            case JSON -> FORMAT_JSON;
+            case SMILE -> FORMAT_SMILE;
+            case CBOR -> FORMAT_CBOR;
+        };
+    }
+    
+    private static byte[] withHeader(byte format, byte compression, byte[] payload) {
+        byte[] data = new byte[payload.length + HEADER_SIZE];
+        data[0] = format;
+        data[1] = compression;
+        System.arraycopy(payload, 0, data, HEADER_SIZE, payload.length);
+        return data;
+    }
+}
@@ -0,0 +1,106 @@
+package com.alibaba.cloud.ai.workflow.storage;
+
+import com.alibaba.cloud.ai.workflow.config.StorageProperties;
+import com.alibaba.cloud.ai.workflow.entity.WorkflowEntity;
+import com.alibaba.cloud.ai.workflow.repository.WorkflowRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// 启动后在后台把旧格式的工作流分批转换为 graph/layout 两列。
+// 转换前的数据仍可正常读取, 转换失败的记录会被跳过并保持旧格式。
+// 转换不修改 updatedAt (工作流版本号), 已编译图缓存不会因迁移失效; 转换后旧的 graphData 列清空为空字符串,
+// 之前只写入了 graph/layout 的记录也在同一轮中清空。
+@Component
+@Slf4j
+public class StorageMigration {
+    
+    private final WorkflowRepository workflowRepository;
+    private final WorkflowStorage workflowStorage;
+    private final StorageProperties properties;
+    
+    public StorageMigration(WorkflowRepository workflowRepository,
+                            WorkflowStorage workflowStorage,
+                            StorageProperties properties) {
+        this.workflowRepository = workflowRepository;
+        this.workflowStorage = workflowStorage;
+        this.properties = properties;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!properties.isMigrateOnStartup()) {
+            return;
+        }
+        Thread thread = new Thread(this::migrateQuietly, "storage-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void migrateQuietly() {
+        try {
+            migrateWorkflows();
+        } catch (Exception e) {
+            log.error("Workflow storage migration stopped", e);
+        }
+    }
+    
+    // 按 id 顺序分批处理, 失败的记录不会被重复选中
+    public int migrateWorkflows() {
+        int migrated = 0;
+        String afterId = "";
+        while (true) {
+            List<String> ids = workflowRepository.findLegacyIds(afterId,
+                PageRequest.of(0, properties.getMigrationBatchSize()));
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (String id : ids) {
+                try {
+                    if (migrate(id)) {
+                        migrated++;
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to migrate workflow {}: {}", id, e.getMessage());
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        int cleared = clearMigratedGraphData();
+        if (migrated > 0 || cleared > 0) {
+            log.info("Migrated {} workflows to the graph/layout storage format, cleared legacy data of {} more",
+                migrated, cleared);
+        }
+        return migrated;
+    }
+    
+    private int clearMigratedGraphData() {
+        int cleared = 0;
+        String afterId = "";
+        while (true) {
+            List<String> ids = workflowRepository.findMigratedWithGraphDataIds(afterId,
+                PageRequest.of(0, properties.getMigrationBatchSize()));
+            if (ids.isEmpty()) {
+                return cleared;
+            }
+            cleared += workflowRepository.clearGraphData(ids);
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+    
+    // 按读取时的 updatedAt 条件更新: 期间被用户保存过的工作流已是新格式, 不会被旧数据覆盖
+    private boolean migrate(String id) {
+        WorkflowEntity entity = workflowRepository.findById(id).orElse(null);
+        if (entity == null || !workflowStorage.isLegacy(entity)) {
+            return false;
+        }
+        WorkflowEntity converted = new WorkflowEntity();
+        workflowStorage.write(converted, workflowStorage.read(entity));
+        return workflowRepository.migrateLegacy(id, converted.getGraph(), converted.getLayout(),
+            entity.getUpdatedAt()) > 0;
+    }
+}
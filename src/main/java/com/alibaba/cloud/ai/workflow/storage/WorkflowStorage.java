@@ -0,0 +1,49 @@
+package com.alibaba.cloud.ai.workflow.storage;
+
+import com.alibaba.cloud.ai.workflow.entity.WorkflowEntity;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.model.WorkflowLayout;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+// 工作流定义的存储格式: 执行所需的图 (graph) 和编辑器布局 (layout) 分两列编码存储。
+// 旧数据只有 graphData (完整 JSON), 读取时兼容, 由 StorageMigration 在后台转换。
+@Component
+@RequiredArgsConstructor
+public class WorkflowStorage {
+    
+    private final StorageCodec codec;
+    private final ObjectMapper objectMapper;
+    
+    public void write(WorkflowEntity entity, WorkflowDefinition definition) {
+        entity.setGraph(codec.encode(WorkflowLayout.withoutLayout(definition)));
+        entity.setLayout(codec.encode(WorkflowLayout.of(definition)));
+        // 旧列保留非空约束 (ddl-auto=update 不会修改已有列), 新格式写入空字符串
+        entity.setGraphData("");
+    }
+    
+    public WorkflowDefinition read(WorkflowEntity entity) {
+        WorkflowDefinition definition;
+        if (isLegacy(entity)) {
+            try {
+                definition = objectMapper.readValue(entity.getGraphData(), WorkflowDefinition.class);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to parse workflow " + entity.getId(), e);
+            }
+        } else {
+            definition = codec.decode(entity.getGraph(), WorkflowDefinition.class);
+            if (entity.getLayout() != null) {
+                codec.decode(entity.getLayout(), WorkflowLayout.class).applyTo(definition);
+            }
+        }
+        definition.setId(entity.getId());
+        return definition;
+    }
+    
+    public boolean isLegacy(WorkflowEntity entity) {
+        return entity.getGraph() == null;
+    }
+}
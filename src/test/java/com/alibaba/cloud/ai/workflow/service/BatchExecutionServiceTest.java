@@ -0,0 +1,177 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.BatchProperties;
+import com.alibaba.cloud.ai.workflow.model.BatchSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.linear;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.node;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// 批量执行的每一项都以一行 NDJSON 返回且只返回一次, 所有项结束后批次完成, 包括没能启动的项
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:batch-execution;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "workflow.checkpoint.recover-on-startup=false",
+    "workflow.retention.enabled=false"
+})
+@AutoConfigureMockMvc
+class BatchExecutionServiceTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private BatchExecutionService batchExecutionService;
+    
+    @Autowired
+    private WorkflowService workflowService;
+    
+    @Autowired
+    private ExecutionEngine executionEngine;
+    
+    @Autowired
+    private ExecutionRecordWriter executionRecordWriter;
+    
+    @Autowired
+    private BatchProperties properties;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private int maxStartAttempts;
+    private String workflowId;
+    
+    @BeforeEach
+    void setUp() {
+        maxStartAttempts = properties.getMaxStartAttempts();
+        workflowId = workflowService.createWorkflow(linear("batch-test",
+            node("n1", "input"),
+            node("n2", "process"),
+            node("n3", "output"))).getId();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        properties.setMaxStartAttempts(maxStartAttempts);
+    }
+    
+    @Test
+    void everyItemIsStreamedOnceAndBatchCompletes() throws Exception {
+        List<Map<String, Object>> inputs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            inputs.add(Map.of("input", "item-" + i));
+        }
+        
+        MvcResult result = executeBatch(objectMapper.writeValueAsString(inputs), MediaType.APPLICATION_JSON, 3);
+        List<Map<String, Object>> lines = lines(result);
+        
+        assertThat(lines).hasSize(10);
+        assertThat(lines).extracting(line -> line.get("index")).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        for (Map<String, Object> line : lines) {
+            assertThat(line.get("status")).isEqualTo("completed");
+            assertThat(String.valueOf(line.get("outputs"))).contains("Processed: item-" + line.get("index"));
+        }
+        BatchSummary summary = summary(result);
+        assertThat(summary.status()).isEqualTo("completed");
+        assertThat(summary.counts()).containsEntry("completed", 10L);
+        assertThat(summary.completedAt()).isNotNull();
+    }
+    
+    @Test
+    void itemsThatCannotStartAreRecordedAsFailed() throws Exception {
+        properties.setMaxStartAttempts(2);
+        // 占满所有执行名额, 批量执行的每一项都会被拒绝
+        List<ExecutionEngine.Permit> permits = new ArrayList<>();
+        try {
+            while (true) {
+                permits.add(executionEngine.acquireNow("other-workflow"));
+            }
+        } catch (ExecutionRejectedException e) {
+            // 已占满
+        }
+        MvcResult result;
+        try {
+            result = executeBatch("{\"input\":\"a\"}\n{\"input\":\"b\"}\n", BatchExecutionService.NDJSON, 2);
+        } finally {
+            permits.forEach(ExecutionEngine.Permit::release);
+        }
+        
+        List<Map<String, Object>> lines = lines(result);
+        assertThat(lines).hasSize(2);
+        assertThat(lines).allSatisfy(line -> {
+            assertThat(line.get("status")).isEqualTo("failed");
+            assertThat(String.valueOf(line.get("errorMessage"))).contains("queue is full");
+        });
+        BatchSummary summary = summary(result);
+        assertThat(summary.status()).isEqualTo("completed");
+        assertThat(summary.counts()).containsEntry("failed", 2L);
+    }
+    
+    @Test
+    void invalidInputsAreRejected() {
+        assertThatThrownBy(() -> batchExecutionService.executeBatch(workflowId, List.of(), null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> batchExecutionService.readInputs(
+            new ByteArrayInputStream("{\"input\":".getBytes(StandardCharsets.UTF_8)), true))
+            .isInstanceOf(InvalidRequestException.class);
+        List<Map<String, Object>> tooMany = new ArrayList<>();
+        for (int i = 0; i <= properties.getMaxSize(); i++) {
+            tooMany.add(new HashMap<>());
+        }
+        assertThatThrownBy(() -> batchExecutionService.executeBatch(workflowId, tooMany, null))
+            .isInstanceOf(InvalidRequestException.class);
+    }
+    
+    // 请求在结果流结束 (所有项完成) 后返回
+    private MvcResult executeBatch(String body, MediaType contentType, int parallelism) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/workflows/{id}/batch", workflowId)
+                .param("parallelism", String.valueOf(parallelism))
+                .contentType(contentType)
+                .content(body))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        result.getAsyncResult(10000);
+        return result;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> lines(MvcResult result) throws Exception {
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readValue(line, Map.class));
+            }
+        }
+        return lines;
+    }
+    
+    // 批次的计数来自已落库的执行记录
+    private BatchSummary summary(MvcResult result) {
+        executionRecordWriter.flush();
+        return batchExecutionService.getBatch(result.getResponse().getHeader("X-Batch-Id"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.awaitFinished;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.linear;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.node;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 取消和超时都会中断正在等待的节点, 执行以对应的状态结束而不是等到节点完成。
+// 延迟节点等待 5 秒, 低于暂停阈值, 执行一直占用名额
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:execution-cancellation;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "workflow.checkpoint.recover-on-startup=false",
+    "workflow.retention.enabled=false"
+})
+class ExecutionCancellationTest {
+    
+    private static final long SLOW_NODE_MILLIS = 5000;
+    
+    @Autowired
+    private ExecutionService executionService;
+    
+    @Autowired
+    private WorkflowService workflowService;
+    
+    @Test
+    void runningExecutionIsCancelled() throws Exception {
+        String workflowId = workflowService.createWorkflow(slowWorkflow(null)).getId();
+        ExecutionEntity execution = executionService.executeWorkflow(workflowId, Map.of("input", "a"));
+        awaitRunning(execution.getId());
+        // 等 n2 开始等待后再取消
+        Thread.sleep(200);
+        
+        long start = System.currentTimeMillis();
+        ExecutionEntity cancelled = executionService.cancelExecution(execution.getId());
+        
+        assertThat(System.currentTimeMillis() - start).isLessThan(SLOW_NODE_MILLIS);
+        assertThat(cancelled.getStatus()).isEqualTo(ExecutionService.STATUS_CANCELLED);
+        assertThat(cancelled.getErrorMessage()).isEqualTo("Execution cancelled");
+        assertThat(executionService.isRunning(execution.getId())).isFalse();
+        assertThat(executionService.getExecution(execution.getId()).getStatus())
+            .isEqualTo(ExecutionService.STATUS_CANCELLED);
+    }
+    
+    @Test
+    void finishedExecutionCannotBeCancelled() throws Exception {
+        String workflowId = workflowService.createWorkflow(linear("cancel-finished",
+            node("n1", "input"),
+            node("n2", "output"))).getId();
+        ExecutionEntity execution = executionService.executeWorkflow(workflowId, Map.of("input", "a"));
+        assertThat(awaitFinished(executionService, execution.getId(), 10000).getStatus()).isEqualTo("completed");
+        
+        assertThatThrownBy(() -> executionService.cancelExecution(execution.getId()))
+            .isInstanceOf(ExecutionNotRunningException.class);
+        assertThat(executionService.getExecution(execution.getId()).getStatus()).isEqualTo("completed");
+    }
+    
+    @Test
+    void workflowTimeoutStopsExecution() throws Exception {
+        WorkflowDefinition definition = slowWorkflow(null);
+        definition.getMetadata().put(ExecutionTimeouts.KEY, "200ms");
+        String workflowId = workflowService.createWorkflow(definition).getId();
+        
+        long start = System.currentTimeMillis();
+        ExecutionEntity execution = executionService.executeWorkflow(workflowId, Map.of("input", "a"));
+        ExecutionEntity finished = awaitFinished(executionService, execution.getId(), 10000);
+        
+        assertThat(System.currentTimeMillis() - start).isLessThan(SLOW_NODE_MILLIS);
+        assertThat(finished.getStatus()).isEqualTo(ExecutionService.STATUS_TIMED_OUT);
+        assertThat(finished.getErrorMessage()).contains("timed out after 200ms");
+    }
+    
+    @Test
+    void nodeTimeoutStopsExecution() throws Exception {
+        String workflowId = workflowService.createWorkflow(slowWorkflow("200ms")).getId();
+        
+        long start = System.currentTimeMillis();
+        ExecutionEntity execution = executionService.executeWorkflow(workflowId, Map.of("input", "a"));
+        ExecutionEntity finished = awaitFinished(executionService, execution.getId(), 10000);
+        
+        // 节点超时视为整个执行超时, 后面的节点不再执行
+        assertThat(System.currentTimeMillis() - start).isLessThan(SLOW_NODE_MILLIS);
+        assertThat(finished.getStatus()).isEqualTo(ExecutionService.STATUS_TIMED_OUT);
+        assertThat(finished.getErrorMessage()).contains("Node n2 timed out after 200ms");
+    }
+    
+    @Test
+    void timeoutWithinLimitDoesNotStopExecution() throws Exception {
+        WorkflowDefinition definition = linear("timeout-not-reached",
+            node("n1", "input"),
+            node("n2", "delay", "duration", "10ms", ExecutionTimeouts.KEY, "5s"),
+            node("n3", "output"));
+        definition.getMetadata().put(ExecutionTimeouts.KEY, "5s");
+        String workflowId = workflowService.createWorkflow(definition).getId();
+        
+        ExecutionEntity execution = executionService.executeWorkflow(workflowId, Map.of("input", "a"));
+        
+        assertThat(awaitFinished(executionService, execution.getId(), 10000).getStatus()).isEqualTo("completed");
+    }
+    
+    @Test
+    void invalidTimeoutIsRejectedOnSave() {
+        WorkflowDefinition definition = slowWorkflow(null);
+        definition.getMetadata().put(ExecutionTimeouts.KEY, "soon");
+        
+        assertThatThrownBy(() -> workflowService.createWorkflow(definition))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("Invalid timeout 'soon' for workflow");
+        assertThatThrownBy(() -> workflowService.createWorkflow(slowWorkflow("0")))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("must be positive");
+    }
+    
+    // n2 等待 5 秒, nodeTimeout 不为空时作为 n2 的超时
+    private static WorkflowDefinition slowWorkflow(String nodeTimeout) {
+        WorkflowDefinition.NodeDefinition slow = node("n2", "delay", "duration", SLOW_NODE_MILLIS + "ms");
+        if (nodeTimeout != null) {
+            slow.getData().put(ExecutionTimeouts.KEY, nodeTimeout);
+        }
+        return linear("slow", node("n1", "input"), slow, node("n3", "output"));
+    }
+    
+    private void awaitRunning(String executionId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!executionService.isRunning(executionId) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(executionService.isRunning(executionId)).isTrue();
+    }
+}
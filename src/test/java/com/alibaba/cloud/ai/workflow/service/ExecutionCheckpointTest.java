@@ -0,0 +1,164 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.checkpoint.JdbcCheckpointStore;
+import com.alibaba.cloud.ai.workflow.checkpoint.StoredCheckpoint;
+import com.alibaba.cloud.ai.workflow.entity.CheckpointEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.repository.CheckpointRepository;
+import com.alibaba.cloud.ai.workflow.storage.ExecutionPayloads;
+import com.alibaba.cloud.ai.workflow.storage.StorageCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.awaitFinished;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.linear;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.node;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 中断的执行从检查点之后的节点继续, 检查点之前的节点不再执行。
+// 延迟节点不与前后节点合并, 每个延迟节点前后都是检查点的边界
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:execution-checkpoint;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "workflow.checkpoint.store=jdbc",
+    "workflow.checkpoint.interval=1",
+    "workflow.checkpoint.recover-on-startup=false",
+    "workflow.retention.enabled=false"
+})
+class ExecutionCheckpointTest {
+    
+    @Autowired
+    private ExecutionService executionService;
+    
+    @Autowired
+    private WorkflowService workflowService;
+    
+    @Autowired
+    private ExecutionRecordWriter executionRecordWriter;
+    
+    @Autowired
+    private ExecutionPayloads executionPayloads;
+    
+    @Autowired
+    private CheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private StorageCodec codec;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private String workflowId;
+    
+    @BeforeEach
+    void setUp() {
+        workflowId = workflowService.createWorkflow(linear("checkpoint-test",
+            node("n1", "input"),
+            node("n2", "delay", "duration", "10ms"),
+            node("n3", "process"),
+            node("n4", "delay", "duration", "2s"),
+            node("n5", "output"))).getId();
+    }
+    
+    @Test
+    void resumesAfterCheckpointWithoutRunningEarlierNodes() throws Exception {
+        ExecutionEntity execution = interrupted();
+        Map<String, Object> nodeResults = new LinkedHashMap<>();
+        nodeResults.put("n1", Map.of("nodeId", "n1", "fromCheckpoint", true));
+        nodeResults.put("n2", Map.of("nodeId", "n2", "fromCheckpoint", true));
+        saveCheckpoint(execution, workflowService.getWorkflowVersion(workflowId), "n2", "n3",
+            Map.of("input", "from-checkpoint", WorkflowGraphCompiler.NODE_RESULTS_KEY, nodeResults));
+        
+        ExecutionEntity finished = executionService.resumeExecution(execution).get(10, TimeUnit.SECONDS);
+        
+        assertThat(finished.getStatus()).isEqualTo("completed");
+        Map<String, Map<String, Object>> results = nodeResults(finished);
+        assertThat(results).containsOnlyKeys("n1", "n2", "n3", "n4", "n5");
+        assertThat(results.get("n1")).containsEntry("fromCheckpoint", true);
+        assertThat(results.get("n2")).containsEntry("fromCheckpoint", true);
+        // n3 读取的是检查点中的状态, 而不是执行的原始 inputs
+        assertThat(results.get("n3")).containsEntry("processed", "Processed: from-checkpoint");
+        assertThat(checkpointRepository.existsById(execution.getId())).isFalse();
+    }
+    
+    @Test
+    void restartsFromInputsWithoutCheckpoint() throws Exception {
+        ExecutionEntity execution = interrupted();
+        
+        ExecutionEntity finished = executionService.resumeExecution(execution).get(10, TimeUnit.SECONDS);
+        
+        assertThat(finished.getStatus()).isEqualTo("completed");
+        Map<String, Map<String, Object>> results = nodeResults(finished);
+        assertThat(results).containsOnlyKeys("n1", "n2", "n3", "n4", "n5");
+        assertThat(results.get("n3")).containsEntry("processed", "Processed: from-inputs");
+    }
+    
+    @Test
+    void checkpointOfAnotherWorkflowVersionIsNotResumed() throws Exception {
+        ExecutionEntity execution = interrupted();
+        saveCheckpoint(execution, "stale-version", "n2", "n3", Map.of("input", "from-checkpoint"));
+        
+        ExecutionEntity finished = executionService.resumeExecution(execution).get(10, TimeUnit.SECONDS);
+        
+        // 节点 id 可能已经变化, 不能从旧版本的检查点继续
+        assertThat(finished.getStatus()).isEqualTo("failed");
+        assertThat(finished.getErrorMessage()).contains("modified after the checkpoint");
+        assertThat(checkpointRepository.existsById(execution.getId())).isFalse();
+    }
+    
+    @Test
+    void checkpointIsSavedDuringExecutionAndDeletedAfterwards() throws Exception {
+        ExecutionEntity execution = executionService.executeWorkflow(workflowId, Map.of("input", "from-inputs"));
+        
+        // n4 等待 2 秒, 期间检查点停在 n3 之后
+        Optional<CheckpointEntity> saved = Optional.empty();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (saved.map(c -> !"n3".equals(c.getNodeId())).orElse(true) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            saved = checkpointRepository.findById(execution.getId());
+        }
+        assertThat(saved).get().extracting(CheckpointEntity::getNodeId, CheckpointEntity::getNextNodeId)
+            .containsExactly("n3", "n4");
+        
+        ExecutionEntity finished = awaitFinished(executionService, execution.getId(), 10000);
+        assertThat(finished.getStatus()).isEqualTo("completed");
+        assertThat(checkpointRepository.existsById(execution.getId())).isFalse();
+    }
+    
+    // 上次运行时中断、执行记录仍为 running 的执行
+    private ExecutionEntity interrupted() {
+        ExecutionEntity execution = new ExecutionEntity();
+        execution.setWorkflowId(workflowId);
+        execution.setStatus("running");
+        executionPayloads.writeInputs(execution, Map.of("input", "from-inputs"));
+        executionRecordWriter.create(execution);
+        executionRecordWriter.flush();
+        return execution;
+    }
+    
+    private void saveCheckpoint(ExecutionEntity execution, String version, String nodeId, String nextNodeId,
+                                Map<String, Object> state) {
+        new JdbcCheckpointStore(checkpointRepository).save(new StoredCheckpoint(execution.getId(), workflowId,
+            version, nodeId, nextNodeId, codec.encode(state), LocalDateTime.now()));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, Object>> nodeResults(ExecutionEntity execution) throws Exception {
+        Map<String, Object> outputs = objectMapper.readValue(executionPayloads.materialize(execution).getOutputs(),
+            Map.class);
+        return (Map<String, Map<String, Object>>) outputs.get(WorkflowGraphCompiler.NODE_RESULTS_KEY);
+    }
+}
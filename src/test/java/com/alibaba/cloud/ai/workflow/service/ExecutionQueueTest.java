@@ -0,0 +1,159 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.DispatchProperties;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionQueueEntity;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionQueueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 多个 worker 在同一个进程内并发领取、续租和接管过期租约。
+// H2 把 skip locked 当作普通的 for update 处理, 这里验证的是领取时的条件更新
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:execution-queue;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "workflow.dispatch.mode=local",
+    "workflow.retention.enabled=false"
+})
+class ExecutionQueueTest {
+    
+    @Autowired
+    private ExecutionQueue executionQueue;
+    
+    @Autowired
+    private ExecutionQueueRepository queueRepository;
+    
+    @Autowired
+    private DispatchProperties properties;
+    
+    private Duration leaseDuration;
+    
+    @BeforeEach
+    void setUp() {
+        leaseDuration = properties.getLeaseDuration();
+        queueRepository.deleteAll();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        properties.setLeaseDuration(leaseDuration);
+        queueRepository.deleteAll();
+    }
+    
+    @Test
+    void concurrentWorkersClaimEachExecutionOnce() throws Exception {
+        int executions = 60;
+        int workers = 8;
+        for (int i = 0; i < executions; i++) {
+            enqueue();
+        }
+        Map<String, String> owners = new ConcurrentHashMap<>();
+        List<String> duplicates = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                String owner = "worker-" + w;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    List<ExecutionQueueEntity> claimed;
+                    do {
+                        claimed = executionQueue.claim(owner, 3);
+                        for (ExecutionQueueEntity item : claimed) {
+                            String previous = owners.putIfAbsent(item.getExecutionId(), owner);
+                            if (previous != null) {
+                                synchronized (duplicates) {
+                                    duplicates.add(item.getExecutionId() + " " + previous + "/" + owner);
+                                }
+                            }
+                        }
+                    } while (!claimed.isEmpty());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        assertThat(duplicates).isEmpty();
+        assertThat(owners).hasSize(executions);
+        assertThat(executionQueue.pendingCount()).isZero();
+        // 数据库中的持有者与各 worker 领取到的一致, 每行只被领取一次
+        for (ExecutionQueueEntity item : queueRepository.findAll()) {
+            assertThat(item.getOwner()).isEqualTo(owners.get(item.getExecutionId()));
+            assertThat(item.getAttempts()).isEqualTo(1);
+        }
+    }
+    
+    @Test
+    void expiredLeaseIsReclaimedByAnotherWorker() throws Exception {
+        properties.setLeaseDuration(Duration.ofMillis(200));
+        String executionId = enqueue();
+        
+        List<ExecutionQueueEntity> first = executionQueue.claim("worker-a", 10);
+        assertThat(first).extracting(ExecutionQueueEntity::getExecutionId).containsExactly(executionId);
+        // 租约有效期内其他 worker 领取不到, 持有者可以续租
+        assertThat(executionQueue.claim("worker-b", 10)).isEmpty();
+        assertThat(executionQueue.renew("worker-a", List.of(executionId))).isEqualTo(1);
+        
+        Thread.sleep(300);
+        List<ExecutionQueueEntity> second = executionQueue.claim("worker-b", 10);
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).getOwner()).isEqualTo("worker-b");
+        assertThat(second.get(0).getAttempts()).isEqualTo(2);
+        
+        // 原持有者续租失败, 也不能删除已被接管的行
+        assertThat(executionQueue.renew("worker-a", List.of(executionId))).isZero();
+        assertThat(executionQueue.owned("worker-a", List.of(executionId))).isEmpty();
+        assertThat(executionQueue.owned("worker-b", List.of(executionId))).isEqualTo(Set.of(executionId));
+        assertThat(executionQueue.complete(executionId, "worker-a")).isFalse();
+        assertThat(executionQueue.complete(executionId, "worker-b")).isTrue();
+        assertThat(executionQueue.size()).isZero();
+    }
+    
+    @Test
+    void releasedExecutionCanBeClaimedAgain() {
+        String executionId = enqueue();
+        assertThat(executionQueue.claim("worker-a", 10)).hasSize(1);
+        
+        executionQueue.release(executionId, "worker-a");
+        
+        List<ExecutionQueueEntity> claimed = executionQueue.claim("worker-b", 10);
+        assertThat(claimed).extracting(ExecutionQueueEntity::getOwner).containsExactly("worker-b");
+        // 放弃领取不计入领取次数
+        assertThat(claimed.get(0).getAttempts()).isEqualTo(1);
+    }
+    
+    private String enqueue() {
+        ExecutionEntity execution = new ExecutionEntity();
+        execution.setWorkflowId("queue-test");
+        execution.setStatus("queued");
+        return executionQueue.enqueue(execution).getId();
+    }
+}
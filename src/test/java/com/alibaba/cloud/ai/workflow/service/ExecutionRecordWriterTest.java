@@ -0,0 +1,154 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 定时刷写间隔设得很长, 只在测试中显式调用 flush, 每次刷写的内容是确定的
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:execution-writer;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "workflow.persistence.flush-interval=1h",
+    "workflow.persistence.max-attempts=3",
+    "workflow.checkpoint.recover-on-startup=false",
+    "workflow.retention.enabled=false"
+})
+class ExecutionRecordWriterTest {
+    
+    @Autowired
+    private ExecutionRecordWriter writer;
+    
+    @Autowired
+    private ExecutionRepository executionRepository;
+    
+    @Autowired
+    private MeterRegistry registry;
+    
+    @BeforeEach
+    void setUp() {
+        writer.flush();
+        executionRepository.deleteAll();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        writer.flush();
+        executionRepository.deleteAll();
+    }
+    
+    @Test
+    void changesBeforeFlushAreMergedIntoOneWrite() {
+        List<ExecutionEntity> executions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ExecutionEntity execution = writer.create(execution("writer-test"));
+            execution.setStatus("completed");
+            execution.setOutputs("{\"i\":" + i + "}");
+            writer.update(execution);
+            executions.add(execution);
+        }
+        
+        // 刷写之前数据库中没有记录, 读取的是缓冲中的最新状态
+        assertThat(writer.pendingCount()).isEqualTo(5);
+        assertThat(executionRepository.count()).isZero();
+        assertThat(writer.find(executions.get(0).getId())).get()
+            .extracting(ExecutionEntity::getStatus).isEqualTo("completed");
+        
+        DistributionSummary batchSizes = registry.get("workflow.persistence.batch.size").summary();
+        long batches = batchSizes.count();
+        writer.flush();
+        
+        // 每条记录的 insert 和 update 合并, 5 条记录在同一批写入
+        assertThat(batchSizes.count()).isEqualTo(batches + 1);
+        assertThat(batchSizes.max()).isEqualTo(5);
+        assertThat(writer.pendingCount()).isZero();
+        for (int i = 0; i < executions.size(); i++) {
+            ExecutionEntity saved = executionRepository.findById(executions.get(i).getId()).orElseThrow();
+            assertThat(saved.getStatus()).isEqualTo("completed");
+            assertThat(saved.getOutputs()).isEqualTo("{\"i\":" + i + "}");
+        }
+    }
+    
+    @Test
+    void failedRecordIsRetriedAloneAndDroppedAfterMaxAttempts() {
+        ExecutionEntity first = writer.create(execution("writer-test"));
+        // workflowId 不能为空, 这条记录每次都写入失败
+        ExecutionEntity invalid = writer.create(execution(null));
+        ExecutionEntity second = writer.create(execution("writer-test"));
+        CompletableFuture<Void> dropped = writer.whenFlushed(invalid.getId());
+        CompletableFuture<Void> written = writer.whenFlushed(first.getId());
+        
+        writer.flush();
+        
+        // 整批回滚后逐条重写, 只有失败的记录留在缓冲区
+        assertThat(executionRepository.existsById(first.getId())).isTrue();
+        assertThat(executionRepository.existsById(second.getId())).isTrue();
+        assertThat(written).isCompleted();
+        assertThat(writer.pendingCount()).isEqualTo(1);
+        assertThat(dropped).isNotDone();
+        
+        writer.flush();
+        assertThat(writer.pendingCount()).isEqualTo(1);
+        writer.flush();
+        
+        assertThat(writer.pendingCount()).isZero();
+        assertThat(writer.find(invalid.getId())).isEmpty();
+        assertThat(dropped).isCompletedExceptionally();
+        assertThat(executionRepository.existsById(invalid.getId())).isFalse();
+    }
+    
+    @Test
+    void updateOfMissingRecordIsNotInserted() {
+        ExecutionEntity missing = execution("writer-test");
+        missing.setId("missing-execution");
+        missing.setStatus("completed");
+        writer.update(missing);
+        CompletableFuture<Void> flushed = writer.whenFlushed(missing.getId());
+        
+        writer.flush();
+        
+        // 已归档或删除的记录不会被重新插入, 跳过不算写入失败
+        assertThat(flushed).isCompleted();
+        assertThat(executionRepository.existsById(missing.getId())).isFalse();
+    }
+    
+    @Test
+    void updateDoesNotOverwriteFinishedRecord() {
+        ExecutionEntity execution = writer.create(execution("writer-test"));
+        writer.flush();
+        ExecutionEntity cancelled = ExecutionRecordWriter.copyOf(execution);
+        cancelled.setStatus(ExecutionService.STATUS_CANCELLED);
+        writer.update(cancelled);
+        writer.flush();
+        
+        // 在最终状态之后到达的状态变更被丢弃
+        execution.setStatus("completed");
+        writer.update(execution);
+        writer.flush();
+        
+        assertThat(executionRepository.findById(execution.getId())).get()
+            .extracting(ExecutionEntity::getStatus).isEqualTo(ExecutionService.STATUS_CANCELLED);
+    }
+    
+    private static ExecutionEntity execution(String workflowId) {
+        ExecutionEntity execution = new ExecutionEntity();
+        execution.setWorkflowId(workflowId);
+        execution.setStatus("running");
+        return execution;
+    }
+}
@@ -0,0 +1,172 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.config.RetentionProperties;
+import com.alibaba.cloud.ai.workflow.entity.ArchivedExecutionEntity;
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.repository.ArchivedExecutionRepository;
+import com.alibaba.cloud.ai.workflow.repository.ExecutionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.linear;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.node;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 定时归档关闭, 测试中直接调用 run。执行记录直接写入 executions 表, 开始时间可以设在过去
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:execution-retention;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "workflow.persistence.flush-interval=1h",
+    "workflow.checkpoint.recover-on-startup=false",
+    "workflow.retention.enabled=false",
+    "workflow.retention.ttl=30d",
+    "workflow.retention.batch-size=2"
+})
+class ExecutionRetentionTest {
+    
+    @Autowired
+    private ExecutionRetention retention;
+    
+    @Autowired
+    private RetentionProperties properties;
+    
+    @Autowired
+    private ExecutionService executionService;
+    
+    @Autowired
+    private WorkflowService workflowService;
+    
+    @Autowired
+    private ExecutionRecordWriter executionRecordWriter;
+    
+    @Autowired
+    private ExecutionRepository executionRepository;
+    
+    @Autowired
+    private ArchivedExecutionRepository archivedRepository;
+    
+    private Duration archiveTtl;
+    private String workflowId;
+    
+    @BeforeEach
+    void setUp() {
+        archiveTtl = properties.getArchiveTtl();
+        executionRepository.deleteAll();
+        archivedRepository.deleteAll();
+        workflowId = workflowService.createWorkflow(linear("retention-test",
+            node("n1", "input"),
+            node("n2", "output"))).getId();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        properties.setArchiveTtl(archiveTtl);
+        executionRecordWriter.flush();
+    }
+    
+    @Test
+    void finishedExecutionsOlderThanTtlAreArchived() {
+        // 超过 batch-size, 分多个事务移动
+        String completed = save(workflowId, "completed", 40);
+        String failed = save(workflowId, "failed", 35);
+        String cancelled = save(workflowId, ExecutionService.STATUS_CANCELLED, 31);
+        String running = save(workflowId, "running", 40);
+        String waiting = save(workflowId, ExecutionService.STATUS_WAITING, 40);
+        String recent = save(workflowId, "completed", 1);
+        
+        retention.run();
+        
+        assertThat(archivedRepository.findAll()).extracting(ArchivedExecutionEntity::getId)
+            .containsExactlyInAnyOrder(completed, failed, cancelled);
+        assertThat(executionRepository.findAll()).extracting(ExecutionEntity::getId)
+            .containsExactlyInAnyOrder(running, waiting, recent);
+        // 归档后仍可按 id 查询
+        ExecutionEntity archived = executionService.getExecution(completed);
+        assertThat(archived.getStatus()).isEqualTo("completed");
+        assertThat(archived.getOutputs()).isEqualTo("{\"result\":\"completed\"}");
+    }
+    
+    @Test
+    void workflowRetentionOverridesDefaultTtl() {
+        String shortLived = workflowService.createWorkflow(withRetention("retention-short", "1h")).getId();
+        String kept = workflowService.createWorkflow(withRetention("retention-kept", "0")).getId();
+        String expired = save(shortLived, "completed", 1);
+        String notArchived = save(kept, "completed", 400);
+        
+        retention.run();
+        
+        assertThat(archivedRepository.existsById(expired)).isTrue();
+        assertThat(executionRepository.existsById(notArchived)).isTrue();
+        assertThat(archivedRepository.existsById(notArchived)).isFalse();
+    }
+    
+    @Test
+    void finalStatusNotYetWrittenIsArchivedLater() {
+        String id = save(workflowId, "running", 40);
+        ExecutionEntity completed = executionRepository.findById(id).orElseThrow();
+        completed.setStatus("completed");
+        executionRecordWriter.update(completed);
+        
+        // 缓冲中的最终状态还没落库, 这次跳过
+        retention.run();
+        assertThat(executionRepository.existsById(id)).isTrue();
+        
+        executionRecordWriter.flush();
+        retention.run();
+        assertThat(archivedRepository.findById(id)).get()
+            .extracting(ArchivedExecutionEntity::getStatus).isEqualTo("completed");
+    }
+    
+    @Test
+    void archivedExecutionsArePurgedAfterArchiveTtl() {
+        properties.setArchiveTtl(Duration.ofDays(60));
+        String purged = save(workflowId, "completed", 90);
+        String archivedOnly = save(workflowId, "completed", 45);
+        
+        retention.run();
+        
+        assertThat(executionRepository.count()).isZero();
+        assertThat(archivedRepository.existsById(purged)).isFalse();
+        assertThat(archivedRepository.existsById(archivedOnly)).isTrue();
+        
+        // 0 表示永久保留
+        properties.setArchiveTtl(Duration.ZERO);
+        save(workflowId, "completed", 400);
+        retention.run();
+        assertThat(archivedRepository.count()).isEqualTo(2);
+    }
+    
+    // 直接写入 executions 表, 开始时间为 daysAgo 天前
+    private String save(String workflowId, String status, int daysAgo) {
+        ExecutionEntity execution = new ExecutionEntity();
+        execution.setId(UUID.randomUUID().toString());
+        execution.setWorkflowId(workflowId);
+        execution.setStatus(status);
+        execution.setOutputs("{\"result\":\"" + status + "\"}");
+        execution.setStartedAt(LocalDateTime.now().minusDays(daysAgo));
+        if (ExecutionRecordWriter.FINISHED.contains(status)) {
+            execution.setCompletedAt(execution.getStartedAt().plusSeconds(1));
+            execution.setDuration(1000L);
+        }
+        executionRepository.save(execution);
+        return execution.getId();
+    }
+    
+    private static WorkflowDefinition withRetention(String name, String retention) {
+        WorkflowDefinition definition = linear(name, node("n1", "input"), node("n2", "output"));
+        definition.getMetadata().put(ExecutionRetention.KEY, retention);
+        return definition;
+    }
+}
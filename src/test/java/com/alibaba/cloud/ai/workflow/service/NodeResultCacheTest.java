@@ -0,0 +1,118 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.OverAllStateBuilder;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.workflow.config.ExecutionProperties;
+import com.alibaba.cloud.ai.workflow.config.NodeCacheProperties;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import com.alibaba.cloud.ai.workflow.node.NodeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 缓存的结果在多个执行之间共享, 任何一个执行修改自己拿到的结果 (包括嵌套的集合) 都不能影响其他执行
+class NodeResultCacheTest {
+    
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ExecutionEngine executionEngine;
+    private NodeResultCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        executionEngine = new ExecutionEngine(new ExecutionProperties(), new ExecutionMetrics(registry), registry);
+        cache = new NodeResultCache(new NodeCacheProperties(), registry, new ObjectMapper(), executionEngine);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        executionEngine.shutdown();
+    }
+    
+    @Test
+    void hitReturnsCachedResultWithoutRunningNode() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        AsyncNodeActionWithConfig action = memoize((state, config) -> {
+            runs.incrementAndGet();
+            return CompletableFuture.completedFuture(result());
+        });
+        
+        Map<String, Object> first = apply(action);
+        Map<String, Object> second = apply(action);
+        
+        assertThat(runs).hasValue(1);
+        assertThat(second).isEqualTo(first);
+    }
+    
+    @Test
+    void nestedCollectionsAreNotSharedBetweenExecutions() throws Exception {
+        AsyncNodeActionWithConfig action = memoize((state, config) -> CompletableFuture.completedFuture(result()));
+        
+        Map<String, Object> first = apply(action);
+        nested(first).put("extra", 1);
+        items(first).add("c");
+        Map<String, Object> second = apply(action);
+        nested(second).remove("count");
+        items(second).clear();
+        Map<String, Object> third = apply(action);
+        
+        assertThat(third).isEqualTo(result());
+    }
+    
+    @Test
+    void resultModifiedByNodeAfterCompletionDoesNotChangeCache() throws Exception {
+        Map<String, Object> produced = result();
+        AsyncNodeActionWithConfig action = memoize((state, config) -> CompletableFuture.completedFuture(produced));
+        
+        apply(action);
+        nested(produced).put("count", 2);
+        items(produced).add("c");
+        
+        assertThat(apply(action)).isEqualTo(result());
+    }
+    
+    private AsyncNodeActionWithConfig memoize(AsyncNodeActionWithConfig action) {
+        WorkflowDefinition.NodeDefinition node = new WorkflowDefinition.NodeDefinition();
+        node.setId("transform");
+        node.setData(new HashMap<>(Map.of("nodeType", "transform", "cacheable", true)));
+        return cache.memoize("workflow", "v1", node, NodeInfo.of(node), action);
+    }
+    
+    private static Map<String, Object> apply(AsyncNodeActionWithConfig action) throws Exception {
+        OverAllState state = OverAllStateBuilder.builder().putData("input", "hello").build();
+        return action.apply(state, RunnableConfig.builder().build()).get(5, TimeUnit.SECONDS);
+    }
+    
+    private static Map<String, Object> result() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("count", 1);
+        nested.put("items", new ArrayList<>(List.of("a", "b")));
+        Map<String, Object> result = new HashMap<>();
+        result.put("output", nested);
+        result.put("missing", null);
+        return result;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> nested(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("output");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<Object> items(Map<String, Object> result) {
+        return (List<Object>) nested(result).get("items");
+    }
+}
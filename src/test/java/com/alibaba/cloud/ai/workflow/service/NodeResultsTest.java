@@ -0,0 +1,161 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.CompileConfig;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.OverAllStateBuilder;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.graph.internal.node.ParallelNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.alibaba.cloud.ai.workflow.service.WorkflowGraphCompiler.NODE_RESULTS_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+// 按图执行器合并状态的方式 (OverAllState.updateState 和 ParallelNode) 应用 NodeResults.STRATEGY,
+// 每个节点的结果只记录一次
+class NodeResultsTest {
+    
+    private static final Map<String, KeyStrategy> STRATEGIES = Map.of(NODE_RESULTS_KEY, NodeResults.STRATEGY);
+    
+    @Test
+    void sequentialNodesAreAppendedInCompletionOrder() {
+        Map<String, Object> state = new HashMap<>();
+        state = OverAllState.updateState(state, update("start"), STRATEGIES);
+        state = OverAllState.updateState(state, update("a"), STRATEGIES);
+        state = OverAllState.updateState(state, update("b"), STRATEGIES);
+        
+        NodeResults results = results(state);
+        assertThat(results).containsExactly(entry("start", result("start")), entry("a", result("a")),
+            entry("b", result("b")));
+        assertThat(results.depth()).isEqualTo(3);
+    }
+    
+    @Test
+    void parallelJoinKeepsEachBranchOnce() throws Exception {
+        NodeResults base = NodeResults.EMPTY.with("start", result("start"));
+        // 图执行器内部的状态和传给节点的 OverAllState 各有一份记录, 对应位置是同一个结果对象
+        Map<String, Object> executorState = new HashMap<>(Map.of(NODE_RESULTS_KEY, base));
+        OverAllState nodeState = state(NodeResults.EMPTY.with("start", base.get("start")));
+        
+        Map<String, Object> joined = parallel(node("a"), node("b"), node("c")).apply(nodeState,
+            RunnableConfig.builder().build()).get(5, TimeUnit.SECONDS);
+        executorState = OverAllState.updateState(executorState, joined, STRATEGIES);
+        
+        NodeResults results = results(executorState);
+        assertThat(results).containsOnly(entry("start", result("start")), entry("a", result("a")),
+            entry("b", result("b")), entry("c", result("c")));
+        assertThat(results.keySet()).first().isEqualTo("start");
+        assertThat(results.depth()).isEqualTo(4);
+    }
+    
+    @Test
+    void fusedChainsInParallelBranchesKeepEachNodeOnce() throws Exception {
+        NodeResults base = NodeResults.EMPTY.with("start", result("start"));
+        Map<String, Object> executorState = new HashMap<>(Map.of(NODE_RESULTS_KEY, base));
+        OverAllState nodeState = state(base);
+        
+        Map<String, Object> joined = parallel(chain("a1", "a2"), chain("b1", "b2")).apply(nodeState,
+            RunnableConfig.builder().build()).get(5, TimeUnit.SECONDS);
+        executorState = OverAllState.updateState(executorState, joined, STRATEGIES);
+        
+        NodeResults results = results(executorState);
+        assertThat(results).containsOnlyKeys("start", "a1", "a2", "b1", "b2");
+        assertThat(results.depth()).isEqualTo(5);
+        // 同一条链路内的节点保持顺序
+        List<String> order = List.copyOf(results.keySet());
+        assertThat(order.indexOf("a1")).isLessThan(order.indexOf("a2"));
+        assertThat(order.indexOf("b1")).isLessThan(order.indexOf("b2"));
+    }
+    
+    @Test
+    void fusedChainContinuingTheSameRecordIsReturnedAsIs() {
+        NodeResults base = NodeResults.EMPTY.with("start", result("start"));
+        NodeResults extended = base.with("a", result("a")).with("b", result("b"));
+        
+        assertThat(base.withAll(extended)).isSameAs(extended);
+        assertThat(extended.withAll(base)).containsExactly(entry("start", result("start")),
+            entry("a", result("a")), entry("b", result("b")));
+    }
+    
+    @Test
+    void resumeFromPlainMapCheckpoint() {
+        // 检查点解码后 nodeResults 是普通的 Map
+        Map<String, Object> checkpoint = new LinkedHashMap<>();
+        checkpoint.put("start", result("start"));
+        checkpoint.put("a", result("a"));
+        Map<String, Object> state = new HashMap<>(Map.of(NODE_RESULTS_KEY, checkpoint));
+        
+        state = OverAllState.updateState(state, update("b"), STRATEGIES);
+        
+        NodeResults results = results(state);
+        assertThat(results).containsExactly(entry("start", result("start")), entry("a", result("a")),
+            entry("b", result("b")));
+        assertThat(results.depth()).isEqualTo(3);
+        assertThat(NodeResults.copyOf(results)).isSameAs(results);
+    }
+    
+    @Test
+    void repeatedNodeKeepsLatestResultAtFirstPosition() {
+        Map<String, Object> state = new HashMap<>();
+        state = OverAllState.updateState(state, update("a"), STRATEGIES);
+        state = OverAllState.updateState(state, update("b"), STRATEGIES);
+        state = OverAllState.updateState(state, Map.of(NODE_RESULTS_KEY, Map.of("a", "second")), STRATEGIES);
+        
+        NodeResults results = results(state);
+        assertThat(results.get("a")).isEqualTo("second");
+        assertThat(results).containsExactly(entry("a", "second"), entry("b", result("b")));
+        assertThat(results).hasSize(2);
+        assertThat(results.depth()).isEqualTo(3);
+    }
+    
+    private static AsyncNodeActionWithConfig parallel(AsyncNodeActionWithConfig... branches) {
+        return new ParallelNode.AsyncParallelNodeAction(ParallelNode.formatNodeId("start"), List.of(branches),
+            STRATEGIES, CompileConfig.builder().build());
+    }
+    
+    private static AsyncNodeActionWithConfig node(String nodeId) {
+        return (state, config) -> CompletableFuture.completedFuture(update(nodeId));
+    }
+    
+    // 与 WorkflowGraphCompiler 合并的链路相同: 顺序执行, 返回整条链路合并后的增量
+    private static AsyncNodeActionWithConfig chain(String... nodeIds) {
+        return (state, config) -> {
+            OverAllState local = state(state.data().get(NODE_RESULTS_KEY));
+            Map<String, Object> partial = new HashMap<>();
+            for (String nodeId : nodeIds) {
+                Map<String, Object> update = update(nodeId);
+                local.updateState(update);
+                partial = OverAllState.updateState(partial, update, STRATEGIES);
+            }
+            return CompletableFuture.completedFuture(partial);
+        };
+    }
+    
+    private static OverAllState state(Object nodeResults) {
+        return OverAllStateBuilder.builder()
+            .withKeyStrategies(STRATEGIES)
+            .putData(NODE_RESULTS_KEY, nodeResults)
+            .build();
+    }
+    
+    private static Map<String, Object> update(String nodeId) {
+        return Map.of(NODE_RESULTS_KEY, Map.of(nodeId, result(nodeId)));
+    }
+    
+    private static Map<String, Object> result(String nodeId) {
+        return Map.of("nodeId", nodeId);
+    }
+    
+    private static NodeResults results(Map<String, Object> state) {
+        return (NodeResults) state.get(NODE_RESULTS_KEY);
+    }
+}
@@ -0,0 +1,71 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.workflow.entity.ExecutionEntity;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 测试中使用的工作流定义: 节点 data 以键值对给出, 边按 source -> target 给出
+final class TestWorkflows {
+    
+    private TestWorkflows() {
+    }
+    
+    // 按给出的顺序依次连接的工作流
+    static WorkflowDefinition linear(String name, WorkflowDefinition.NodeDefinition... nodes) {
+        List<WorkflowDefinition.EdgeDefinition> edges = new ArrayList<>();
+        for (int i = 1; i < nodes.length; i++) {
+            edges.add(edge(nodes[i - 1].getId(), nodes[i].getId()));
+        }
+        return workflow(name, List.of(nodes), edges);
+    }
+    
+    static WorkflowDefinition workflow(String name, List<WorkflowDefinition.NodeDefinition> nodes,
+                                       List<WorkflowDefinition.EdgeDefinition> edges) {
+        WorkflowDefinition definition = new WorkflowDefinition();
+        definition.setName(name);
+        definition.setNodes(new ArrayList<>(nodes));
+        definition.setEdges(new ArrayList<>(edges));
+        definition.setMetadata(new HashMap<>());
+        return definition;
+    }
+    
+    static WorkflowDefinition.NodeDefinition node(String id, String nodeType, Object... data) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("nodeType", nodeType);
+        values.put("label", id);
+        for (int i = 0; i + 1 < data.length; i += 2) {
+            values.put((String) data[i], data[i + 1]);
+        }
+        WorkflowDefinition.NodeDefinition node = new WorkflowDefinition.NodeDefinition();
+        node.setId(id);
+        node.setType("custom");
+        node.setData(values);
+        return node;
+    }
+    
+    // 等待执行结束, 返回最终的执行记录; 超时时返回最后读取到的记录
+    static ExecutionEntity awaitFinished(ExecutionService executionService, String executionId, long timeoutMillis)
+        throws InterruptedException {
+        Set<String> unfinished = Set.of("queued", "running", ExecutionService.STATUS_WAITING);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        ExecutionEntity execution = executionService.getExecution(executionId);
+        while (unfinished.contains(execution.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            execution = executionService.getExecution(executionId);
+        }
+        return execution;
+    }
+    
+    static WorkflowDefinition.EdgeDefinition edge(String source, String target) {
+        WorkflowDefinition.EdgeDefinition edge = new WorkflowDefinition.EdgeDefinition();
+        edge.setId(source + "-" + target);
+        edge.setSource(source);
+        edge.setTarget(target);
+        return edge;
+    }
+}
@@ -0,0 +1,138 @@
+package com.alibaba.cloud.ai.workflow.service;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.workflow.model.WorkflowDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.edge;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.linear;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.node;
+import static com.alibaba.cloud.ai.workflow.service.TestWorkflows.workflow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 保存时的校验和编译后的图结构: 入口、并行分支和环。
+// 节点只把自己的 id 写入 nodeResults, 执行结果反映实际执行了哪些节点
+class WorkflowGraphCompilerTest {
+    
+    private static final Function<WorkflowDefinition.NodeDefinition, AsyncNodeActionWithConfig> RECORD_NODE =
+        node -> (state, config) -> CompletableFuture.completedFuture(
+            Map.of(WorkflowGraphCompiler.NODE_RESULTS_KEY, NodeResults.EMPTY.with(node.getId(), node.getId())));
+    
+    private final WorkflowGraphCompiler compiler = new WorkflowGraphCompiler();
+    
+    @Test
+    void severalEntryNodesAreRejected() {
+        WorkflowDefinition definition = workflow("entries",
+            List.of(node("a", "input"), node("b", "input"), node("c", "output")),
+            List.of(edge("a", "c"), edge("b", "c")));
+        
+        assertThatThrownBy(() -> compiler.validate(definition))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("several entry nodes [a, b]");
+    }
+    
+    @Test
+    void severalEntryNodesFromStartRunInParallel() throws Exception {
+        WorkflowDefinition definition = workflow("entries",
+            List.of(node("a", "input"), node("b", "input"), node("c", "output")),
+            List.of(edge("start", "a"), edge("start", "b"), edge("a", "c"), edge("b", "c")));
+        
+        compiler.validate(definition);
+        CompiledWorkflow compiled = compiler.compile(definition, RECORD_NODE);
+        
+        assertThat(compiled.parallelSources()).containsExactly(StateGraph.START);
+        assertThat(run(compiled)).containsOnlyKeys("a", "b", "c");
+    }
+    
+    @Test
+    void parallelBranchesMergeIntoJoinNode() throws Exception {
+        WorkflowDefinition definition = workflow("parallel",
+            List.of(node("s", "input"), node("a1", "process"), node("a2", "process"), node("b", "process"),
+                node("j", "output")),
+            List.of(edge("s", "a1"), edge("a1", "a2"), edge("a2", "j"), edge("s", "b"), edge("b", "j")));
+        
+        CompiledWorkflow compiled = compiler.compile(definition, RECORD_NODE);
+        
+        assertThat(compiled.parallelSources()).containsExactly("s");
+        assertThat(run(compiled)).containsOnlyKeys("s", "a1", "a2", "b", "j");
+    }
+    
+    @Test
+    void nestedParallelBranchesAreRejected() {
+        WorkflowDefinition definition = workflow("nested",
+            List.of(node("s", "input"), node("a", "process"), node("a1", "process"), node("a2", "process"),
+                node("b", "process"), node("j", "output")),
+            List.of(edge("s", "a"), edge("s", "b"), edge("a", "a1"), edge("a", "a2"),
+                edge("a1", "j"), edge("a2", "j"), edge("b", "j")));
+        
+        assertThatThrownBy(() -> compiler.validate(definition))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("nested parallel branches are not supported");
+        assertThatThrownBy(() -> compiler.compile(definition, RECORD_NODE))
+            .isInstanceOf(GraphStateException.class);
+    }
+    
+    @Test
+    void cyclesAreRejected() {
+        // 编译后的图没有循环节点, 步数上限只按无环图计算, 有环的定义在保存时就被拒绝。
+        // 报告的节点包括环上的节点和只能经过环到达的节点
+        WorkflowDefinition definition = workflow("cycle",
+            List.of(node("a", "input"), node("b", "process"), node("c", "process"), node("d", "output")),
+            List.of(edge("a", "b"), edge("b", "c"), edge("c", "b"), edge("c", "d")));
+        
+        assertThatThrownBy(() -> compiler.validate(definition))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("cycle through nodes [b, c, d]");
+    }
+    
+    @Test
+    void selfLoopsAndDanglingEdgesAreReportedTogether() {
+        WorkflowDefinition definition = workflow("invalid",
+            List.of(node("a", "input"), node("b", "output")),
+            List.of(edge("a", "b"), edge("b", "b"), edge("b", "missing")));
+        
+        assertThatThrownBy(() -> compiler.validate(definition))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("node 'b' has an edge to itself")
+            .hasMessageContaining("points to unknown node 'missing'");
+    }
+    
+    @Test
+    void longChainRunsWithinStepLimit() throws Exception {
+        // 不合并时每个节点都是一个图节点, 超过默认的 25 步
+        List<WorkflowDefinition.NodeDefinition> nodes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            nodes.add(node("n" + i, "process"));
+        }
+        WorkflowDefinition definition = linear("chain", nodes.toArray(WorkflowDefinition.NodeDefinition[]::new));
+        
+        assertThat(run(compiler.compile(definition, RECORD_NODE))).hasSize(40);
+        assertThat(run(compiler.compile(definition, RECORD_NODE, node -> true, null))).hasSize(40);
+    }
+    
+    @Test
+    void unreachableNodesArePruned() throws Exception {
+        WorkflowDefinition definition = workflow("pruned",
+            List.of(node("a", "input"), node("b", "output"), node("x", "process"), node("y", "process")),
+            List.of(edge("start", "a"), edge("a", "b"), edge("x", "y")));
+        
+        assertThat(run(compiler.compile(definition, RECORD_NODE))).containsOnlyKeys("a", "b");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> run(CompiledWorkflow compiled) throws Exception {
+        OverAllState state = compiled.graph().invoke(compiled.initialState(Map.of()),
+            compiled.runnableConfig("test", Runnable::run)).orElseThrow();
+        return (Map<String, Object>) state.value(WorkflowGraphCompiler.NODE_RESULTS_KEY).orElseThrow();
+    }
+}
@@ -0,0 +1,105 @@
+package com.alibaba.cloud.ai.workflow.storage;
+
+import com.alibaba.cloud.ai.workflow.config.StorageProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 每种格式压缩与不压缩的数据都能原样读回, 修改格式后已有数据仍按数据头解码
+class StorageCodecTest {
+    
+    private final StorageProperties properties = new StorageProperties();
+    private final StorageCodec codec = new StorageCodec(new ObjectMapper(), properties);
+    
+    @ParameterizedTest
+    @EnumSource(StorageProperties.Format.class)
+    void smallPayloadRoundTripsUncompressed(StorageProperties.Format format) {
+        properties.setFormat(format);
+        Map<String, Object> value = payload(3);
+        
+        byte[] data = codec.encode(value);
+        
+        assertThat(data[0]).isEqualTo((byte) format.name().charAt(0));
+        assertThat(data[1]).isEqualTo((byte) 'N');
+        assertThat(codec.decode(data, Map.class)).isEqualTo(value);
+    }
+    
+    @ParameterizedTest
+    @EnumSource(StorageProperties.Format.class)
+    void largePayloadRoundTripsCompressed(StorageProperties.Format format) {
+        properties.setFormat(format);
+        Map<String, Object> value = payload(500);
+        
+        byte[] data = codec.encode(value);
+        
+        assertThat(data[1]).isEqualTo((byte) 'D');
+        assertThat(data.length).isLessThan(codec.toJson(value).getBytes(StandardCharsets.UTF_8).length);
+        assertThat(codec.decode(data, Map.class)).isEqualTo(value);
+    }
+    
+    @Test
+    void existingDataIsReadAfterFormatChange() {
+        Map<String, Object> value = payload(50);
+        List<byte[]> stored = new ArrayList<>();
+        for (StorageProperties.Format format : StorageProperties.Format.values()) {
+            properties.setFormat(format);
+            stored.add(codec.encode(value));
+        }
+        
+        properties.setFormat(StorageProperties.Format.JSON);
+        
+        for (byte[] data : stored) {
+            assertThat(codec.decode(data, Map.class)).isEqualTo(value);
+            assertThat(codec.fromJson(codec.decodeToJson(data), Map.class)).isEqualTo(value);
+        }
+    }
+    
+    @Test
+    void nullFieldsAreOmitted() {
+        properties.setFormat(StorageProperties.Format.JSON);
+        
+        byte[] data = codec.encode(new Holder("value", null));
+        
+        assertThat(new String(data, 2, data.length - 2, StandardCharsets.UTF_8)).isEqualTo("{\"kept\":\"value\"}");
+        assertThat(codec.decode(data, Holder.class)).isEqualTo(new Holder("value", null));
+    }
+    
+    @Test
+    void unknownHeaderIsRejected() {
+        assertThatThrownBy(() -> codec.decode(new byte[] {'X', 'N', '{', '}'}, Map.class))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode(new byte[] {'J', 'X', '{', '}'}, Map.class))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode(new byte[] {'J'}, Map.class))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static Map<String, Object> payload(int items) {
+        List<Object> nodes = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", "node-" + i);
+            node.put("type", i % 2 == 0 ? "transform" : "condition");
+            node.put("data", Map.of("label", "Node " + i, "weight", i, "enabled", i % 3 == 0));
+            nodes.add(node);
+        }
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "工作流");
+        value.put("ratio", 0.5);
+        value.put("nodes", nodes);
+        return value;
+    }
+    
+    record Holder(String kept, String dropped) {
+    }
+}
@@ -38,7 +38,8 @@ done
 # 测试后端API
 echo "4. 测试后端API..."
 echo "GET /api/workflows:"
-curl -s http://localhost:8080/api/workflows | jq . 2>/dev/null || echo "JSON解析失败，原始响应："
+# 返回分页结果 {items, nextCursor}, nextCursor 不为 null 时用 ?cursor= 获取下一页
+curl -s http://localhost:8080/api/workflows | jq '{count: (.items | length), nextCursor, items}' 2>/dev/null || echo "JSON解析失败，原始响应："
 curl -s http://localhost:8080/api/workflows
 
 echo ""